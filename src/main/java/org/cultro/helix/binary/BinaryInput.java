@@ -0,0 +1,140 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.SerializationException;
+
+/**
+ * Reads the encoding written by {@link BinaryOutput} from a byte array range.
+ */
+final class BinaryInput {
+
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+    private char[] chars = new char[64];
+
+    BinaryInput(byte[] buffer, int offset, int limit) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    int position() {
+        return position;
+    }
+
+    private void require(int bytes) throws SerializationException {
+        if (limit - position < bytes) {
+            throw new SerializationException("Unexpected end of data at offset " + position);
+        }
+    }
+
+    int readByte() throws SerializationException {
+        require(1);
+        return buffer[position++];
+    }
+
+    boolean readBoolean() throws SerializationException {
+        return readByte() != 0;
+    }
+
+    int readVarInt() throws SerializationException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+
+    long readVarLong() throws SerializationException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+
+    int readZigZagInt() throws SerializationException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readZigZagLong() throws SerializationException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readInt() throws SerializationException {
+        require(4);
+        int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                | (buffer[position + 2] & 0xFF) << 8 | buffer[position + 3] & 0xFF;
+        position += 4;
+        return value;
+    }
+
+    long readLong() throws SerializationException {
+        return (long) readInt() << 32 | readInt() & 0xFFFFFFFFL;
+    }
+
+    float readFloat() throws SerializationException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    double readDouble() throws SerializationException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    byte[] readBytes(int length) throws SerializationException {
+        require(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    /**
+     * Reads a length written as a varint of the length plus one, checking that the data can hold that many
+     * elements of at least the given size, so that corrupt lengths fail before allocating.
+     *
+     * @return The length, or -1 for null.
+     */
+    int readLength(int minimumElementSize) throws SerializationException {
+        int length = readVarInt() - 1;
+        if (length < -1 || (long) length * minimumElementSize > limit - position) {
+            throw new SerializationException("Invalid length " + length + " at offset " + position);
+        }
+        return length;
+    }
+
+    String readString() throws SerializationException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new SerializationException("Invalid string length at offset " + position);
+        }
+        require(length);
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            int b = readByte() & 0xFF;
+            if (b < 0x80) {
+                chars[i] = (char) b;
+            } else if (b < 0xE0) {
+                chars[i] = (char) ((b & 0x1F) << 6 | (readByte() & 0x3F));
+            } else {
+                chars[i] = (char) ((b & 0x0F) << 12 | (readByte() & 0x3F) << 6 | (readByte() & 0x3F));
+            }
+        }
+        return new String(chars, 0, length);
+    }
+}
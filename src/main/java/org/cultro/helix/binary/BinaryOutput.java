@@ -0,0 +1,157 @@
+package org.cultro.helix.binary;
+
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+
+/**
+ * The byte sink values are encoded into: either a growable array that is reused between calls, or the backing
+ * array of a heap {@code ByteBuffer}, which is written in place and cannot grow.
+ * <p>
+ * Integers are written as varints (7 bits per byte, low bits first), signed ones zigzag-encoded first so that
+ * small negative numbers stay short. Floating-point numbers are written as their IEEE bits in big-endian order.
+ * Strings are written as their UTF-16 length followed by the chars in (modified) UTF-8.
+ * </p>
+ */
+final class BinaryOutput {
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private final boolean growable;
+
+    BinaryOutput(int capacity) {
+        this.buffer = new byte[capacity];
+        this.limit = capacity;
+        this.growable = true;
+    }
+
+    BinaryOutput(byte[] buffer, int offset, int limit) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = limit;
+        this.growable = false;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int position() {
+        return position;
+    }
+
+    void reset() {
+        position = 0;
+    }
+
+    private void ensure(int bytes) {
+        if (limit - position >= bytes) {
+            return;
+        }
+        if (!growable) {
+            throw new BufferOverflowException();
+        }
+        int capacity = Math.max(buffer.length * 2, position + bytes);
+        buffer = Arrays.copyOf(buffer, capacity);
+        limit = capacity;
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeZigZagInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeZigZagLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeInt(int value) {
+        ensure(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    void writeFloat(float value) {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes a string, or null, as its length plus one followed by its chars.
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        int length = value.length();
+        writeVarInt(length + 1);
+        ensure(length);
+        int i = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buffer[position++] = (byte) c;
+        }
+        if (i < length) {
+            ensure(3 * (length - i));
+            for (; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+}
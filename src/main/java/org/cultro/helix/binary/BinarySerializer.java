@@ -0,0 +1,317 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.SerializationException;
+import org.cultro.helix.lang.Validate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+
+/**
+ * Serializes objects into a compact binary format whose layout is derived from the cached metadata of their
+ * classes, without field names, tags or type information.
+ * <p>
+ * An object is written as its non-transient instance fields, superclass fields first, through compiled field
+ * accessors. Integers and longs are written as zigzag varints, so small values take one byte. Supported field
+ * types are primitives and their wrappers, strings, big numbers, enums, arrays, collections and maps with
+ * generic element types, and other classes whose objects are written the same way. Values must be of their
+ * declared class and the object graph must be a tree: shared references are written once per reference and
+ * cycles are not detected.
+ * </p>
+ * <p>
+ * Since the format carries no type information, the reader must use the same classes as the writer. With a
+ * fingerprint enabled, each message starts with a 64-bit hash of the schema of its root class, including field
+ * names, types and enum constants, and reading data written for a different schema fails instead of producing
+ * garbage.
+ * </p>
+ * <pre>{@code
+ * BinarySerializer serializer = new BinarySerializer(true);
+ * byte[] bytes = serializer.serialize(order);
+ * Order copy = serializer.deserialize(bytes, Order.class);
+ * }</pre>
+ */
+public final class BinarySerializer {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<BinaryOutput> OUTPUTS = ThreadLocal.withInitial(() -> new BinaryOutput(INITIAL_CAPACITY));
+    private static final ThreadLocal<byte[][]> INPUTS = ThreadLocal.withInitial(() -> new byte[][]{new byte[INITIAL_CAPACITY]});
+
+    private static final ClassValue<Long> FINGERPRINTS = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            StringBuilder schema = new StringBuilder();
+            ValueCodecs.forType(type).describe(schema, new HashSet<>());
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < schema.length(); i++) {
+                hash ^= schema.charAt(i);
+                hash *= 0x100000001B3L;
+            }
+            return hash;
+        }
+    };
+
+    private final boolean fingerprint;
+
+    /**
+     * Creates a serializer that does not write schema fingerprints.
+     */
+    public BinarySerializer() {
+        this(false);
+    }
+
+    /**
+     * Creates a serializer.
+     *
+     * @param fingerprint Whether messages start with the fingerprint of the schema of their root class.
+     */
+    public BinarySerializer(boolean fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Returns the fingerprint of the schema of a class: a 64-bit FNV-1a hash of the names and encodings of its
+     * fields and, recursively, of the classes they refer to.
+     *
+     * @param type The class.
+     * @return The fingerprint.
+     */
+    public static long fingerprint(Class<?> type) {
+        Validate.notNull(type, "Type cannot be null");
+        return FINGERPRINTS.get(type);
+    }
+
+    /**
+     * Serializes an object into a new byte array.
+     *
+     * @param value The object to serialize.
+     * @return The serialized bytes.
+     * @throws SerializationException If the object graph contains values that cannot be serialized.
+     */
+    public byte[] serialize(Object value) throws SerializationException {
+        BinaryOutput out = encode(value);
+        byte[] bytes = new byte[out.position()];
+        System.arraycopy(out.buffer(), 0, bytes, 0, bytes.length);
+        release(out);
+        return bytes;
+    }
+
+    /**
+     * Serializes an object into a buffer, starting at its position and advancing the position past the written
+     * bytes. Heap buffers are written in place.
+     *
+     * @param value  The object to serialize.
+     * @param buffer The buffer to write to.
+     * @throws SerializationException If the object graph contains values that cannot be serialized, or if the
+     *                                remaining space of the buffer is too small, in which case its position is
+     *                                left unchanged.
+     */
+    public void serialize(Object value, ByteBuffer buffer) throws SerializationException {
+        Validate.notNull(buffer, "Buffer cannot be null");
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            BinaryOutput out = new BinaryOutput(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+            try {
+                write(value, out);
+            } catch (BufferOverflowException e) {
+                throw overflow(buffer);
+            }
+            buffer.position(out.position() - offset);
+            return;
+        }
+        BinaryOutput out = encode(value);
+        try {
+            if (buffer.remaining() < out.position()) {
+                throw overflow(buffer);
+            }
+            buffer.put(out.buffer(), 0, out.position());
+        } finally {
+            release(out);
+        }
+    }
+
+    /**
+     * Serializes an object into a stream as its length, written as a varint, followed by its bytes, so that
+     * several objects can be written to and read from the same stream. The stream is not flushed.
+     *
+     * @param value The object to serialize.
+     * @param out   The stream to write to.
+     * @throws SerializationException If the object graph contains values that cannot be serialized.
+     * @throws IOException            If writing to the stream fails.
+     */
+    public void serialize(Object value, OutputStream out) throws SerializationException, IOException {
+        Validate.notNull(out, "Output stream cannot be null");
+        BinaryOutput encoded = encode(value);
+        try {
+            int length = encoded.position();
+            while ((length & ~0x7F) != 0) {
+                out.write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            out.write(length);
+            out.write(encoded.buffer(), 0, encoded.position());
+        } finally {
+            release(encoded);
+        }
+    }
+
+    /**
+     * Deserializes an object from a byte array.
+     *
+     * @param bytes The serialized bytes.
+     * @param type  The class the object was serialized as.
+     * @param <T>   The type of the object.
+     * @return The deserialized object.
+     * @throws SerializationException If the bytes are malformed, were written for a different schema, or contain
+     *                                data after the object.
+     */
+    public <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException {
+        Validate.notNull(bytes, "Bytes cannot be null");
+        BinaryInput in = new BinaryInput(bytes, 0, bytes.length);
+        T value = read(in, type);
+        if (in.position() != bytes.length) {
+            throw new SerializationException("Unexpected data after offset " + in.position());
+        }
+        return value;
+    }
+
+    /**
+     * Deserializes an object from a buffer, starting at its position and advancing the position past the read
+     * bytes. Heap buffers are read in place.
+     *
+     * @param buffer The buffer to read from.
+     * @param type   The class the object was serialized as.
+     * @param <T>    The type of the object.
+     * @return The deserialized object.
+     * @throws SerializationException If the bytes are malformed or were written for a different schema.
+     */
+    public <T> T deserialize(ByteBuffer buffer, Class<T> type) throws SerializationException {
+        Validate.notNull(buffer, "Buffer cannot be null");
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            BinaryInput in = new BinaryInput(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+            T value = read(in, type);
+            buffer.position(in.position() - offset);
+            return value;
+        }
+        int remaining = buffer.remaining();
+        byte[] bytes = inputBuffer(remaining);
+        buffer.duplicate().get(bytes, 0, remaining);
+        BinaryInput in = new BinaryInput(bytes, 0, remaining);
+        T value = read(in, type);
+        buffer.position(buffer.position() + in.position());
+        return value;
+    }
+
+    /**
+     * Deserializes an object written by {@link #serialize(Object, OutputStream)}, reading exactly its bytes from
+     * the stream.
+     *
+     * @param in   The stream to read from.
+     * @param type The class the object was serialized as.
+     * @param <T>  The type of the object.
+     * @return The deserialized object.
+     * @throws SerializationException If the bytes are malformed or were written for a different schema.
+     * @throws IOException            If reading from the stream fails or it ends before the object does.
+     */
+    public <T> T deserialize(InputStream in, Class<T> type) throws SerializationException, IOException {
+        Validate.notNull(in, "Input stream cannot be null");
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift == 35) {
+                throw new SerializationException("Malformed length prefix");
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of stream");
+            }
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length < 0) {
+            throw new SerializationException("Invalid length " + length);
+        }
+        byte[] bytes = inputBuffer(length);
+        for (int read = 0; read < length; ) {
+            int count = in.read(bytes, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of stream");
+            }
+            read += count;
+        }
+        BinaryInput input = new BinaryInput(bytes, 0, length);
+        T value = read(input, type);
+        if (input.position() != length) {
+            throw new SerializationException("Unexpected data after offset " + input.position());
+        }
+        return value;
+    }
+
+    private BinaryOutput encode(Object value) throws SerializationException {
+        BinaryOutput out = OUTPUTS.get();
+        out.reset();
+        try {
+            write(value, out);
+        } catch (SerializationException | RuntimeException e) {
+            release(out);
+            throw e;
+        }
+        return out;
+    }
+
+    private void write(Object value, BinaryOutput out) throws SerializationException {
+        Validate.notNull(value, "Value cannot be null");
+        Class<?> type = value.getClass();
+        if (fingerprint) {
+            out.writeLong(fingerprint(type));
+        }
+        ValueCodecs.forType(type).write(value, out);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(BinaryInput in, Class<T> type) throws SerializationException {
+        Validate.notNull(type, "Type cannot be null");
+        if (fingerprint) {
+            long expected = fingerprint(type);
+            long actual = in.readLong();
+            if (actual != expected) {
+                throw new SerializationException("Schema fingerprint mismatch for " + type.getName() + ": expected "
+                        + Long.toHexString(expected) + " but read " + Long.toHexString(actual));
+            }
+        }
+        Object value = ValueCodecs.forType(type).read(in);
+        return type.isPrimitive() ? (T) value : type.cast(value);
+    }
+
+    /**
+     * Drops the output buffer of the thread if a large object made it grow beyond the size worth keeping.
+     */
+    private static void release(BinaryOutput out) {
+        if (out.buffer().length > MAX_RETAINED_CAPACITY) {
+            OUTPUTS.remove();
+        }
+    }
+
+    private static byte[] inputBuffer(int length) {
+        byte[][] holder = INPUTS.get();
+        if (holder[0].length < length) {
+            holder[0] = new byte[length];
+        }
+        byte[] bytes = holder[0];
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            holder[0] = new byte[INITIAL_CAPACITY];
+        }
+        return bytes;
+    }
+
+    private static SerializationException overflow(ByteBuffer buffer) {
+        return new SerializationException("Buffer overflow: " + buffer.remaining() + " bytes remaining");
+    }
+}
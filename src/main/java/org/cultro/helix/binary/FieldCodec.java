@@ -0,0 +1,249 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.SerializationException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+
+import java.util.Set;
+
+/**
+ * Writes and reads one field of an object through its compiled accessor. Primitive fields have their own codecs
+ * that use the typed accessors, so their values are never boxed.
+ */
+abstract class FieldCodec {
+
+    final CompiledField field;
+
+    FieldCodec(CompiledField field) {
+        this.field = field;
+    }
+
+    static FieldCodec of(CompiledField field, ValueCodec codec) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntCodec(field);
+        } else if (type == long.class) {
+            return new LongCodec(field);
+        } else if (type == double.class) {
+            return new DoubleCodec(field);
+        } else if (type == float.class) {
+            return new FloatCodec(field);
+        } else if (type == boolean.class) {
+            return new BooleanCodec(field);
+        } else if (type == byte.class) {
+            return new ByteCodec(field);
+        } else if (type == short.class) {
+            return new ShortCodec(field);
+        } else if (type == char.class) {
+            return new CharCodec(field);
+        }
+        return new ReferenceCodec(field, codec);
+    }
+
+    abstract void write(Object target, BinaryOutput out) throws ReflectionException, SerializationException;
+
+    abstract void read(Object target, BinaryInput in) throws ReflectionException, SerializationException;
+
+    abstract void describe(StringBuilder schema, Set<Class<?>> visited);
+
+    private static final class IntCodec extends FieldCodec {
+
+        IntCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeZigZagInt(field.getInt(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setInt(target, in.readZigZagInt());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('I');
+        }
+    }
+
+    private static final class LongCodec extends FieldCodec {
+
+        LongCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeZigZagLong(field.getLong(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setLong(target, in.readZigZagLong());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('J');
+        }
+    }
+
+    private static final class DoubleCodec extends FieldCodec {
+
+        DoubleCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeDouble(field.getDouble(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setDouble(target, in.readDouble());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('D');
+        }
+    }
+
+    private static final class FloatCodec extends FieldCodec {
+
+        FloatCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeFloat(field.getFloat(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setFloat(target, in.readFloat());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('F');
+        }
+    }
+
+    private static final class BooleanCodec extends FieldCodec {
+
+        BooleanCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeBoolean(field.getBoolean(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setBoolean(target, in.readBoolean());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('Z');
+        }
+    }
+
+    private static final class ByteCodec extends FieldCodec {
+
+        ByteCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeByte(field.getByte(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setByte(target, (byte) in.readByte());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('B');
+        }
+    }
+
+    private static final class ShortCodec extends FieldCodec {
+
+        ShortCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeZigZagInt(field.getShort(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setShort(target, (short) in.readZigZagInt());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('S');
+        }
+    }
+
+    private static final class CharCodec extends FieldCodec {
+
+        CharCodec(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException {
+            out.writeVarInt(field.getChar(target));
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.setChar(target, (char) in.readVarInt());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('C');
+        }
+    }
+
+    private static final class ReferenceCodec extends FieldCodec {
+
+        private final ValueCodec codec;
+
+        ReferenceCodec(CompiledField field, ValueCodec codec) {
+            super(field);
+            this.codec = codec;
+        }
+
+        @Override
+        void write(Object target, BinaryOutput out) throws ReflectionException, SerializationException {
+            codec.write(field.get(target), out);
+        }
+
+        @Override
+        void read(Object target, BinaryInput in) throws ReflectionException, SerializationException {
+            field.set(target, codec.read(in));
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            codec.describe(schema, visited);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.SerializationException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.metadata.FieldMetadata;
+import org.cultro.helix.util.UnsafeAccess;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The encoding of the objects of a class: its non-transient instance fields in the order of
+ * {@link ClassMetadata#getFieldLayout()}, superclass fields first, each written without a name or tag. Schemas
+ * are cached per class. The field codecs are built on first use, when the codecs of the field types can be looked
+ * up without recursing into the schema of this class.
+ * <p>
+ * Objects are created through the no-argument constructor of the class if it has one, so that field
+ * initializers run, or else allocated without running a constructor.
+ * </p>
+ */
+final class Schema {
+
+    private static final Unsafe UNSAFE = UnsafeAccess.get();
+
+    private static final ClassValue<Schema> SCHEMAS = new ClassValue<Schema>() {
+        @Override
+        protected Schema computeValue(Class<?> type) {
+            return new Schema(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final CompiledConstructor<?> constructor;
+    private volatile FieldCodec[] codecs;
+
+    private Schema(Class<?> type) {
+        this.type = type;
+        CompiledConstructor<?> compiled = null;
+        try {
+            compiled = ConstructorInvoker.compile(type);
+        } catch (ReflectionException e) {
+            // Instances are allocated instead.
+        }
+        this.constructor = compiled;
+    }
+
+    static Schema of(Class<?> type) {
+        return SCHEMAS.get(type);
+    }
+
+    private FieldCodec[] codecs() throws SerializationException {
+        FieldCodec[] result = codecs;
+        if (result == null) {
+            List<FieldCodec> list = new ArrayList<>();
+            try {
+                for (FieldMetadata metadata : ClassMetadata.getCachedMetadata(type).getFieldLayout()) {
+                    Field field = metadata.getField();
+                    if (Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
+                        continue;
+                    }
+                    CompiledField compiled = FieldLayout.of(field.getDeclaringClass()).getDeclaredField(field.getName());
+                    ValueCodec codec = field.getType().isPrimitive() ? null : ValueCodecs.forType(field.getGenericType());
+                    list.add(FieldCodec.of(compiled, codec));
+                }
+            } catch (ReflectionException | MetadataException | IllegalStateException e) {
+                throw new SerializationException("Cannot create the schema of " + type.getName() + ": " + e.getMessage(), e);
+            }
+            codecs = result = list.toArray(new FieldCodec[0]);
+        }
+        return result;
+    }
+
+    void writeFields(Object value, BinaryOutput out) throws SerializationException {
+        try {
+            for (FieldCodec codec : codecs()) {
+                codec.write(value, out);
+            }
+        } catch (ReflectionException e) {
+            throw new SerializationException("Failed to serialize " + type.getName(), e);
+        }
+    }
+
+    Object readObject(BinaryInput in) throws SerializationException {
+        Object value = newInstance();
+        try {
+            for (FieldCodec codec : codecs()) {
+                codec.read(value, in);
+            }
+        } catch (ReflectionException e) {
+            throw new SerializationException("Failed to deserialize " + type.getName(), e);
+        }
+        return value;
+    }
+
+    private Object newInstance() throws SerializationException {
+        try {
+            if (constructor != null) {
+                return constructor.newInstance();
+            } else if (UNSAFE != null) {
+                return UNSAFE.allocateInstance(type);
+            }
+        } catch (ReflectionException | InstantiationException e) {
+            throw new SerializationException("Failed to instantiate " + type.getName(), e);
+        }
+        throw new SerializationException("Cannot instantiate " + type.getName() + " since it has no no-argument constructor");
+    }
+
+    void describe(StringBuilder schema, Set<Class<?>> visited) {
+        schema.append(type.getName());
+        if (!visited.add(type)) {
+            return;
+        }
+        FieldCodec[] fields;
+        try {
+            fields = codecs();
+        } catch (SerializationException e) {
+            schema.append('!');
+            return;
+        }
+        schema.append('{');
+        for (FieldCodec codec : fields) {
+            schema.append(codec.field.getName()).append(':');
+            codec.describe(schema, visited);
+            schema.append(';');
+        }
+        schema.append('}');
+    }
+}
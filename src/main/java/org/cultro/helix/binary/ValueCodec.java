@@ -0,0 +1,23 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.SerializationException;
+
+import java.util.Set;
+
+/**
+ * Writes and reads values of one declared type, including null.
+ */
+abstract class ValueCodec {
+
+    abstract void write(Object value, BinaryOutput out) throws SerializationException;
+
+    abstract Object read(BinaryInput in) throws SerializationException;
+
+    /**
+     * Appends a description of the encoding to a schema description, which the schema fingerprint is a hash of.
+     *
+     * @param schema  The description so far.
+     * @param visited The classes whose fields are already described, so recursive schemas end.
+     */
+    abstract void describe(StringBuilder schema, Set<Class<?>> visited);
+}
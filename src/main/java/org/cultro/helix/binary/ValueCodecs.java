@@ -0,0 +1,787 @@
+package org.cultro.helix.binary;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.SerializationException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.util.TypeUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Creates the {@link ValueCodec} of a declared type.
+ * <p>
+ * Supported are primitives and their wrappers, strings, big numbers, enums (by ordinal), arrays, collections and
+ * maps with concrete element types, and classes with a {@link Schema}. Values are encoded for their declared type
+ * only: a field of type {@code Shape} holds exactly a {@code Shape}, not a subclass of it. Types that cannot be
+ * encoded get a codec that fails when used, so that unused fields of such types do not prevent serialization.
+ * </p>
+ */
+final class ValueCodecs {
+
+    private static final ClassValue<ValueCodec> CLASS_CODECS = new ClassValue<ValueCodec>() {
+        @Override
+        protected ValueCodec computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private ValueCodecs() {
+    }
+
+    static ValueCodec forType(Type type) {
+        if (type instanceof Class) {
+            return CLASS_CODECS.get((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+                return mapCodec(raw, forType(elementType(arguments[0])), forType(elementType(arguments[1])));
+            } else if (Collection.class.isAssignableFrom(raw) && arguments.length == 1) {
+                return collectionCodec(raw, forType(elementType(arguments[0])));
+            }
+            return forType(raw);
+        } else if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Class<?> raw = component instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) component).getRawType() : Object.class;
+            return new ObjectArrayCodec(raw, forType(component));
+        }
+        return new UnsupportedCodec(type.getTypeName(), "its type is not concrete");
+    }
+
+    private static Type elementType(Type type) {
+        if (type instanceof WildcardType) {
+            return ((WildcardType) type).getUpperBounds()[0];
+        }
+        return type;
+    }
+
+    private static ValueCodec create(Class<?> type) {
+        if (type.isPrimitive()) {
+            return type == void.class ? new UnsupportedCodec("void", "it has no values") : create(TypeUtils.toWrapper(type));
+        } else if (type == String.class) {
+            return StringCodec.INSTANCE;
+        } else if (type == Integer.class) {
+            return new IntegerCodec();
+        } else if (type == Long.class) {
+            return new LongCodec();
+        } else if (type == Double.class) {
+            return new DoubleCodec();
+        } else if (type == Float.class) {
+            return new FloatCodec();
+        } else if (type == Boolean.class) {
+            return new BooleanCodec();
+        } else if (type == Short.class) {
+            return new ShortCodec();
+        } else if (type == Byte.class) {
+            return new ByteCodec();
+        } else if (type == Character.class) {
+            return new CharacterCodec();
+        } else if (type == BigInteger.class) {
+            return new BigIntegerCodec();
+        } else if (type == BigDecimal.class) {
+            return new BigDecimalCodec();
+        } else if (type.isEnum()) {
+            return new EnumCodec(type);
+        } else if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            return component.isPrimitive() ? new PrimitiveArrayCodec(component) : new ObjectArrayCodec(component, forType(component));
+        } else if (Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)) {
+            return new UnsupportedCodec(type.getName(), "its element types are not declared");
+        } else if (isJdkClass(type) || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return new UnsupportedCodec(type.getName(), "it is not a concrete application class");
+        }
+        return new ObjectCodec(type);
+    }
+
+    private static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    private static ValueCodec collectionCodec(Class<?> raw, ValueCodec elements) {
+        Supplier<Collection<Object>> factory;
+        if (raw == List.class || raw == Collection.class || raw == ArrayList.class) {
+            factory = ArrayList::new;
+        } else if (raw == Set.class || raw == LinkedHashSet.class) {
+            factory = LinkedHashSet::new;
+        } else if (raw == SortedSet.class || raw == NavigableSet.class || raw == TreeSet.class) {
+            factory = TreeSet::new;
+        } else if (raw == Queue.class || raw == Deque.class || raw == ArrayDeque.class) {
+            factory = ArrayDeque::new;
+        } else {
+            Supplier<Collection<Object>> constructed = constructed(raw);
+            if (constructed == null) {
+                return new UnsupportedCodec(raw.getName(), "it has no no-argument constructor");
+            }
+            factory = constructed;
+        }
+        return new CollectionCodec(raw, factory, elements);
+    }
+
+    private static ValueCodec mapCodec(Class<?> raw, ValueCodec keys, ValueCodec values) {
+        Supplier<Map<Object, Object>> factory;
+        if (raw == Map.class || raw == LinkedHashMap.class) {
+            factory = LinkedHashMap::new;
+        } else if (raw == SortedMap.class || raw == NavigableMap.class || raw == TreeMap.class) {
+            factory = TreeMap::new;
+        } else {
+            Supplier<Map<Object, Object>> constructed = constructed(raw);
+            if (constructed == null) {
+                return new UnsupportedCodec(raw.getName(), "it has no no-argument constructor");
+            }
+            factory = constructed;
+        }
+        return new MapCodec(raw, factory, keys, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C> Supplier<C> constructed(Class<?> raw) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            return null;
+        }
+        try {
+            CompiledConstructor<?> constructor = ConstructorInvoker.compile(raw);
+            return () -> {
+                try {
+                    return (C) constructor.newInstance();
+                } catch (ReflectionException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            };
+        } catch (ReflectionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a presence byte for values of reference types.
+     *
+     * @return Whether the value is present and must be written.
+     */
+    static boolean writePresence(Object value, BinaryOutput out) {
+        out.writeBoolean(value != null);
+        return value != null;
+    }
+
+    static final class StringCodec extends ValueCodec {
+
+        static final StringCodec INSTANCE = new StringCodec();
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            out.writeString((String) value);
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readString();
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("String");
+        }
+    }
+
+    private static final class IntegerCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeZigZagInt((Integer) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? in.readZigZagInt() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Integer");
+        }
+    }
+
+    private static final class LongCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeZigZagLong((Long) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? in.readZigZagLong() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Long");
+        }
+    }
+
+    private static final class DoubleCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeDouble((Double) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? in.readDouble() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Double");
+        }
+    }
+
+    private static final class FloatCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeFloat((Float) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? in.readFloat() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Float");
+        }
+    }
+
+    /**
+     * Encodes a boolean in a single byte: 0 for null, 1 for false and 2 for true.
+     */
+    private static final class BooleanCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            out.writeByte(value == null ? 0 : (Boolean) value ? 2 : 1);
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int b = in.readByte();
+            return b == 0 ? null : b == 2;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Boolean");
+        }
+    }
+
+    private static final class ShortCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeZigZagInt((Short) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? (short) in.readZigZagInt() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Short");
+        }
+    }
+
+    private static final class ByteCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeByte((Byte) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? (byte) in.readByte() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Byte");
+        }
+    }
+
+    private static final class CharacterCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (writePresence(value, out)) {
+                out.writeVarInt((Character) value);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? (char) in.readVarInt() : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("Character");
+        }
+    }
+
+    private static final class BigIntegerCodec extends ValueCodec {
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            out.writeVarInt(bytes.length + 1);
+            out.writeBytes(bytes);
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int length = in.readLength(1);
+            if (length < 0) {
+                return null;
+            } else if (length == 0) {
+                throw new SerializationException("Invalid big integer at offset " + in.position());
+            }
+            return new BigInteger(in.readBytes(length));
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("BigInteger");
+        }
+    }
+
+    private static final class BigDecimalCodec extends ValueCodec {
+
+        private final BigIntegerCodec unscaled = new BigIntegerCodec();
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            BigDecimal decimal = (BigDecimal) value;
+            unscaled.write(decimal.unscaledValue(), out);
+            out.writeZigZagInt(decimal.scale());
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            BigInteger value = (BigInteger) unscaled.read(in);
+            return value == null ? null : new BigDecimal(value, in.readZigZagInt());
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append("BigDecimal");
+        }
+    }
+
+    /**
+     * Encodes a constant as its ordinal plus one, with 0 for null.
+     */
+    private static final class EnumCodec extends ValueCodec {
+
+        private final Class<?> type;
+        private final Object[] constants;
+
+        EnumCodec(Class<?> type) {
+            this.type = type;
+            this.constants = type.getEnumConstants();
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            out.writeVarInt(value == null ? 0 : ((Enum<?>) value).ordinal() + 1);
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int ordinal = in.readVarInt() - 1;
+            if (ordinal < 0) {
+                return null;
+            } else if (ordinal >= constants.length) {
+                throw new SerializationException("Invalid ordinal " + ordinal + " of " + type.getName());
+            }
+            return constants[ordinal];
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append(type.getName()).append('[');
+            for (Object constant : constants) {
+                schema.append(((Enum<?>) constant).name()).append(',');
+            }
+            schema.append(']');
+        }
+    }
+
+    /**
+     * Encodes a primitive array as its length plus one, with 0 for null, followed by the elements encoded like
+     * primitive fields.
+     */
+    private static final class PrimitiveArrayCodec extends ValueCodec {
+
+        private final Class<?> component;
+
+        PrimitiveArrayCodec(Class<?> component) {
+            this.component = component;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            int length = Array.getLength(value);
+            out.writeVarInt(length + 1);
+            if (component == byte.class) {
+                out.writeBytes((byte[]) value);
+            } else if (component == int.class) {
+                for (int element : (int[]) value) {
+                    out.writeZigZagInt(element);
+                }
+            } else if (component == long.class) {
+                for (long element : (long[]) value) {
+                    out.writeZigZagLong(element);
+                }
+            } else if (component == double.class) {
+                for (double element : (double[]) value) {
+                    out.writeDouble(element);
+                }
+            } else if (component == float.class) {
+                for (float element : (float[]) value) {
+                    out.writeFloat(element);
+                }
+            } else if (component == boolean.class) {
+                for (boolean element : (boolean[]) value) {
+                    out.writeBoolean(element);
+                }
+            } else if (component == short.class) {
+                for (short element : (short[]) value) {
+                    out.writeZigZagInt(element);
+                }
+            } else {
+                for (char element : (char[]) value) {
+                    out.writeVarInt(element);
+                }
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int length = in.readLength(1);
+            if (length < 0) {
+                return null;
+            }
+            if (component == byte.class) {
+                return in.readBytes(length);
+            } else if (component == int.class) {
+                int[] array = new int[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.readZigZagInt();
+                }
+                return array;
+            } else if (component == long.class) {
+                long[] array = new long[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.readZigZagLong();
+                }
+                return array;
+            } else if (component == double.class) {
+                double[] array = new double[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.readDouble();
+                }
+                return array;
+            } else if (component == float.class) {
+                float[] array = new float[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.readFloat();
+                }
+                return array;
+            } else if (component == boolean.class) {
+                boolean[] array = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = in.readBoolean();
+                }
+                return array;
+            } else if (component == short.class) {
+                short[] array = new short[length];
+                for (int i = 0; i < length; i++) {
+                    array[i] = (short) in.readZigZagInt();
+                }
+                return array;
+            }
+            char[] array = new char[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = (char) in.readVarInt();
+            }
+            return array;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append(component.getName()).append("[]");
+        }
+    }
+
+    private static final class ObjectArrayCodec extends ValueCodec {
+
+        private final Class<?> component;
+        private final ValueCodec elements;
+
+        ObjectArrayCodec(Class<?> component, ValueCodec elements) {
+            this.component = component;
+            this.elements = elements;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) throws SerializationException {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            Object[] array = (Object[]) value;
+            out.writeVarInt(array.length + 1);
+            for (Object element : array) {
+                elements.write(element, out);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int length = in.readLength(1);
+            if (length < 0) {
+                return null;
+            }
+            Object[] array = (Object[]) Array.newInstance(component, length);
+            for (int i = 0; i < length; i++) {
+                array[i] = elements.read(in);
+            }
+            return array;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            elements.describe(schema, visited);
+            schema.append("[]");
+        }
+    }
+
+    private static final class CollectionCodec extends ValueCodec {
+
+        private final Class<?> type;
+        private final Supplier<Collection<Object>> factory;
+        private final ValueCodec elements;
+
+        CollectionCodec(Class<?> type, Supplier<Collection<Object>> factory, ValueCodec elements) {
+            this.type = type;
+            this.factory = factory;
+            this.elements = elements;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) throws SerializationException {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            Collection<?> collection = (Collection<?>) value;
+            out.writeVarInt(collection.size() + 1);
+            for (Object element : collection) {
+                elements.write(element, out);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int size = in.readLength(1);
+            if (size < 0) {
+                return null;
+            }
+            Collection<Object> collection = create(factory, type);
+            for (int i = 0; i < size; i++) {
+                collection.add(elements.read(in));
+            }
+            return collection;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append(type.getName()).append('<');
+            elements.describe(schema, visited);
+            schema.append('>');
+        }
+    }
+
+    private static final class MapCodec extends ValueCodec {
+
+        private final Class<?> type;
+        private final Supplier<Map<Object, Object>> factory;
+        private final ValueCodec keys;
+        private final ValueCodec values;
+
+        MapCodec(Class<?> type, Supplier<Map<Object, Object>> factory, ValueCodec keys, ValueCodec values) {
+            this.type = type;
+            this.factory = factory;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) throws SerializationException {
+            if (value == null) {
+                out.writeVarInt(0);
+                return;
+            }
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeVarInt(map.size() + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                keys.write(entry.getKey(), out);
+                values.write(entry.getValue(), out);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            int size = in.readLength(2);
+            if (size < 0) {
+                return null;
+            }
+            Map<Object, Object> map = create(factory, type);
+            for (int i = 0; i < size; i++) {
+                map.put(keys.read(in), values.read(in));
+            }
+            return map;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append(type.getName()).append('<');
+            keys.describe(schema, visited);
+            schema.append(',');
+            values.describe(schema, visited);
+            schema.append('>');
+        }
+    }
+
+    private static <C> C create(Supplier<C> factory, Class<?> type) throws SerializationException {
+        try {
+            return factory.get();
+        } catch (IllegalStateException e) {
+            throw new SerializationException("Failed to instantiate " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Encodes an object of a class with a {@link Schema} as a presence byte followed by its fields.
+     */
+    private static final class ObjectCodec extends ValueCodec {
+
+        private final Class<?> type;
+
+        ObjectCodec(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) throws SerializationException {
+            if (writePresence(value, out)) {
+                if (value.getClass() != type) {
+                    throw new SerializationException("Cannot serialize " + value.getClass().getName() + " as "
+                            + type.getName() + ": values must be of their declared class");
+                }
+                Schema.of(type).writeFields(value, out);
+            }
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            return in.readBoolean() ? Schema.of(type).readObject(in) : null;
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            Schema.of(type).describe(schema, visited);
+        }
+    }
+
+    private static final class UnsupportedCodec extends ValueCodec {
+
+        private final String type;
+        private final String reason;
+
+        UnsupportedCodec(String type, String reason) {
+            this.type = type;
+            this.reason = reason;
+        }
+
+        @Override
+        void write(Object value, BinaryOutput out) throws SerializationException {
+            throw new SerializationException("Cannot serialize " + type + " since " + reason);
+        }
+
+        @Override
+        Object read(BinaryInput in) throws SerializationException {
+            throw new SerializationException("Cannot deserialize " + type + " since " + reason);
+        }
+
+        @Override
+        void describe(StringBuilder schema, Set<Class<?>> visited) {
+            schema.append('!').append(type);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public abstract class AbstractCache<K, V> implements Cache<K, V> {
-    protected final int capacity;
+    protected volatile int capacity;
     protected final Lock lock = new ReentrantLock();
 
     public AbstractCache(int capacity) {
@@ -14,6 +14,43 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         this.capacity = capacity;
     }
 
+    /**
+     * Returns the maximum number of entries the cache can hold.
+     *
+     * @return The capacity of the cache.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Changes the maximum number of entries the cache can hold, evicting entries according to the
+     * eviction policy until the cache fits the new capacity.
+     *
+     * @param capacity The new capacity.
+     * @throws IllegalStateException If the eviction policy fails to evict an entry while the cache is over capacity.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be greater than zero.");
+        }
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            int size = size();
+            while (size > capacity) {
+                evictIfNeeded();
+                int newSize = size();
+                if (newSize == size) {
+                    throw new IllegalStateException("Eviction made no progress at " + size + " entries; the eviction policy lost track of its entries");
+                }
+                size = newSize;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Evicts an entry based on the specific eviction policy.
      */
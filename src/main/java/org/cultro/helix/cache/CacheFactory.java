@@ -73,4 +73,17 @@ public class CacheFactory {
                 throw new IllegalArgumentException("Unsupported Eviction Policy: " + policy);
         }
     }
+
+    /**
+     * Creates an LRU cache backed by a single open-addressing table, which avoids allocating an object
+     * per entry. Prefer it over {@link EvictionPolicy#LRU} for caches with very many entries.
+     *
+     * @param capacity The maximum number of entries the cache can hold.
+     * @param <K>      The type of keys.
+     * @param <V>      The type of values.
+     * @return An instance of CompactLRUCache.
+     */
+    public static <K, V> Cache<K, V> createCompactCache(int capacity) {
+        return new CompactLRUCache<>(capacity);
+    }
 }
@@ -0,0 +1,286 @@
+package org.cultro.helix.cache;
+
+import java.util.Arrays;
+
+/**
+ * An LRU cache stored in a single open-addressing table instead of a hash map of linked nodes.
+ * <p>
+ * Keys, values and their hashes live in parallel arrays indexed by table slot and collisions are resolved by
+ * linear probing. The recency order is a doubly linked list whose links are slot indexes held in two more
+ * {@code int} arrays. Removals use backward-shift deletion, so no tombstones accumulate and every entry costs
+ * its key and value references plus three ints, without any per-entry object allocation.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class CompactLRUCache<K, V> extends AbstractCache<K, V> {
+
+    private static final Object NULL_KEY = new Object();
+    private static final int NONE = -1;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int[] prev;
+    private int[] next;
+    private int mask;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    public CompactLRUCache(int capacity) {
+        super(capacity);
+        allocate(tableSizeFor(capacity));
+    }
+
+    @Override
+    public V get(K key) {
+        lock.lock();
+        try {
+            int slot = find(key);
+            if (slot == NONE) {
+                return null;
+            }
+            moveToFront(slot);
+            return valueAt(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            int slot = find(key);
+            if (slot != NONE) {
+                values[slot] = value;
+                moveToFront(slot);
+                return;
+            }
+            if (size >= capacity) {
+                evictIfNeeded();
+            }
+            insertEntry(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        lock.lock();
+        try {
+            super.setCapacity(capacity);
+            int tableSize = tableSizeFor(capacity);
+            if (tableSize != keys.length) {
+                rehash(tableSize);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void evictIfNeeded() {
+        if (tail != NONE) {
+            delete(tail);
+        }
+    }
+
+    @Override
+    protected void updateValue(K key, V value) {
+        int slot = find(key);
+        if (slot != NONE) {
+            values[slot] = value;
+            moveToFront(slot);
+        }
+    }
+
+    @Override
+    protected void insertEntry(K key, V value) {
+        Object masked = maskNull(key);
+        int hash = hash(masked);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = masked;
+        values[slot] = value;
+        hashes[slot] = hash;
+        linkFirst(slot);
+        size++;
+    }
+
+    @Override
+    protected void removeEntry(K key) {
+        int slot = find(key);
+        if (slot != NONE) {
+            delete(slot);
+        }
+    }
+
+    @Override
+    protected void clearEntries() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        head = tail = NONE;
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            return find(key) != NONE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int find(Object key) {
+        Object masked = maskNull(key);
+        int hash = hash(masked);
+        int slot = hash & mask;
+        Object current;
+        while ((current = keys[slot]) != null) {
+            if (hashes[slot] == hash && (current == masked || current.equals(masked))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void delete(int slot) {
+        unlink(slot);
+        size--;
+        int hole = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            if (keys[current] == null) {
+                break;
+            }
+            int ideal = hashes[current] & mask;
+            if (((current - ideal) & mask) >= ((current - hole) & mask)) {
+                move(current, hole);
+                hole = current;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        hashes[to] = hashes[from];
+        int before = prev[from];
+        int after = next[from];
+        prev[to] = before;
+        next[to] = after;
+        if (before != NONE) {
+            next[before] = to;
+        } else {
+            head = to;
+        }
+        if (after != NONE) {
+            prev[after] = to;
+        } else {
+            tail = to;
+        }
+    }
+
+    private void moveToFront(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkFirst(slot);
+        }
+    }
+
+    private void linkFirst(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        } else {
+            tail = slot;
+        }
+        head = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int tableSize) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldPrev = prev;
+        int oldTail = tail;
+        allocate(tableSize);
+        head = tail = NONE;
+        size = 0;
+        for (int slot = oldTail; slot != NONE; slot = oldPrev[slot]) {
+            Object key = oldKeys[slot];
+            insertEntry(key == NULL_KEY ? null : (K) key, (V) oldValues[slot]);
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        prev = new int[tableSize];
+        next = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        long required = (long) Math.ceil(capacity / (double) LOAD_FACTOR) + 1;
+        long tableSize = Long.highestOneBit(required - 1) << 1;
+        if (tableSize > 1 << 30) {
+            throw new IllegalArgumentException("Cache capacity " + capacity + " is too large for a compact cache.");
+        }
+        return (int) Math.max(2, tableSize);
+    }
+}
@@ -55,6 +55,7 @@ public class LFUCache<K, V> extends AbstractCache<K, V> {
             keys.remove(evictKey);
             if (keys.isEmpty()) {
                 frequencyBuckets.remove(minFrequency);
+                minFrequency = findNextMinFrequency();
             }
             cacheMap.remove(evictKey);
             frequencyMap.remove(evictKey);
@@ -0,0 +1,120 @@
+package org.cultro.helix.cache.adaptive;
+
+import org.cultro.helix.cache.AbstractCache;
+import org.cultro.helix.cache.Cache;
+import org.cultro.helix.cache.CacheFactory;
+import org.cultro.helix.lang.Validate;
+
+/**
+ * A cache whose capacity is adjusted at runtime within fixed bounds.
+ * <p>
+ * Every lookup is fed to a {@link HitRateCurveEstimator}, so the cache knows which hit rate it would achieve
+ * at any capacity between its bounds. A {@link CacheBudgetManager} uses these curves to move memory between
+ * the caches registered with it; the cache can also be resized directly with {@link #resize(int)}.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class AdaptiveCache<K, V> implements Cache<K, V> {
+
+    private final AbstractCache<K, V> delegate;
+    private final int minCapacity;
+    private final int maxCapacity;
+    private final long bytesPerEntry;
+    private final HitRateCurveEstimator estimator;
+
+    /**
+     * Creates an adaptive cache.
+     *
+     * @param policy          The eviction policy of the underlying cache.
+     * @param initialCapacity The capacity to start with.
+     * @param minCapacity     The smallest capacity the cache may shrink to.
+     * @param maxCapacity     The largest capacity the cache may grow to.
+     * @param bytesPerEntry   The estimated memory cost of one entry, used to convert budgets into capacities.
+     */
+    public AdaptiveCache(CacheFactory.EvictionPolicy policy, int initialCapacity, int minCapacity, int maxCapacity,
+                         long bytesPerEntry) {
+        Validate.notNull(policy, "The eviction policy cannot be null");
+        if (minCapacity <= 0 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("Capacity bounds must satisfy 0 < min <= max.");
+        }
+        if (bytesPerEntry <= 0) {
+            throw new IllegalArgumentException("Entry size must be greater than zero.");
+        }
+        this.delegate = (AbstractCache<K, V>) CacheFactory.<K, V>createCache(policy, clamp(initialCapacity, minCapacity, maxCapacity));
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.bytesPerEntry = bytesPerEntry;
+        this.estimator = new HitRateCurveEstimator(minCapacity, maxCapacity);
+    }
+
+    @Override
+    public V get(K key) {
+        estimator.record(key);
+        return delegate.get(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    /**
+     * Changes the capacity, clamped to the bounds of this cache. Shrinking evicts entries immediately.
+     *
+     * @param capacity The requested capacity.
+     * @return The capacity actually applied.
+     */
+    public int resize(int capacity) {
+        int applied = clamp(capacity, minCapacity, maxCapacity);
+        if (applied != delegate.getCapacity()) {
+            delegate.setCapacity(applied);
+        }
+        return applied;
+    }
+
+    public int getCapacity() {
+        return delegate.getCapacity();
+    }
+
+    public int getMinCapacity() {
+        return minCapacity;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public long getBytesPerEntry() {
+        return bytesPerEntry;
+    }
+
+    public HitRateCurveEstimator getEstimator() {
+        return estimator;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,157 @@
+package org.cultro.helix.cache.adaptive;
+
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.util.ThreadUtils;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributes a global memory budget across {@link AdaptiveCache} instances to maximize the total number of hits.
+ * <p>
+ * Each cache first receives its minimum capacity. The rest of the budget is handed out in small steps, each
+ * going to the cache whose hit-rate curve promises the most additional hits per byte, weighted by how often the
+ * cache was accessed. Looking a few steps ahead lets a cache win memory even when its curve is flat right above
+ * its current size but rises further up.
+ * </p>
+ */
+public class CacheBudgetManager implements Closeable {
+
+    private static final int STEPS = 256;
+    private static final int LOOKAHEAD = 8;
+
+    private final long budgetBytes;
+    private final List<AdaptiveCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a budget manager.
+     *
+     * @param budgetBytes The total memory all registered caches may use together.
+     */
+    public CacheBudgetManager(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Budget must be greater than zero.");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Adds a cache to the set whose capacities are managed.
+     *
+     * @param cache The cache to manage.
+     */
+    public void register(AdaptiveCache<?, ?> cache) {
+        Validate.notNull(cache, "Cannot register a null cache");
+        caches.add(cache);
+    }
+
+    public void unregister(AdaptiveCache<?, ?> cache) {
+        caches.remove(cache);
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Recomputes the capacity of every registered cache from its current hit-rate curve and applies it.
+     * Budget that no curve has a use for lets caches keep their current capacity.
+     * Counters of all curves decay afterwards so the next rebalance favours recent accesses.
+     */
+    public synchronized void rebalance() {
+        AdaptiveCache<?, ?>[] managed = caches.toArray(new AdaptiveCache<?, ?>[0]);
+        if (managed.length == 0) {
+            return;
+        }
+        long[] allocation = new long[managed.length];
+        long remaining = budgetBytes;
+        for (int i = 0; i < managed.length; i++) {
+            allocation[i] = managed[i].getMinCapacity();
+            remaining -= allocation[i] * managed[i].getBytesPerEntry();
+        }
+        long step = Math.max(1, budgetBytes / STEPS);
+        while (remaining > 0) {
+            int best = -1;
+            int bestEntries = 0;
+            double bestGain = 0;
+            for (int i = 0; i < managed.length; i++) {
+                AdaptiveCache<?, ?> cache = managed[i];
+                long stepEntries = Math.max(1, step / cache.getBytesPerEntry());
+                HitRateCurveEstimator estimator = cache.getEstimator();
+                double base = estimator.hitRate((int) allocation[i]);
+                for (int k = 1; k <= LOOKAHEAD; k++) {
+                    long entries = Math.min(stepEntries * k, cache.getMaxCapacity() - allocation[i]);
+                    if (entries <= 0 || entries * cache.getBytesPerEntry() > remaining) {
+                        break;
+                    }
+                    double hits = (estimator.hitRate((int) (allocation[i] + entries)) - base) * estimator.getAccessCount();
+                    double gain = hits / (entries * cache.getBytesPerEntry());
+                    if (gain > bestGain) {
+                        best = i;
+                        bestEntries = (int) entries;
+                        bestGain = gain;
+                    }
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            allocation[best] += bestEntries;
+            remaining -= bestEntries * managed[best].getBytesPerEntry();
+        }
+        for (int i = 0; i < managed.length && remaining > 0; i++) {
+            long keep = Math.min(managed[i].getCapacity() - allocation[i], remaining / managed[i].getBytesPerEntry());
+            if (keep > 0) {
+                allocation[i] += keep;
+                remaining -= keep * managed[i].getBytesPerEntry();
+            }
+        }
+        for (int i = 0; i < managed.length; i++) {
+            if (allocation[i] < managed[i].getCapacity()) {
+                managed[i].resize((int) allocation[i]);
+            }
+        }
+        for (int i = 0; i < managed.length; i++) {
+            if (allocation[i] > managed[i].getCapacity()) {
+                managed[i].resize((int) allocation[i]);
+            }
+            managed[i].getEstimator().decay();
+        }
+    }
+
+    /**
+     * Starts rebalancing periodically on a background daemon thread.
+     *
+     * @param periodMillis The time between two rebalances.
+     */
+    public synchronized void start(long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Period must be greater than zero.");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("The budget manager is already running");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(ThreadUtils.namedThreadFactory("helix-cache-budget", true));
+        scheduler.scheduleWithFixedDelay(this::rebalance, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodic rebalancing. Capacities keep their last values.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            ThreadUtils.shutdownAndAwaitTermination(running, 5, TimeUnit.SECONDS);
+        }
+    }
+}
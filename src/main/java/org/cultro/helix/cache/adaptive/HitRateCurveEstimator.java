@@ -0,0 +1,209 @@
+package org.cultro.helix.cache.adaptive;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estimates online how the hit rate of an LRU cache depends on its capacity.
+ * <p>
+ * A fixed fraction of the key space is selected by hashing, and every access to a selected key is replayed
+ * against a set of shadow LRU caches, one per candidate capacity, each scaled down by the sampling rate. The
+ * shadows only store key hashes, so tracking a curve for capacities up to millions of entries costs a few
+ * thousand small entries. Counters decay on request so the curve follows changing workloads.
+ * </p>
+ */
+public class HitRateCurveEstimator {
+
+    private static final int HASH_BITS = 24;
+    private static final int HASH_RANGE = 1 << HASH_BITS;
+    private static final int DEFAULT_SHADOW_ENTRIES = 2048;
+
+    private final int[] sizes;
+    private final int threshold;
+    private final double samplingRate;
+    private final ShadowCache[] shadows;
+    private final long[] hits;
+    private final LongAdder accesses = new LongAdder();
+    private final Lock lock = new ReentrantLock();
+    private long sampledAccesses;
+
+    /**
+     * Creates an estimator with eight capacities spread geometrically between the bounds, sampling so that
+     * the largest shadow holds about 2048 key hashes.
+     *
+     * @param minCapacity The smallest capacity of interest.
+     * @param maxCapacity The largest capacity of interest.
+     */
+    public HitRateCurveEstimator(int minCapacity, int maxCapacity) {
+        this(geometricSizes(minCapacity, maxCapacity, 8), Math.min(1.0, (double) DEFAULT_SHADOW_ENTRIES / maxCapacity));
+    }
+
+    /**
+     * Creates an estimator.
+     *
+     * @param sizes        The capacities to track, in any order.
+     * @param samplingRate The fraction of keys replayed against the shadows, in (0, 1].
+     */
+    public HitRateCurveEstimator(int[] sizes, double samplingRate) {
+        if (sizes == null || sizes.length == 0) {
+            throw new IllegalArgumentException("At least one capacity must be tracked.");
+        }
+        if (!(samplingRate > 0 && samplingRate <= 1)) {
+            throw new IllegalArgumentException("Sampling rate must be in (0, 1].");
+        }
+        this.sizes = sizes.clone();
+        Arrays.sort(this.sizes);
+        if (this.sizes[0] <= 0) {
+            throw new IllegalArgumentException("Tracked capacities must be greater than zero.");
+        }
+        this.samplingRate = samplingRate;
+        this.threshold = (int) Math.max(1, Math.round(samplingRate * HASH_RANGE));
+        this.shadows = new ShadowCache[this.sizes.length];
+        for (int i = 0; i < shadows.length; i++) {
+            shadows[i] = new ShadowCache((int) Math.max(1, Math.round(this.sizes[i] * samplingRate)));
+        }
+        this.hits = new long[this.sizes.length];
+    }
+
+    /**
+     * Records an access to the given key.
+     *
+     * @param key The accessed key.
+     */
+    public void record(Object key) {
+        accesses.increment();
+        int hash = mix(key == null ? 0 : key.hashCode());
+        if ((hash & (HASH_RANGE - 1)) >= threshold) {
+            return;
+        }
+        lock.lock();
+        try {
+            sampledAccesses++;
+            for (int i = 0; i < shadows.length; i++) {
+                if (shadows[i].access(hash)) {
+                    hits[i]++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimates the hit rate of a cache with the given capacity, interpolating linearly between the tracked
+     * capacities and towards zero below the smallest one.
+     *
+     * @param capacity The capacity to estimate the hit rate for.
+     * @return The estimated hit rate in [0, 1], or 0 when no samples were recorded yet.
+     */
+    public double hitRate(int capacity) {
+        lock.lock();
+        try {
+            if (sampledAccesses == 0 || capacity <= 0) {
+                return 0;
+            }
+            if (capacity >= sizes[sizes.length - 1]) {
+                return ratio(sizes.length - 1);
+            }
+            int lowerSize = 0;
+            double lowerRate = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                if (capacity <= sizes[i]) {
+                    double upperRate = ratio(i);
+                    double fraction = (double) (capacity - lowerSize) / (sizes[i] - lowerSize);
+                    return lowerRate + fraction * (upperRate - lowerRate);
+                }
+                lowerSize = sizes[i];
+                lowerRate = ratio(i);
+            }
+            return lowerRate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of accesses recorded since the last {@link #decay()}.
+     *
+     * @return The number of accesses.
+     */
+    public long getAccessCount() {
+        return accesses.sum();
+    }
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * Halves all counters so that older accesses weigh less than newer ones. Shadow contents are kept.
+     */
+    public void decay() {
+        lock.lock();
+        try {
+            sampledAccesses >>= 1;
+            for (int i = 0; i < hits.length; i++) {
+                hits[i] >>= 1;
+            }
+            long total = accesses.sumThenReset();
+            accesses.add(total >> 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double ratio(int index) {
+        return Math.min(1.0, (double) hits[index] / sampledAccesses);
+    }
+
+    static int[] geometricSizes(int min, int max, int count) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Capacity bounds must satisfy 0 < min <= max.");
+        }
+        if (min == max) {
+            return new int[]{min};
+        }
+        int[] sizes = new int[count];
+        double factor = Math.pow((double) max / min, 1.0 / (count - 1));
+        double size = min;
+        for (int i = 0; i < count; i++) {
+            sizes[i] = (int) Math.min(max, Math.round(size));
+            size *= factor;
+        }
+        sizes[count - 1] = max;
+        return Arrays.stream(sizes).distinct().toArray();
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static final class ShadowCache extends LinkedHashMap<Integer, Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private ShadowCache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        private boolean access(int hash) {
+            return put(hash, Boolean.TRUE) != null;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.cultro.helix.cache.invalidation;
+
+import org.cultro.helix.cache.Cache;
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.util.ThreadUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Propagates cache key invalidations between instances that hold local copies of shared data.
+ * <p>
+ * Caches are registered under a name that is shared by all instances. {@link #invalidate(String, Object)}
+ * drops the key locally and queues it for publication; queued keys are deduplicated per cache and published
+ * in batches once {@code maxBatchSize} keys are pending or after at most {@code maxDelayMillis}. Instances that
+ * receive a batch drop the keys from their cache with the same name. When the transport reports lost messages,
+ * every registered cache is cleared, so no instance keeps serving an entry it missed an invalidation for.
+ * </p>
+ */
+public class InvalidationBus implements Closeable {
+
+    private final long sourceId = UUID.randomUUID().getMostSignificantBits();
+    private final InvalidationTransport transport;
+    private final int maxBatchSize;
+    private final Map<String, Registration<?>> registrations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Lock pendingLock = new ReentrantLock();
+    private final Lock publishLock = new ReentrantLock();
+    private final AtomicBoolean publishRequested = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong receivedKeys = new AtomicLong();
+    private Map<String, Set<String>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+    private volatile Exception lastFailure;
+
+    /**
+     * Creates a bus that publishes batches of up to 256 keys with at most 50 ms delay.
+     *
+     * @param transport The transport connecting the instances.
+     */
+    public InvalidationBus(InvalidationTransport transport) {
+        this(transport, 256, 50);
+    }
+
+    /**
+     * Creates a bus.
+     *
+     * @param transport      The transport connecting the instances. It is not closed by {@link #close()}.
+     * @param maxBatchSize   The number of pending keys that triggers an immediate publication.
+     * @param maxDelayMillis The maximum time an invalidation waits before being published.
+     */
+    public InvalidationBus(InvalidationTransport transport, int maxBatchSize, long maxDelayMillis) {
+        Validate.notNull(transport, "The transport cannot be null");
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero.");
+        }
+        if (maxDelayMillis <= 0) {
+            throw new IllegalArgumentException("Maximum delay must be greater than zero.");
+        }
+        this.transport = transport;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadUtils.namedThreadFactory("helix-invalidation", true));
+        this.scheduler.scheduleWithFixedDelay(this::publishQuietly, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+        transport.subscribe(new TransportListener());
+    }
+
+    /**
+     * Registers a cache so that invalidations published by other instances are applied to it.
+     *
+     * @param cacheName The name shared by all instances for this cache.
+     * @param cache     The local cache.
+     * @param codec     Converts keys to and from their transmitted form.
+     * @param <K>       The type of keys.
+     */
+    public <K> void register(String cacheName, Cache<K, ?> cache, KeyCodec<K> codec) {
+        Validate.notNull(cacheName, "The cache name cannot be null");
+        Validate.notNull(cache, "The cache cannot be null");
+        Validate.notNull(codec, "The key codec cannot be null");
+        if (registrations.putIfAbsent(cacheName, new Registration<>(cache, codec)) != null) {
+            throw new IllegalArgumentException("A cache named " + cacheName + " is already registered");
+        }
+    }
+
+    /**
+     * Stops applying remote invalidations to the named cache.
+     *
+     * @param cacheName The name the cache was registered under.
+     */
+    public void unregister(String cacheName) {
+        registrations.remove(cacheName);
+    }
+
+    /**
+     * Removes the key from the local cache and queues its invalidation for the other instances.
+     *
+     * @param cacheName The name the cache was registered under.
+     * @param key       The key to invalidate.
+     * @param <K>       The type of keys.
+     * @throws IllegalArgumentException If no cache is registered under the name, or if the encoded key does not
+     *                                  fit into a message of the transport.
+     */
+    @SuppressWarnings("unchecked")
+    public <K> void invalidate(String cacheName, K key) {
+        Validate.notNull(key, "A null key cannot be invalidated");
+        if (closed.get()) {
+            throw new IllegalStateException("The invalidation bus has been closed");
+        }
+        Registration<K> registration = (Registration<K>) registrations.get(cacheName);
+        if (registration == null) {
+            throw new IllegalArgumentException("No cache named " + cacheName + " is registered");
+        }
+        String encoded = registration.codec.encode(key);
+        if (InvalidationMessage.encodedSize(cacheName, encoded) > transport.getMaxMessageSize()) {
+            throw new IllegalArgumentException("Key of cache " + cacheName + " is too large to be published");
+        }
+        registration.cache.remove(key);
+        boolean full;
+        pendingLock.lock();
+        try {
+            if (pending.computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).add(encoded)) {
+                pendingCount++;
+            }
+            full = pendingCount >= maxBatchSize;
+        } finally {
+            pendingLock.unlock();
+        }
+        if (full && publishRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::publishQuietly);
+            } catch (RuntimeException e) {
+                publishRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Publishes all queued invalidations on the calling thread.
+     *
+     * @throws IOException If the transport failed; the unpublished keys stay queued.
+     */
+    public void publish() throws IOException {
+        publishLock.lock();
+        try {
+            publishRequested.set(false);
+            Map<String, Set<String>> batch;
+            pendingLock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                pendingCount = 0;
+            } finally {
+                pendingLock.unlock();
+            }
+            List<String> published = new ArrayList<>();
+            try {
+                for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+                    for (byte[] message : InvalidationMessage.encode(sourceId, entry.getKey(), entry.getValue(),
+                            transport.getMaxMessageSize())) {
+                        transport.publish(message);
+                        publishedMessages.incrementAndGet();
+                    }
+                    published.add(entry.getKey());
+                }
+            } catch (IOException | RuntimeException e) {
+                requeue(batch, published);
+                throw e;
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    public long getPublishedMessageCount() {
+        return publishedMessages.get();
+    }
+
+    public long getReceivedKeyCount() {
+        return receivedKeys.get();
+    }
+
+    /**
+     * Returns the exception of the most recent failed background publication.
+     *
+     * @return The last failure, or null if none occurred.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Publishes the remaining invalidations and stops the background publisher. The transport is left open.
+     *
+     * @throws IOException If the final publication failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        ThreadUtils.shutdownAndAwaitTermination(scheduler, 5, TimeUnit.SECONDS);
+        publish();
+        registrations.clear();
+    }
+
+    private void requeue(Map<String, Set<String>> batch, List<String> published) {
+        pendingLock.lock();
+        try {
+            for (Map.Entry<String, Set<String>> entry : batch.entrySet()) {
+                if (published.contains(entry.getKey())) {
+                    continue;
+                }
+                Set<String> keys = pending.computeIfAbsent(entry.getKey(), name -> new LinkedHashSet<>());
+                for (String key : entry.getValue()) {
+                    if (keys.add(key)) {
+                        pendingCount++;
+                    }
+                }
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (IOException | RuntimeException e) {
+            lastFailure = e;
+        }
+    }
+
+    private static final class Registration<K> {
+        private final Cache<K, ?> cache;
+        private final KeyCodec<K> codec;
+
+        private Registration(Cache<K, ?> cache, KeyCodec<K> codec) {
+            this.cache = cache;
+            this.codec = codec;
+        }
+
+        private void drop(List<String> keys) {
+            for (String key : keys) {
+                cache.remove(codec.decode(key));
+            }
+        }
+    }
+
+    private final class TransportListener implements InvalidationTransport.Listener {
+
+        @Override
+        public void onMessage(byte[] message) {
+            InvalidationMessage decoded = InvalidationMessage.decode(message);
+            if (decoded.getSourceId() == sourceId) {
+                return;
+            }
+            Registration<?> registration = registrations.get(decoded.getCacheName());
+            if (registration != null) {
+                registration.drop(decoded.getKeys());
+                receivedKeys.addAndGet(decoded.getKeys().size());
+            }
+        }
+
+        @Override
+        public void onMessagesLost() {
+            for (Registration<?> registration : registrations.values()) {
+                registration.cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.cultro.helix.cache.invalidation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of invalidated keys of one cache, published by one {@link InvalidationBus}.
+ * <p>
+ * The wire format is {@code [long sourceId][int nameLength][name][int keyCount]} followed by
+ * {@code [int keyLength][key]} for every key, with strings encoded as UTF-8.
+ * </p>
+ */
+public final class InvalidationMessage {
+
+    private static final int HEADER_SIZE = 8 + 4 + 4;
+
+    private final long sourceId;
+    private final String cacheName;
+    private final List<String> keys;
+
+    public InvalidationMessage(long sourceId, String cacheName, List<String> keys) {
+        this.sourceId = sourceId;
+        this.cacheName = cacheName;
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    public long getSourceId() {
+        return sourceId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the size of a message holding a single key, which must not exceed the maximum message size of the
+     * transport for the key to be publishable.
+     *
+     * @param cacheName The name of the cache the key belongs to.
+     * @param key       The encoded key.
+     * @return The size of the message in bytes.
+     */
+    public static int encodedSize(String cacheName, String key) {
+        return HEADER_SIZE + utf8Length(cacheName) + 4 + utf8Length(key);
+    }
+
+    /**
+     * Encodes the given keys into as few messages as possible without exceeding the size limit.
+     *
+     * @param sourceId       The id of the publishing bus.
+     * @param cacheName      The name of the cache the keys belong to.
+     * @param keys           The keys to encode.
+     * @param maxMessageSize The maximum size of a single encoded message.
+     * @return The encoded messages.
+     * @throws IllegalArgumentException If a single key does not fit into a message.
+     */
+    public static List<byte[]> encode(long sourceId, String cacheName, Collection<String> keys, int maxMessageSize) {
+        byte[] name = cacheName.getBytes(StandardCharsets.UTF_8);
+        int baseSize = HEADER_SIZE + name.length;
+        List<byte[]> messages = new ArrayList<>();
+        List<byte[]> chunk = new ArrayList<>();
+        int chunkSize = baseSize;
+        for (String key : keys) {
+            byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+            int entrySize = 4 + encoded.length;
+            if (baseSize + entrySize > maxMessageSize) {
+                throw new IllegalArgumentException("Key of cache " + cacheName + " is too large to be published");
+            }
+            if (chunkSize + entrySize > maxMessageSize) {
+                messages.add(write(sourceId, name, chunk, chunkSize));
+                chunk = new ArrayList<>();
+                chunkSize = baseSize;
+            }
+            chunk.add(encoded);
+            chunkSize += entrySize;
+        }
+        if (!chunk.isEmpty()) {
+            messages.add(write(sourceId, name, chunk, chunkSize));
+        }
+        return messages;
+    }
+
+    /**
+     * Decodes a message produced by {@link #encode(long, String, Collection, int)}.
+     *
+     * @param message The encoded message.
+     * @return The decoded message.
+     * @throws IllegalArgumentException If the message is malformed.
+     */
+    public static InvalidationMessage decode(byte[] message) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(message);
+            long sourceId = buffer.getLong();
+            String cacheName = readString(buffer);
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative key count in invalidation message");
+            }
+            List<String> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(readString(buffer));
+            }
+            return new InvalidationMessage(sourceId, cacheName, keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed invalidation message", e);
+        }
+    }
+
+    private static byte[] write(long sourceId, byte[] name, List<byte[]> keys, int size) {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(sourceId);
+        buffer.putInt(name.length).put(name);
+        buffer.putInt(keys.size());
+        for (byte[] key : keys) {
+            buffer.putInt(key.length).put(key);
+        }
+        return buffer.array();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationMessage{" +
+                "sourceId=" + sourceId +
+                ", cacheName='" + cacheName + '\'' +
+                ", keys=" + keys +
+                '}';
+    }
+
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++; // unpaired surrogates are encoded as '?'
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,53 @@
+package org.cultro.helix.cache.invalidation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Carries encoded invalidation messages between {@link InvalidationBus} instances.
+ * A transport delivers every published message to every subscriber, including the publisher's own bus.
+ */
+public interface InvalidationTransport extends Closeable {
+
+    /**
+     * Publishes an encoded message to all subscribers.
+     *
+     * @param message The encoded message, no longer than {@link #getMaxMessageSize()}.
+     * @throws IOException If the message could not be published.
+     */
+    void publish(byte[] message) throws IOException;
+
+    /**
+     * Registers a listener that receives every message published after this call.
+     *
+     * @param listener The listener to register.
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Returns the largest message this transport can carry.
+     *
+     * @return The maximum message size in bytes.
+     */
+    int getMaxMessageSize();
+
+    /**
+     * Receives messages from a transport.
+     */
+    interface Listener {
+
+        /**
+         * Called for every message delivered by the transport.
+         *
+         * @param message The encoded message.
+         */
+        void onMessage(byte[] message);
+
+        /**
+         * Called when the transport detected that messages were dropped before they could be delivered,
+         * for example because a reader fell behind a bounded ring.
+         */
+        default void onMessagesLost() {
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.cultro.helix.cache.invalidation;
+
+/**
+ * Converts cache keys to and from the string form sent over an {@link InvalidationTransport}.
+ *
+ * @param <K> The type of keys.
+ */
+public interface KeyCodec<K> {
+
+    /**
+     * Encodes a key for transmission.
+     *
+     * @param key The key to encode.
+     * @return The string form of the key.
+     */
+    String encode(K key);
+
+    /**
+     * Decodes a key received from another instance.
+     *
+     * @param encoded The string form of the key.
+     * @return The key.
+     */
+    K decode(String encoded);
+
+    /**
+     * Returns a codec for caches keyed by strings.
+     *
+     * @return The identity codec.
+     */
+    static KeyCodec<String> strings() {
+        return new KeyCodec<String>() {
+            @Override
+            public String encode(String key) {
+                return key;
+            }
+
+            @Override
+            public String decode(String encoded) {
+                return encoded;
+            }
+        };
+    }
+}
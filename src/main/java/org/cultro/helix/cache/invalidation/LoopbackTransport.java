@@ -0,0 +1,65 @@
+package org.cultro.helix.cache.invalidation;
+
+import org.cultro.helix.lang.Validate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process {@link InvalidationTransport} that hands every message to every subscriber on the publishing
+ * thread, ignoring exceptions thrown by them. Share one instance between several {@link InvalidationBus}
+ * instances to connect them, for example in tests.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final int maxMessageSize;
+    private volatile boolean closed;
+
+    public LoopbackTransport() {
+        this(64 * 1024);
+    }
+
+    public LoopbackTransport(int maxMessageSize) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("Maximum message size must be greater than zero.");
+        }
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    @Override
+    public void publish(byte[] message) {
+        Validate.notNull(message, "Cannot publish a null message");
+        if (closed) {
+            throw new IllegalStateException("The transport has been closed");
+        }
+        if (message.length > maxMessageSize) {
+            throw new IllegalArgumentException("Message of " + message.length + " bytes exceeds the maximum of " + maxMessageSize);
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onMessage(message);
+            } catch (RuntimeException ignored) {
+                // A failing listener must not stop delivery to the others or fail the publication, which would
+                // make the bus republish the message to the listeners that already received it
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        Validate.notNull(listener, "Cannot subscribe a null listener");
+        listeners.add(listener);
+    }
+
+    @Override
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        listeners.clear();
+    }
+}
@@ -0,0 +1,262 @@
+package org.cultro.helix.cache.invalidation;
+
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.util.ThreadUtils;
+import org.cultro.helix.util.UnsafeAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@link InvalidationTransport} for processes on the same host, backed by a ring of fixed-size slots in a
+ * memory-mapped file.
+ * <p>
+ * Publishers take an exclusive lock on the file header, write the message into the next slot and then advance
+ * the shared write sequence. Every transport polls the sequence and reads the slots it has not seen yet. Each
+ * slot is stamped with its sequence number and the stamp is re-checked after copying, so a reader that falls
+ * more than one ring behind, or races with a writer reusing the slot, detects the loss and reports it through
+ * {@link Listener#onMessagesLost()} instead of delivering a torn message.
+ * </p>
+ *
+ * <p>
+ * File layout: a 64 byte header holding {@code [int magic][int version][int slotCount][int slotSize]
+ * [long writeSequence]}, followed by {@code slotCount} slots of {@code [long stamp][int length][payload]}.
+ * </p>
+ */
+public class MappedRingTransport implements InvalidationTransport {
+
+    private static final int MAGIC = 0x48584952;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SEQUENCE_OFFSET = 16;
+    private static final int SLOT_HEADER_SIZE = 12;
+    private static final ConcurrentMap<String, Lock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Lock processLock;
+    private final int slotCount;
+    private final int slotSize;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller;
+    private long readSequence;
+    private volatile boolean closed;
+
+    /**
+     * Opens or creates a ring with 4096 slots of 4 KiB, polled every 5 ms.
+     *
+     * @param file The shared ring file.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public MappedRingTransport(File file) throws IOException {
+        this(file, 4096, 4096, 5);
+    }
+
+    /**
+     * Opens or creates a ring. When the file already exists its own slot geometry is used.
+     *
+     * @param file               The shared ring file.
+     * @param slotCount          The number of slots of a newly created ring.
+     * @param slotSize           The size in bytes of every slot of a newly created ring, including its 12 byte header.
+     * @param pollIntervalMillis How often the ring is polled; this bounds the delivery delay.
+     * @throws IOException If the file cannot be opened, mapped or is not a ring file.
+     */
+    public MappedRingTransport(File file, int slotCount, int slotSize, long pollIntervalMillis) throws IOException {
+        Validate.notNull(file, "The ring file cannot be null");
+        if (slotCount <= 0 || slotSize <= SLOT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Ring needs at least one slot larger than " + SLOT_HEADER_SIZE + " bytes.");
+        }
+        if (pollIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Poll interval must be greater than zero.");
+        }
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(file.getCanonicalPath(), path -> new ReentrantLock());
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = initializeHeader(slotCount, slotSize);
+            this.slotCount = header.getInt(8);
+            this.slotSize = header.getInt(12);
+            long size = HEADER_SIZE + (long) this.slotCount * this.slotSize;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Ring file " + file + " is too large to be mapped");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.readSequence = buffer.getLong(SEQUENCE_OFFSET);
+        this.poller = Executors.newSingleThreadScheduledExecutor(ThreadUtils.namedThreadFactory("helix-ring-poller", true));
+        this.poller.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(byte[] message) throws IOException {
+        Validate.notNull(message, "Cannot publish a null message");
+        if (closed) {
+            throw new IllegalStateException("The transport has been closed");
+        }
+        if (message.length > getMaxMessageSize()) {
+            throw new IllegalArgumentException("Message of " + message.length + " bytes exceeds the maximum of " + getMaxMessageSize());
+        }
+        processLock.lock();
+        FileLock fileLock = null;
+        try {
+            fileLock = channel.lock(0, HEADER_SIZE, false);
+            long sequence = buffer.getLong(SEQUENCE_OFFSET);
+            int offset = slotOffset(sequence);
+            buffer.putLong(offset, -1L);
+            UnsafeAccess.storeFence(); // the slot is marked invalid before its payload changes
+            buffer.putInt(offset + 8, message.length);
+            ByteBuffer slot = buffer.duplicate();
+            slot.position(offset + SLOT_HEADER_SIZE);
+            slot.put(message);
+            UnsafeAccess.storeFence(); // the payload is complete before the slot is stamped
+            buffer.putLong(offset, sequence);
+            UnsafeAccess.storeFence(); // the slot is stamped before readers see the new sequence
+            buffer.putLong(SEQUENCE_OFFSET, sequence + 1);
+        } finally {
+            try {
+                release(fileLock);
+            } finally {
+                processLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        Validate.notNull(listener, "Cannot subscribe a null listener");
+        listeners.add(listener);
+    }
+
+    @Override
+    public int getMaxMessageSize() {
+        return slotSize - SLOT_HEADER_SIZE;
+    }
+
+    /**
+     * Stops polling and releases the file. The mapping itself is released once it is garbage collected.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ThreadUtils.shutdownAndAwaitTermination(poller, 5, TimeUnit.SECONDS);
+        listeners.clear();
+        channel.close();
+    }
+
+    private ByteBuffer initializeHeader(int slotCount, int slotSize) throws IOException {
+        processLock.lock();
+        FileLock fileLock = null;
+        try {
+            fileLock = channel.lock(0, HEADER_SIZE, false);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.size() >= HEADER_SIZE) {
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("File is not an invalidation ring");
+                }
+                return header;
+            }
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, slotCount).putInt(12, slotSize).putLong(SEQUENCE_OFFSET, 0L);
+            channel.write(header, 0);
+            channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) slotCount * slotSize - 1);
+            return header;
+        } finally {
+            try {
+                release(fileLock);
+            } finally {
+                processLock.unlock();
+            }
+        }
+    }
+
+    private static void release(FileLock fileLock) throws IOException {
+        if (fileLock != null) {
+            fileLock.release();
+        }
+    }
+
+    private void poll() {
+        if (closed) {
+            return;
+        }
+        long written = buffer.getLong(SEQUENCE_OFFSET);
+        UnsafeAccess.loadFence(); // the slots are read after the sequence that covers them
+        boolean lost = false;
+        if (written - readSequence > slotCount) {
+            readSequence = written - slotCount;
+            lost = true;
+        }
+        while (readSequence < written) {
+            byte[] message = read(readSequence);
+            readSequence++;
+            if (message == null) {
+                lost = true;
+            } else {
+                deliver(message);
+            }
+        }
+        if (lost) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.onMessagesLost();
+                } catch (RuntimeException ignored) {
+                    // A failing listener must not stop the others from clearing their caches or kill the poller
+                }
+            }
+        }
+    }
+
+    private byte[] read(long sequence) {
+        int offset = slotOffset(sequence);
+        if (buffer.getLong(offset) != sequence) {
+            return null;
+        }
+        UnsafeAccess.loadFence(); // the payload is read after the stamp that validates it
+        int length = buffer.getInt(offset + 8);
+        if (length < 0 || length > getMaxMessageSize()) {
+            return null;
+        }
+        byte[] message = new byte[length];
+        ByteBuffer slot = buffer.duplicate();
+        slot.position(offset + SLOT_HEADER_SIZE);
+        slot.get(message);
+        UnsafeAccess.loadFence(); // the stamp is re-checked after the payload was read
+        return buffer.getLong(offset) == sequence ? message : null;
+    }
+
+    private void deliver(byte[] message) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onMessage(message);
+            } catch (RuntimeException ignored) {
+                // A failing listener must not stop delivery to the others or kill the poller
+            }
+        }
+    }
+
+    private int slotOffset(long sequence) {
+        return HEADER_SIZE + (int) (sequence % slotCount) * slotSize;
+    }
+}
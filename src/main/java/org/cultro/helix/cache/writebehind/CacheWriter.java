@@ -0,0 +1,30 @@
+package org.cultro.helix.cache.writebehind;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A backing store that a {@link WriteBehindCache} flushes its dirty entries to.
+ * Implementations are handed whole batches so they can issue a single bulk request per call.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public interface CacheWriter<K, V> {
+
+    /**
+     * Inserts or replaces every entry of the batch in the backing store.
+     *
+     * @param entries The entries to write. Each key appears at most once.
+     * @throws Exception If the batch could not be written; the whole batch will be retried.
+     */
+    void writeAll(Map<K, V> entries) throws Exception;
+
+    /**
+     * Deletes every key of the batch from the backing store.
+     *
+     * @param keys The keys to delete. Each key appears at most once.
+     * @throws Exception If the batch could not be deleted; the whole batch will be retried.
+     */
+    void deleteAll(Collection<K> keys) throws Exception;
+}
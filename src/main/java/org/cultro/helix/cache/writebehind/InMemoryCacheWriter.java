@@ -0,0 +1,70 @@
+package org.cultro.helix.cache.writebehind;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link CacheWriter} that stores flushed entries in a map, standing in for a real backing store in tests.
+ * It records how many bulk calls it received and can be told to fail a number of upcoming calls.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class InMemoryCacheWriter<K, V> implements CacheWriter<K, V> {
+
+    private final Map<K, V> store = new ConcurrentHashMap<>();
+    private final AtomicInteger writeCalls = new AtomicInteger();
+    private final AtomicInteger deleteCalls = new AtomicInteger();
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+    @Override
+    public void writeAll(Map<K, V> entries) throws Exception {
+        failIfRequested();
+        writeCalls.incrementAndGet();
+        store.putAll(entries);
+    }
+
+    @Override
+    public void deleteAll(Collection<K> keys) throws Exception {
+        failIfRequested();
+        deleteCalls.incrementAndGet();
+        for (K key : keys) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * Makes the next calls to this writer throw instead of writing.
+     *
+     * @param calls The number of calls that should fail.
+     */
+    public void failNext(int calls) {
+        failuresRemaining.set(calls);
+    }
+
+    /**
+     * Returns a read-only view of everything written so far.
+     *
+     * @return The stored entries.
+     */
+    public Map<K, V> getStore() {
+        return Collections.unmodifiableMap(store);
+    }
+
+    public int getWriteCalls() {
+        return writeCalls.get();
+    }
+
+    public int getDeleteCalls() {
+        return deleteCalls.get();
+    }
+
+    private void failIfRequested() throws Exception {
+        if (failuresRemaining.getAndUpdate(remaining -> remaining > 0 ? remaining - 1 : 0) > 0) {
+            throw new Exception("Simulated backing store failure");
+        }
+    }
+}
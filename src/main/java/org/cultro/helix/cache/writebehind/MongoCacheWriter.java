@@ -0,0 +1,90 @@
+package org.cultro.helix.cache.writebehind;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.cultro.helix.lang.Validate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A {@link CacheWriter} that flushes batches to a MongoDB collection with a single unordered bulk write.
+ * Every cache key is stored as the document {@code _id}; writes are upserting replacements.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class MongoCacheWriter<K, V> implements CacheWriter<K, V> {
+
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoCollection<Document> collection;
+    private final Function<? super K, ?> idMapper;
+    private final Function<? super V, Document> documentMapper;
+
+    /**
+     * Creates a writer that uses the cache keys as document ids.
+     *
+     * @param collection     The collection to write to.
+     * @param documentMapper Converts a cache value into the document to store.
+     */
+    public MongoCacheWriter(MongoCollection<Document> collection, Function<? super V, Document> documentMapper) {
+        this(collection, Function.identity(), documentMapper);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param collection     The collection to write to.
+     * @param idMapper       Converts a cache key into a BSON-encodable document id.
+     * @param documentMapper Converts a cache value into the document to store.
+     */
+    public MongoCacheWriter(MongoCollection<Document> collection, Function<? super K, ?> idMapper,
+                            Function<? super V, Document> documentMapper) {
+        Validate.notNull(collection, "The collection cannot be null");
+        Validate.notNull(idMapper, "The id mapper cannot be null");
+        Validate.notNull(documentMapper, "The document mapper cannot be null");
+        this.collection = collection;
+        this.idMapper = idMapper;
+        this.documentMapper = documentMapper;
+    }
+
+    @Override
+    public void writeAll(Map<K, V> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(entries.size());
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            Object id = idMapper.apply(entry.getKey());
+            Document document = new Document(documentMapper.apply(entry.getValue()));
+            document.put("_id", id);
+            models.add(new ReplaceOneModel<>(Filters.eq("_id", id), document, UPSERT));
+        }
+        collection.bulkWrite(models, UNORDERED);
+    }
+
+    @Override
+    public void deleteAll(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object> ids = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            ids.add(idMapper.apply(key));
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(1);
+        models.add(new DeleteManyModel<>(Filters.in("_id", ids)));
+        collection.bulkWrite(models, UNORDERED);
+    }
+}
@@ -0,0 +1,345 @@
+package org.cultro.helix.cache.writebehind;
+
+import org.cultro.helix.cache.Cache;
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.util.ThreadUtils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache decorator that writes changes to a backing store asynchronously.
+ * <p>
+ * {@link #put(Object, Object)} and {@link #remove(Object)} update the wrapped cache and return immediately.
+ * The change is recorded in a dirty set where later writes to the same key replace earlier ones, so only
+ * the latest state of a key is ever sent to the {@link CacheWriter}. Dirty entries are flushed in batches
+ * once {@code maxBatchSize} keys are pending or every {@code flushIntervalMillis}, whichever comes first.
+ * Failed batches are retried with exponential backoff and, if they still fail, are requeued unless a newer
+ * write for the same key arrived in the meantime.
+ * </p>
+ *
+ * <p>
+ * {@link #clear()} only drops local entries; pending writes are still flushed. {@link #close()} stops the
+ * background flusher and performs a final synchronous flush.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class WriteBehindCache<K, V> implements Cache<K, V>, Closeable {
+
+    private static final Object TOMBSTONE = new Object();
+
+    private final Cache<K, V> delegate;
+    private final CacheWriter<K, V> writer;
+    private final int maxBatchSize;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Lock dirtyLock = new ReentrantLock();
+    private final Lock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private Map<K, Object> dirty = new LinkedHashMap<>();
+    private volatile Exception lastFailure;
+
+    /**
+     * Creates a write-behind cache that flushes batches of up to 500 entries at least once a second,
+     * retrying failed batches three times starting with a 100 ms backoff.
+     *
+     * @param delegate The cache that serves reads and holds the local copy of every entry.
+     * @param writer   The backing store to flush to.
+     */
+    public WriteBehindCache(Cache<K, V> delegate, CacheWriter<K, V> writer) {
+        this(delegate, writer, 500, 1000, 3, 100);
+    }
+
+    /**
+     * Creates a write-behind cache.
+     *
+     * @param delegate             The cache that serves reads and holds the local copy of every entry.
+     * @param writer               The backing store to flush to.
+     * @param maxBatchSize         The maximum number of entries handed to the writer at once; reaching it
+     *                             also triggers an early flush.
+     * @param flushIntervalMillis  The maximum time a dirty entry waits before being flushed.
+     * @param maxRetries           The number of retries of a failed batch before it is requeued.
+     * @param initialBackoffMillis The delay before the first retry, doubled on every further retry.
+     */
+    public WriteBehindCache(Cache<K, V> delegate, CacheWriter<K, V> writer, int maxBatchSize,
+                            long flushIntervalMillis, int maxRetries, long initialBackoffMillis) {
+        Validate.notNull(delegate, "The delegate cache cannot be null");
+        Validate.notNull(writer, "The cache writer cannot be null");
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero.");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be greater than zero.");
+        }
+        if (maxRetries < 0 || initialBackoffMillis < 0) {
+            throw new IllegalArgumentException("Retry count and backoff cannot be negative.");
+        }
+        this.delegate = delegate;
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                ThreadUtils.namedThreadFactory("helix-write-behind", true));
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public V get(K key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Validate.notNull(key, "A null key cannot be written behind");
+        ensureOpen();
+        delegate.put(key, value);
+        markDirty(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        Validate.notNull(key, "A null key cannot be written behind");
+        ensureOpen();
+        delegate.remove(key);
+        markDirty(key, TOMBSTONE);
+    }
+
+    /**
+     * Clears the local entries only. Writes that are still pending are flushed as usual.
+     */
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    /**
+     * Returns the number of keys whose latest state has not been flushed yet.
+     *
+     * @return The number of dirty keys.
+     */
+    public int getPendingCount() {
+        dirtyLock.lock();
+        try {
+            return dirty.size();
+        } finally {
+            dirtyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of entries successfully handed to the writer.
+     *
+     * @return The number of flushed entries.
+     */
+    public long getFlushedCount() {
+        return flushedEntries.get();
+    }
+
+    /**
+     * Returns the number of batches that were requeued after exhausting their retries.
+     *
+     * @return The number of failed batches.
+     */
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    /**
+     * Returns the exception of the most recent batch that exhausted its retries.
+     *
+     * @return The last failure, or null if no batch has failed.
+     */
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Flushes every dirty entry on the calling thread.
+     *
+     * @return True if every batch was written, false if at least one was requeued.
+     */
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<K, Object> batch;
+            dirtyLock.lock();
+            try {
+                if (dirty.isEmpty()) {
+                    return true;
+                }
+                batch = dirty;
+                dirty = new LinkedHashMap<>();
+            } finally {
+                dirtyLock.unlock();
+            }
+            return writeBatches(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background flusher and flushes all remaining dirty entries.
+     * Entries that still cannot be written are kept and reported through {@link #getPendingCount()}.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        ThreadUtils.shutdownAndAwaitTermination(scheduler, 30, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void markDirty(K key, Object value) {
+        int pending;
+        dirtyLock.lock();
+        try {
+            dirty.put(key, value);
+            pending = dirty.size();
+        } finally {
+            dirtyLock.unlock();
+        }
+        if (pending >= maxBatchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean writeBatches(Map<K, Object> batch) {
+        boolean success = true;
+        Map<K, V> upserts = new LinkedHashMap<>();
+        List<K> deletes = new ArrayList<>();
+        for (Map.Entry<K, Object> entry : batch.entrySet()) {
+            if (entry.getValue() == TOMBSTONE) {
+                deletes.add(entry.getKey());
+                if (deletes.size() == maxBatchSize) {
+                    success &= writeDeletes(deletes);
+                    deletes = new ArrayList<>();
+                }
+            } else {
+                upserts.put(entry.getKey(), (V) entry.getValue());
+                if (upserts.size() == maxBatchSize) {
+                    success &= writeUpserts(upserts);
+                    upserts = new LinkedHashMap<>();
+                }
+            }
+        }
+        if (!upserts.isEmpty()) {
+            success &= writeUpserts(upserts);
+        }
+        if (!deletes.isEmpty()) {
+            success &= writeDeletes(deletes);
+        }
+        return success;
+    }
+
+    private boolean writeUpserts(Map<K, V> upserts) {
+        Exception failure = retry(() -> writer.writeAll(upserts));
+        if (failure == null) {
+            flushedEntries.addAndGet(upserts.size());
+            return true;
+        }
+        dirtyLock.lock();
+        try {
+            for (Map.Entry<K, V> entry : upserts.entrySet()) {
+                dirty.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            dirtyLock.unlock();
+        }
+        recordFailure(failure);
+        return false;
+    }
+
+    private boolean writeDeletes(List<K> deletes) {
+        Exception failure = retry(() -> writer.deleteAll(deletes));
+        if (failure == null) {
+            flushedEntries.addAndGet(deletes.size());
+            return true;
+        }
+        dirtyLock.lock();
+        try {
+            for (K key : deletes) {
+                dirty.putIfAbsent(key, TOMBSTONE);
+            }
+        } finally {
+            dirtyLock.unlock();
+        }
+        recordFailure(failure);
+        return false;
+    }
+
+    private Exception retry(WriteOperation operation) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                operation.run();
+                return null;
+            } catch (Exception e) {
+                if (attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+                    return e;
+                }
+                ThreadUtils.safeSleep(backoff);
+                backoff = Math.min(backoff * 2, TimeUnit.MINUTES.toMillis(1));
+            }
+        }
+    }
+
+    private void recordFailure(Exception failure) {
+        lastFailure = failure;
+        failedFlushes.incrementAndGet();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            recordFailure(e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("The write-behind cache has been closed");
+        }
+    }
+
+    private interface WriteOperation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,311 @@
+package org.cultro.helix.json;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+
+import java.io.IOException;
+
+/**
+ * A field of a class bound to its JSON property. Fields of primitive and string type read and write the stream
+ * directly through the typed accessors of {@link CompiledField}; all other fields go through the Gson adapter of
+ * their type.
+ */
+abstract class BoundField {
+
+    final String name;
+    final CompiledField field;
+
+    BoundField(String name, CompiledField field) {
+        this.name = name;
+        this.field = field;
+    }
+
+    abstract void write(JsonWriter out, Object source) throws IOException, ReflectionException;
+
+    abstract void read(JsonReader in, Object target) throws IOException, ReflectionException;
+
+    /**
+     * Consumes a JSON null for a primitive field, which keeps its current value as in Gson.
+     *
+     * @return Whether the next value was null.
+     */
+    static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    static JsonIOException accessFailure(ReflectionException e) {
+        return new JsonIOException(e.getMessage(), e);
+    }
+
+    static final class IntField extends BoundField {
+
+        private final long min;
+        private final long max;
+
+        /**
+         * @param min The smallest accepted value, as checked by Gson for the field type.
+         * @param max The largest accepted value, as checked by Gson for the field type.
+         */
+        IntField(String name, CompiledField field, long min, long max) {
+            super(name, field);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                out.value(field.getInt(source));
+            } else if (type == short.class) {
+                out.value(field.getShort(source));
+            } else {
+                out.value(field.getByte(source));
+            }
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            if (skipNull(in)) {
+                return;
+            }
+            int value;
+            try {
+                value = in.nextInt();
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            if (value < min || value > max) {
+                throw new JsonSyntaxException("Lossy conversion from " + value + " to " + field.getType().getName()
+                        + "; at path " + in.getPreviousPath());
+            }
+            Class<?> type = field.getType();
+            if (type == int.class) {
+                field.setInt(target, value);
+            } else if (type == short.class) {
+                field.setShort(target, (short) value);
+            } else {
+                field.setByte(target, (byte) value);
+            }
+        }
+    }
+
+    static final class LongField extends BoundField {
+
+        LongField(String name, CompiledField field) {
+            super(name, field);
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            out.value(field.getLong(source));
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            if (skipNull(in)) {
+                return;
+            }
+            try {
+                field.setLong(target, in.nextLong());
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    }
+
+    static final class DoubleField extends BoundField {
+
+        private final boolean specialValues;
+
+        DoubleField(String name, CompiledField field, boolean specialValues) {
+            super(name, field);
+            this.specialValues = specialValues;
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            double value = field.getDouble(source);
+            if (!specialValues && (Double.isNaN(value) || Double.isInfinite(value))) {
+                throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification. "
+                        + "To override this behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+            }
+            out.value(value);
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            if (!skipNull(in)) {
+                field.setDouble(target, in.nextDouble());
+            }
+        }
+    }
+
+    static final class FloatField extends BoundField {
+
+        private final boolean specialValues;
+
+        FloatField(String name, CompiledField field, boolean specialValues) {
+            super(name, field);
+            this.specialValues = specialValues;
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            float value = field.getFloat(source);
+            if (!specialValues && (Float.isNaN(value) || Float.isInfinite(value))) {
+                throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification. "
+                        + "To override this behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+            }
+            out.value(value);
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            if (!skipNull(in)) {
+                field.setFloat(target, (float) in.nextDouble());
+            }
+        }
+    }
+
+    static final class BooleanField extends BoundField {
+
+        BooleanField(String name, CompiledField field) {
+            super(name, field);
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            out.value(field.getBoolean(source));
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            JsonToken token = in.peek();
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+            } else if (token == JsonToken.STRING) {
+                field.setBoolean(target, Boolean.parseBoolean(in.nextString()));
+            } else {
+                field.setBoolean(target, in.nextBoolean());
+            }
+        }
+    }
+
+    static final class CharField extends BoundField {
+
+        CharField(String name, CompiledField field) {
+            super(name, field);
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            out.value(String.valueOf(field.getChar(source)));
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            if (skipNull(in)) {
+                return;
+            }
+            String value = in.nextString();
+            if (value.length() != 1) {
+                throw new JsonSyntaxException("Expecting character, got: " + value + "; at " + in.getPreviousPath());
+            }
+            field.setChar(target, value.charAt(0));
+        }
+    }
+
+    static final class StringField extends BoundField {
+
+        StringField(String name, CompiledField field) {
+            super(name, field);
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            out.value((String) field.get(source));
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            JsonToken token = in.peek();
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                field.set(target, null);
+            } else if (token == JsonToken.BOOLEAN) {
+                field.set(target, Boolean.toString(in.nextBoolean()));
+            } else {
+                field.set(target, in.nextString());
+            }
+        }
+    }
+
+    /**
+     * A field written and read by the Gson adapter of its declared type. When the declared type is a plain class
+     * and the value is of a subclass, the value is written with the adapter of its runtime class, following the
+     * same preference rules as Gson.
+     */
+    static final class AdapterField extends BoundField {
+
+        private final TypeAdapter<Object> adapter;
+        private final Class<?> declaredClass;
+        private final AdapterLookup runtimeAdapters;
+
+        AdapterField(String name, CompiledField field, TypeAdapter<Object> adapter, Class<?> declaredClass, AdapterLookup runtimeAdapters) {
+            super(name, field);
+            this.adapter = adapter;
+            this.declaredClass = declaredClass;
+            this.runtimeAdapters = runtimeAdapters;
+        }
+
+        @Override
+        void write(JsonWriter out, Object source) throws IOException, ReflectionException {
+            Object value = field.get(source);
+            TypeAdapter<Object> writer = adapter;
+            if (value != null && declaredClass != null && value.getClass() != declaredClass) {
+                TypeAdapter<Object> runtime = runtimeAdapters.get(value.getClass());
+                if (!isReflective(runtime) || isReflective(adapter)) {
+                    writer = runtime;
+                }
+            }
+            writer.write(out, value);
+        }
+
+        @Override
+        void read(JsonReader in, Object target) throws IOException, ReflectionException {
+            Object value = adapter.read(in);
+            if (value != null || !field.getType().isPrimitive()) {
+                field.set(target, value);
+            }
+        }
+    }
+
+    /**
+     * Whether the adapter serializes objects field by field, in which case an adapter registered for the declared
+     * type is preferred over it. Only {@link CompiledTypeAdapter} is recognized; Gson's own reflective adapter is an
+     * internal class and is treated like a registered adapter, so a runtime type that falls back to it wins over the
+     * declared type's adapter.
+     */
+    static boolean isReflective(TypeAdapter<?> adapter) {
+        return adapter instanceof CompiledTypeAdapter;
+    }
+
+    /**
+     * Looks up the adapter of a runtime class.
+     */
+    interface AdapterLookup {
+
+        TypeAdapter<Object> get(Class<?> type);
+    }
+}
@@ -0,0 +1,75 @@
+package org.cultro.helix.json;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Streams objects of one class as JSON objects through a fixed list of {@link BoundField}s.
+ *
+ * @param <T> The type of the objects.
+ */
+final class CompiledTypeAdapter<T> extends TypeAdapter<T> {
+
+    private final CompiledConstructor<T> constructor;
+    private final BoundField[] serializedFields;
+    private final Map<String, BoundField> deserializedFields;
+
+    CompiledTypeAdapter(CompiledConstructor<T> constructor, BoundField[] serializedFields,
+                        Map<String, BoundField> deserializedFields) {
+        this.constructor = constructor;
+        this.serializedFields = serializedFields;
+        this.deserializedFields = deserializedFields;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        try {
+            for (BoundField field : serializedFields) {
+                out.name(field.name);
+                field.write(out, value);
+            }
+        } catch (ReflectionException e) {
+            throw BoundField.accessFailure(e);
+        }
+        out.endObject();
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            T instance = constructor.newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                BoundField field = deserializedFields.get(in.nextName());
+                if (field == null) {
+                    in.skipValue();
+                } else {
+                    field.read(in, instance);
+                }
+            }
+            in.endObject();
+            return instance;
+        } catch (ReflectionException e) {
+            throw BoundField.accessFailure(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.cultro.helix.json;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.FieldNamingStrategy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.annotations.Since;
+import com.google.gson.annotations.Until;
+import com.google.gson.reflect.TypeToken;
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.metadata.FieldMetadata;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Gson {@link TypeAdapterFactory} for plain classes that replaces Gson's reflective adapter with one built from
+ * the cached {@link ClassMetadata} and {@link CompiledField} accessors of the class.
+ * <p>
+ * Adapters stream straight between the object and the {@code JsonReader}/{@code JsonWriter}. Primitive and
+ * string fields are read and written through typed accessors without boxing whenever Gson would use its built-in
+ * adapter for them; fields of any other type use the Gson adapter of their resolved generic type. Field names,
+ * {@link SerializedName} (including alternate names) and the field naming strategy are honoured like Gson does,
+ * and fields appear in the same order.
+ * </p>
+ * <p>
+ * Only public Gson API is used, so the exclusion settings of the {@code Gson} instance cannot be read. Like Gson
+ * by default, the factory skips transient, static and synthetic fields and fields of anonymous or local classes,
+ * and it applies the {@link ExclusionStrategy exclusion strategies} it is created with, which should be those
+ * given to the {@code GsonBuilder}. Other modifiers excluded through the builder are not detected.
+ * </p>
+ * <p>
+ * Classes without a no-argument constructor, abstract classes, interfaces, enums, JDK classes, non-static inner
+ * classes, classes using {@link JsonAdapter} and classes using {@link Expose}, {@link Since} or {@link Until},
+ * whose handling depends on the builder, are left to Gson.
+ * </p>
+ * <pre>{@code
+ * Gson gson = new GsonBuilder().registerTypeAdapterFactory(new CompiledTypeAdapterFactory()).create();
+ * }</pre>
+ */
+public final class CompiledTypeAdapterFactory implements TypeAdapterFactory {
+
+    /**
+     * The classes of the adapters Gson itself uses for primitives and strings, with and without special floating
+     * point values allowed. A field whose adapter is of another class has a custom adapter and is not inlined.
+     */
+    private static final Map<Class<?>, List<Class<?>>> BUILT_IN_ADAPTERS = new HashMap<>();
+    private static final Class<?> LENIENT_DOUBLE_ADAPTER;
+    private static final Class<?> LENIENT_FLOAT_ADAPTER;
+
+    static {
+        Gson strict = new Gson();
+        Gson lenient = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+        for (Class<?> type : new Class<?>[]{int.class, long.class, double.class, float.class, boolean.class,
+                String.class, char.class, short.class, byte.class}) {
+            BUILT_IN_ADAPTERS.put(type, Arrays.asList(strict.getAdapter(type).getClass(), lenient.getAdapter(type).getClass()));
+        }
+        LENIENT_DOUBLE_ADAPTER = lenient.getAdapter(double.class).getClass();
+        LENIENT_FLOAT_ADAPTER = lenient.getAdapter(float.class).getClass();
+    }
+
+    private final ExclusionStrategy[] strategies;
+
+    /**
+     * Creates a factory that applies Gson's default exclusion rules only.
+     */
+    public CompiledTypeAdapterFactory() {
+        this(new ExclusionStrategy[0]);
+    }
+
+    /**
+     * Creates a factory that also skips the fields and field types the given strategies exclude, in both
+     * directions.
+     *
+     * @param strategies The exclusion strategies given to the {@code GsonBuilder}.
+     */
+    public CompiledTypeAdapterFactory(ExclusionStrategy... strategies) {
+        Validate.notNull(strategies, "Exclusion strategies cannot be null");
+        this.strategies = strategies.clone();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (!isSupported(raw)) {
+            return null;
+        }
+        CompiledConstructor<T> constructor;
+        List<Field> fields;
+        try {
+            constructor = ConstructorInvoker.compile((Class<T>) raw);
+            fields = serializableFields(raw);
+        } catch (ReflectionException | MetadataException e) {
+            return null;
+        }
+        FieldNamingStrategy naming = gson.fieldNamingStrategy();
+        Map<TypeVariable<?>, Type> variables = typeVariables(type.getType());
+        List<BoundField> serialized = new ArrayList<>();
+        Map<String, BoundField> deserialized = new HashMap<>();
+        Map<String, Field> owners = new HashMap<>();
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(JsonAdapter.class) || field.isAnnotationPresent(Expose.class)
+                    || field.isAnnotationPresent(Since.class) || field.isAnnotationPresent(Until.class)) {
+                return null;
+            }
+            if (isExcluded(field)) {
+                continue;
+            }
+            List<String> names = names(field, naming);
+            Type fieldType = resolve(field.getGenericType(), variables);
+            BoundField bound = bind(gson, names.get(0), field, fieldType);
+            serialized.add(bound);
+            for (String name : names) {
+                Field previous = owners.put(name, field);
+                if (previous != null) {
+                    throw new IllegalArgumentException("Class " + raw.getName() + " declares multiple JSON fields named '"
+                            + name + "'; conflict is caused by fields " + describe(previous) + " and " + describe(field));
+                }
+                deserialized.put(name, bound);
+            }
+        }
+        return new CompiledTypeAdapter<>(constructor, serialized.toArray(new BoundField[0]), deserialized);
+    }
+
+    /**
+     * Whether Gson would skip the field in both directions: it is transient or synthetic, its type is an anonymous
+     * or local class, or an exclusion strategy skips the field or its type.
+     */
+    private boolean isExcluded(Field field) {
+        Class<?> fieldType = field.getType();
+        if (Modifier.isTransient(field.getModifiers()) || field.isSynthetic()
+                || (!fieldType.isEnum() && (fieldType.isAnonymousClass() || fieldType.isLocalClass()))) {
+            return true;
+        }
+        if (strategies.length > 0) {
+            FieldAttributes attributes = new FieldAttributes(field);
+            for (ExclusionStrategy strategy : strategies) {
+                if (strategy.shouldSkipClass(fieldType) || strategy.shouldSkipField(attributes)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the instance fields of the class and its superclasses in the order Gson serializes them: the fields
+     * of the class itself first, then those of each superclass.
+     */
+    private static List<Field> serializableFields(Class<?> raw) throws ReflectionException, MetadataException {
+        List<Field> fields = new ArrayList<>();
+        ClassMetadata metadata = ClassMetadata.getCachedMetadata(raw);
+        while (metadata != null && metadata.getClazz() != Object.class) {
+            for (FieldMetadata field : metadata.getFields()) {
+                Field reflected = field.getField();
+                if (!Modifier.isStatic(reflected.getModifiers()) && !reflected.isSynthetic()) {
+                    fields.add(reflected);
+                }
+            }
+            metadata = metadata.getSuperclassMetadata();
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BoundField bind(Gson gson, String name, Field field, Type fieldType) {
+        CompiledField compiled = FieldLayout.of(field.getDeclaringClass()).getDeclaredField(field.getName());
+        Class<?> rawType = field.getType();
+        if (rawType.isPrimitive() || rawType == String.class) {
+            Class<?> adapter = gson.getAdapter(rawType).getClass();
+            if (isBuiltIn(rawType, adapter)) {
+                if (rawType == int.class) {
+                    return new BoundField.IntField(name, compiled, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                } else if (rawType == long.class) {
+                    return new BoundField.LongField(name, compiled);
+                } else if (rawType == double.class) {
+                    return new BoundField.DoubleField(name, compiled, adapter == LENIENT_DOUBLE_ADAPTER);
+                } else if (rawType == float.class) {
+                    return new BoundField.FloatField(name, compiled, adapter == LENIENT_FLOAT_ADAPTER);
+                } else if (rawType == boolean.class) {
+                    return new BoundField.BooleanField(name, compiled);
+                } else if (rawType == String.class) {
+                    return new BoundField.StringField(name, compiled);
+                } else if (rawType == char.class) {
+                    return new BoundField.CharField(name, compiled);
+                } else if (rawType == short.class) {
+                    return new BoundField.IntField(name, compiled, Short.MIN_VALUE, 65535);
+                } else if (rawType == byte.class) {
+                    return new BoundField.IntField(name, compiled, Byte.MIN_VALUE, 255);
+                }
+            }
+        }
+        TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(fieldType));
+        Class<?> declaredClass = fieldType instanceof Class && !rawType.isPrimitive() ? (Class<?>) fieldType : null;
+        return new BoundField.AdapterField(name, compiled, adapter, declaredClass,
+                runtimeType -> (TypeAdapter<Object>) gson.getAdapter(runtimeType));
+    }
+
+    private static boolean isBuiltIn(Class<?> type, Class<?> adapter) {
+        List<Class<?>> adapters = BUILT_IN_ADAPTERS.get(type);
+        return adapters != null && adapters.contains(adapter);
+    }
+
+    /**
+     * Maps the type variables of the class of a type and its superclasses to their actual arguments, as far as
+     * the type and the generic superclass declarations give them.
+     */
+    private static Map<TypeVariable<?>, Type> typeVariables(Type type) {
+        Map<TypeVariable<?>, Type> variables = new HashMap<>();
+        while (type != null && type != Object.class) {
+            Class<?> raw;
+            if (type instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) type;
+                raw = (Class<?>) parameterized.getRawType();
+                TypeVariable<?>[] parameters = raw.getTypeParameters();
+                Type[] arguments = parameterized.getActualTypeArguments();
+                for (int i = 0; i < parameters.length && i < arguments.length; i++) {
+                    variables.put(parameters[i], resolve(arguments[i], variables));
+                }
+            } else if (type instanceof Class) {
+                raw = (Class<?>) type;
+            } else {
+                break;
+            }
+            type = raw.getGenericSuperclass();
+        }
+        return variables;
+    }
+
+    /**
+     * Substitutes the known type variables in a field type. Wildcards are replaced by their upper bound, which is
+     * the type Gson picks an adapter for.
+     */
+    private static Type resolve(Type type, Map<TypeVariable<?>, Type> variables) {
+        if (type instanceof TypeVariable) {
+            Type resolved = variables.get(type);
+            return resolved != null ? resolved : type;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            Type[] resolved = new Type[arguments.length];
+            boolean changed = false;
+            for (int i = 0; i < arguments.length; i++) {
+                resolved[i] = resolve(arguments[i], variables);
+                changed |= resolved[i] != arguments[i];
+            }
+            return changed ? TypeToken.getParameterized(parameterized.getRawType(), resolved).getType() : type;
+        } else if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Type resolved = resolve(component, variables);
+            return resolved != component ? TypeToken.getArray(resolved).getType() : type;
+        } else if (type instanceof WildcardType) {
+            WildcardType wildcard = (WildcardType) type;
+            if (wildcard.getLowerBounds().length > 0) {
+                return Object.class;
+            }
+            Type bound = wildcard.getUpperBounds()[0];
+            Type resolved = resolve(bound, variables);
+            return resolved != bound ? resolved : type;
+        }
+        return type;
+    }
+
+    private static List<String> names(Field field, FieldNamingStrategy naming) {
+        List<String> names = new ArrayList<>(1);
+        SerializedName annotation = field.getAnnotation(SerializedName.class);
+        if (annotation == null) {
+            names.add(naming.translateName(field));
+            return names;
+        }
+        names.add(annotation.value());
+        for (String alternate : annotation.alternate()) {
+            names.add(alternate);
+        }
+        return names;
+    }
+
+    private static boolean isSupported(Class<?> raw) {
+        if (raw == Object.class || raw.isPrimitive() || raw.isArray() || raw.isInterface() || raw.isEnum()
+                || Modifier.isAbstract(raw.getModifiers()) || raw.isAnonymousClass() || raw.isLocalClass()
+                || (raw.isMemberClass() && !Modifier.isStatic(raw.getModifiers()))
+                || raw.isAnnotationPresent(JsonAdapter.class) || raw.isAnnotationPresent(Since.class)
+                || raw.isAnnotationPresent(Until.class)) {
+            return false;
+        }
+        String name = raw.getName();
+        return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("com.google.gson.");
+    }
+
+    private static String describe(Field field) {
+        return field.getDeclaringClass().getName() + "#" + field.getName();
+    }
+}
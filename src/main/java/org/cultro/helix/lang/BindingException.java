@@ -0,0 +1,13 @@
+package org.cultro.helix.lang;
+
+public class BindingException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public BindingException(String message) {
+        super(message);
+    }
+
+    public BindingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
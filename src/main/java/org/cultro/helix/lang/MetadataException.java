@@ -1,6 +1,8 @@
 package org.cultro.helix.lang;
 
 public class MetadataException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public MetadataException(String message) {
         super(message);
     }
@@ -1,6 +1,8 @@
 package org.cultro.helix.lang;
 
 public class ReflectionException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public ReflectionException(String message) {
         super(message);
     }
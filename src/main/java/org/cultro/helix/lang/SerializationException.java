@@ -0,0 +1,13 @@
+package org.cultro.helix.lang;
+
+public class SerializationException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public SerializationException(String message) {
+        super(message);
+    }
+
+    public SerializationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,9 +2,17 @@ package org.cultro.helix.reflection.cache;
 
 import org.cultro.helix.lang.MetadataException;
 import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
 import org.cultro.helix.reflection.metadata.ClassMetadata;
 import org.cultro.helix.reflection.metadata.FieldMetadata;
 import org.cultro.helix.reflection.metadata.MethodMetadata;
+import org.cultro.helix.reflection.scanners.AnnotationIndex;
+import org.cultro.helix.reflection.scanners.ClassScanner;
+import org.cultro.helix.reflection.scanners.ClasspathScanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Provides a simplified interface to interact with reflection-specific caches.
@@ -53,6 +61,43 @@ public class ReflectionCache {
         return cacheManager.getMethodMetadata(method);
     }
 
+    /**
+     * Fills the caches for all classes of a package and its subpackages in parallel, so that the first requests
+     * after startup do not pay for building metadata. Classes are found through a {@link ClassScanner} for the
+     * context class loader, preferring a precomputed scan index, and are loaded without running their static
+     * initializers. For each class, its metadata including inherited members and annotations and its compiled
+     * field accessors are built.
+     *
+     * @param packageName The package to warm up.
+     * @param parallelism The number of threads to use.
+     * @return A report with the number of classes, the classes that failed, the annotation index of the package
+     * and the time taken.
+     * @throws ReflectionException If the package cannot be scanned.
+     */
+    public static WarmUpReport warmUp(String packageName, int parallelism) throws ReflectionException {
+        Validate.notNull(packageName, "Package name cannot be null");
+        Validate.isPositive(parallelism, "Parallelism must be positive");
+        long start = System.nanoTime();
+        ClasspathScanner classpathScanner = new ClasspathScanner();
+        AnnotationIndex index = new ClassScanner(classpathScanner).index(packageName);
+        List<String> classNames = new ArrayList<>(index.getClassNames());
+        return new WarmUp(cacheManager, classpathScanner.getClassLoader()).run(classNames, index, parallelism, start);
+    }
+
+    /**
+     * Fills the caches for the given classes in parallel, like {@link #warmUp(String, int)}.
+     *
+     * @param classes     The classes to warm up.
+     * @param parallelism The number of threads to use.
+     * @return A report with the number of classes, the classes that failed and the time taken.
+     */
+    public static WarmUpReport warmUp(Collection<Class<?>> classes, int parallelism) {
+        Validate.notNull(classes, "Classes cannot be null");
+        Validate.isPositive(parallelism, "Parallelism must be positive");
+        long start = System.nanoTime();
+        return new WarmUp(cacheManager, null).run(new ArrayList<>(classes), null, parallelism, start);
+    }
+
     /**
      * Clears all reflection-specific caches.
      */
@@ -2,36 +2,65 @@ package org.cultro.helix.reflection.cache;
 
 import org.cultro.helix.cache.Cache;
 import org.cultro.helix.cache.CacheFactory;
+import org.cultro.helix.cache.adaptive.AdaptiveCache;
+import org.cultro.helix.cache.adaptive.CacheBudgetManager;
 import org.cultro.helix.lang.MetadataException;
 import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
 import org.cultro.helix.reflection.metadata.ClassMetadata;
 import org.cultro.helix.reflection.metadata.FieldMetadata;
 import org.cultro.helix.reflection.metadata.MethodMetadata;
+import org.cultro.helix.reflection.metrics.ReflectionMetrics;
 
 /**
  * Manages reflection-specific caches, such as ClassMetadata, FieldMetadata, and MethodMetadata caches.
+ * <p>
+ * ClassMetadata is held in a {@link ClassValue}, so lookups take no lock and the metadata of a class is
+ * reclaimed together with the class instead of keeping its class loader reachable.
+ * </p>
+ * <p>
+ * Lookups, hits and misses of all three caches are reported to {@link ReflectionMetrics} while it is enabled.
+ * </p>
  */
 public class ReflectionCacheManager {
 
-    private final Cache<Class<?>, ClassMetadata> classMetadataCache;
+    private volatile ClassValue<ClassMetadata> classMetadataCache = newClassMetadataCache();
     private final Cache<FieldMetadata, FieldMetadata> fieldMetadataCache;
     private final Cache<MethodMetadata, MethodMetadata> methodMetadataCache;
 
     /**
      * Initializes the reflection cache manager with specified cache capacities and eviction policies.
      *
-     * @param classCacheCapacity  The maximum number of entries in the ClassMetadata cache.
+     * @param classCacheCapacity  Unused, since ClassMetadata lives as long as its class.
      * @param fieldCacheCapacity  The maximum number of entries in the FieldMetadata cache.
      * @param methodCacheCapacity The maximum number of entries in the MethodMetadata cache.
      */
     public ReflectionCacheManager(int classCacheCapacity, int fieldCacheCapacity, int methodCacheCapacity) {
-        this.classMetadataCache = CacheFactory.createCache(CacheFactory.EvictionPolicy.LRU, classCacheCapacity);
-
         this.fieldMetadataCache = CacheFactory.createCache(CacheFactory.EvictionPolicy.LFU, fieldCacheCapacity);
 
         this.methodMetadataCache = CacheFactory.createCache(CacheFactory.EvictionPolicy.FIFO, methodCacheCapacity);
     }
 
+    /**
+     * Initializes the reflection cache manager with field and method caches that are sized at runtime by the given
+     * budget manager. The caches start at the default capacities of {@link ReflectionCache} and may shrink to a
+     * tenth or grow to ten times of them, depending on how much their hit rates profit from the memory. The class
+     * metadata cache is a {@link ClassValue} and is not sized.
+     *
+     * @param budgetManager The budget manager that the field and method caches are registered with.
+     */
+    public ReflectionCacheManager(CacheBudgetManager budgetManager) {
+        Validate.notNull(budgetManager, "The budget manager cannot be null");
+        AdaptiveCache<FieldMetadata, FieldMetadata> fieldCache =
+                new AdaptiveCache<>(CacheFactory.EvictionPolicy.LFU, 5000, 500, 50000, 512);
+        AdaptiveCache<MethodMetadata, MethodMetadata> methodCache =
+                new AdaptiveCache<>(CacheFactory.EvictionPolicy.FIFO, 5000, 500, 50000, 768);
+        budgetManager.register(fieldCache);
+        budgetManager.register(methodCache);
+        this.fieldMetadataCache = fieldCache;
+        this.methodMetadataCache = methodCache;
+    }
+
     /**
      * Retrieves ClassMetadata from the cache or loads and caches it if not present.
      *
@@ -40,12 +69,8 @@ public class ReflectionCacheManager {
      * @throws ReflectionException If metadata retrieval fails.
      */
     public ClassMetadata getClassMetadata(Class<?> clazz) throws ReflectionException, MetadataException {
-        ClassMetadata metadata = classMetadataCache.get(clazz);
-        if (metadata == null) {
-            metadata = new ClassMetadata(clazz);
-            classMetadataCache.put(clazz, metadata);
-        }
-        return metadata;
+        ReflectionMetrics.recordClassLookup();
+        return classMetadataCache.get(clazz);
     }
 
     /**
@@ -57,6 +82,7 @@ public class ReflectionCacheManager {
      */
     public FieldMetadata getFieldMetadata(FieldMetadata field) throws ReflectionException {
         FieldMetadata metadata = fieldMetadataCache.get(field);
+        ReflectionMetrics.recordFieldLookup(metadata != null);
         if (metadata == null) {
             metadata = new FieldMetadata(field.getField());
             fieldMetadataCache.put(metadata, metadata);
@@ -73,6 +99,7 @@ public class ReflectionCacheManager {
      */
     public MethodMetadata getMethodMetadata(MethodMetadata method) throws ReflectionException {
         MethodMetadata metadata = methodMetadataCache.get(method);
+        ReflectionMetrics.recordMethodLookup(metadata != null);
         if (metadata == null) {
             metadata = new MethodMetadata(method.getMethod());
             methodMetadataCache.put(metadata, metadata);
@@ -84,8 +111,22 @@ public class ReflectionCacheManager {
      * Clears all reflection-specific caches.
      */
     public void clearAllCaches() {
-        classMetadataCache.clear();
+        classMetadataCache = newClassMetadataCache();
         fieldMetadataCache.clear();
         methodMetadataCache.clear();
     }
+
+    private static ClassValue<ClassMetadata> newClassMetadataCache() {
+        return new ClassValue<ClassMetadata>() {
+            @Override
+            protected ClassMetadata computeValue(Class<?> type) {
+                ReflectionMetrics.recordClassMiss();
+                try {
+                    return new ClassMetadata(type);
+                } catch (ReflectionException | MetadataException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        };
+    }
 }
@@ -0,0 +1,100 @@
+package org.cultro.helix.reflection.cache;
+
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.scanners.AnnotationIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the reflection caches for a batch of classes on a dedicated {@link ForkJoinPool}.
+ * <p>
+ * Every class is loaded without initialization if given by name, then its metadata is built including the
+ * hierarchy views and the annotations of its members, and its fields are compiled into a {@link FieldLayout}.
+ * The batch is split in halves until a task holds a few classes, so idle workers steal the remaining halves.
+ * Failures are collected per class instead of stopping the run.
+ * </p>
+ */
+final class WarmUp {
+
+    private static final int BATCH_SIZE = 8;
+
+    private final ReflectionCacheManager cacheManager;
+    private final ClassLoader classLoader;
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    WarmUp(ReflectionCacheManager cacheManager, ClassLoader classLoader) {
+        this.cacheManager = cacheManager;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Warms the given classes.
+     *
+     * @param classes     The classes, as {@link Class} objects or binary names.
+     * @param index       The annotation index to report, if any.
+     * @param parallelism The number of worker threads.
+     * @param start       The {@link System#nanoTime()} the warm-up started at, including any scanning.
+     * @return The report.
+     */
+    WarmUpReport run(List<?> classes, AnnotationIndex index, int parallelism, long start) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Batch(classes, 0, classes.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return new WarmUpReport(warmed.get(), failures, index, parallelism, System.nanoTime() - start);
+    }
+
+    private void warm(Object item) {
+        String name = item instanceof Class ? ((Class<?>) item).getName() : (String) item;
+        try {
+            Class<?> clazz = item instanceof Class ? (Class<?>) item : Class.forName(name, false, classLoader);
+            ClassMetadata metadata = cacheManager.getClassMetadata(clazz);
+            metadata.getConstructors();
+            metadata.getAllFields();
+            metadata.getFieldLayout();
+            metadata.getAllMethods();
+            clazz.getAnnotations();
+            FieldLayout.of(clazz);
+            warmed.incrementAndGet();
+        } catch (ReflectionException | MetadataException | ClassNotFoundException | LinkageError | RuntimeException e) {
+            failures.put(name, e);
+        }
+    }
+
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<?> classes;
+        private final int from;
+        private final int to;
+
+        private Batch(List<?> classes, int from, int to) {
+            this.classes = classes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    warm(classes.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(classes, from, middle), new Batch(classes, middle, to));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.cultro.helix.reflection.cache;
+
+import org.cultro.helix.reflection.scanners.AnnotationIndex;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link ReflectionCache#warmUp} run.
+ */
+public final class WarmUpReport {
+
+    private final int warmedClasses;
+    private final Map<String, Throwable> failures;
+    private final AnnotationIndex annotationIndex;
+    private final int parallelism;
+    private final long elapsedNanos;
+
+    WarmUpReport(int warmedClasses, Map<String, Throwable> failures, AnnotationIndex annotationIndex, int parallelism, long elapsedNanos) {
+        this.warmedClasses = warmedClasses;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.annotationIndex = annotationIndex;
+        this.parallelism = parallelism;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return The number of classes whose caches were filled.
+     */
+    public int getWarmedClasses() {
+        return warmedClasses;
+    }
+
+    /**
+     * Returns the classes that could not be loaded or inspected, which were skipped.
+     *
+     * @return An unmodifiable map from class name to the failure.
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the annotation index of the warmed package, so callers can query annotations without scanning the
+     * class path again.
+     *
+     * @return The index, or null if classes were warmed from a list.
+     */
+    public AnnotationIndex getAnnotationIndex() {
+        return annotationIndex;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpReport{" +
+                "warmedClasses=" + warmedClasses +
+                ", failures=" + failures.size() +
+                ", parallelism=" + parallelism +
+                ", elapsedMillis=" + getElapsedMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,164 @@
+package org.cultro.helix.reflection.classfile;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a class file needed for indexing: names, type hierarchy and runtime-visible annotations of the
+ * class and its members. All type names are binary names as returned by {@link Class#getName()}.
+ */
+public final class ClassFileInfo {
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private final String className;
+    private final String superclassName;
+    private final List<String> interfaceNames;
+    private final int accessFlags;
+    private final List<String> annotations;
+    private final List<MemberInfo> fields;
+    private final List<MemberInfo> methods;
+
+    public ClassFileInfo(String className, String superclassName, List<String> interfaceNames, int accessFlags,
+                         List<String> annotations, List<MemberInfo> fields, List<MemberInfo> methods) {
+        this.className = className;
+        this.superclassName = superclassName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.accessFlags = accessFlags;
+        this.annotations = Collections.unmodifiableList(annotations);
+        this.fields = Collections.unmodifiableList(fields);
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the package of the class, empty for the default package.
+     *
+     * @return The package name.
+     */
+    public String getPackageName() {
+        int index = className.lastIndexOf('.');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    /**
+     * Returns the name of the superclass.
+     *
+     * @return The superclass name, or null for {@code java.lang.Object} and interfaces, like {@link Class#getSuperclass()}.
+     */
+    public String getSuperclassName() {
+        return superclassName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Returns the access flags of the class as stored in the class file, which are compatible with
+     * {@link Modifier} for the public, final, abstract and interface bits.
+     *
+     * @return The access flags.
+     */
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (accessFlags & ACC_ENUM) != 0;
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(accessFlags);
+    }
+
+    /**
+     * Returns the runtime-visible annotations of the class.
+     *
+     * @return The annotation type names.
+     */
+    public List<String> getAnnotations() {
+        return annotations;
+    }
+
+    public List<MemberInfo> getFields() {
+        return fields;
+    }
+
+    public List<MemberInfo> getMethods() {
+        return methods;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassFileInfo{" +
+                "className='" + className + '\'' +
+                ", superclassName='" + superclassName + '\'' +
+                ", interfaceNames=" + interfaceNames +
+                ", annotations=" + annotations +
+                '}';
+    }
+
+    /**
+     * A field or method of a class file.
+     */
+    public static final class MemberInfo {
+
+        private final String name;
+        private final String descriptor;
+        private final int accessFlags;
+        private final List<String> annotations;
+
+        public MemberInfo(String name, String descriptor, int accessFlags, List<String> annotations) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.accessFlags = accessFlags;
+            this.annotations = Collections.unmodifiableList(annotations);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the JVM descriptor of the member, such as {@code (ILjava/lang/String;)V} for a method.
+         *
+         * @return The descriptor.
+         */
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        public int getAccessFlags() {
+            return accessFlags;
+        }
+
+        /**
+         * Returns the runtime-visible annotations of the member.
+         *
+         * @return The annotation type names.
+         */
+        public List<String> getAnnotations() {
+            return annotations;
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor;
+        }
+    }
+}
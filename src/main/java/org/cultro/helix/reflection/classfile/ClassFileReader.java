@@ -0,0 +1,246 @@
+package org.cultro.helix.reflection.classfile;
+
+import org.cultro.helix.lang.MetadataException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A minimal class file parser that extracts a {@link ClassFileInfo} without loading the class.
+ * <p>
+ * Only the constant pool, the class header, the member headers and the {@code RuntimeVisibleAnnotations}
+ * attributes are decoded; code and all other attributes are skipped by their length. Constant pool strings are
+ * decoded on demand, so a class costs little more than one pass over its bytes.
+ * </p>
+ */
+public final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final int ACC_INTERFACE = 0x0200;
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final String[] strings;
+    private int position;
+
+    private ClassFileReader(byte[] bytes) {
+        this.bytes = bytes;
+        this.position = 8;
+        int count = readUnsignedShort();
+        this.offsets = new int[count];
+        this.strings = new String[count];
+    }
+
+    /**
+     * Parses a class file.
+     *
+     * @param bytes The contents of the class file.
+     * @return The information read from the class file.
+     * @throws MetadataException If the bytes are not a well-formed class file.
+     */
+    public static ClassFileInfo read(byte[] bytes) throws MetadataException {
+        if (bytes.length < 10 || readInt(bytes, 0) != MAGIC) {
+            throw new MetadataException("Not a class file");
+        }
+        try {
+            return new ClassFileReader(bytes).read();
+        } catch (ArrayIndexOutOfBoundsException | IllegalStateException e) {
+            throw new MetadataException("Malformed class file", e);
+        }
+    }
+
+    private ClassFileInfo read() {
+        readConstantPool();
+        int accessFlags = readUnsignedShort();
+        String className = className(readUnsignedShort());
+        int superIndex = readUnsignedShort();
+        String superclassName = superIndex == 0 || (accessFlags & ACC_INTERFACE) != 0 ? null : className(superIndex);
+        int interfaceCount = readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(className(readUnsignedShort()));
+        }
+        List<ClassFileInfo.MemberInfo> fields = readMembers();
+        List<ClassFileInfo.MemberInfo> methods = readMembers();
+        List<String> annotations = readAttributes();
+        return new ClassFileInfo(className, superclassName, interfaces, accessFlags, annotations, fields, methods);
+    }
+
+    private void readConstantPool() {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] = position;
+            int tag = bytes[position++];
+            switch (tag) {
+                case 1:
+                    position += 2 + readUnsignedShort(position);
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    position += 2;
+                    break;
+                case 15:
+                    position += 3;
+                    break;
+                case 3:
+                case 4:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    position += 4;
+                    break;
+                case 5:
+                case 6:
+                    position += 8;
+                    i++;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private List<ClassFileInfo.MemberInfo> readMembers() {
+        int count = readUnsignedShort();
+        List<ClassFileInfo.MemberInfo> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int accessFlags = readUnsignedShort();
+            String name = utf8(readUnsignedShort());
+            String descriptor = utf8(readUnsignedShort());
+            members.add(new ClassFileInfo.MemberInfo(name, descriptor, accessFlags, readAttributes()));
+        }
+        return members;
+    }
+
+    /**
+     * Reads an attribute table and returns the annotation types found in its runtime-visible annotations.
+     */
+    private List<String> readAttributes() {
+        int count = readUnsignedShort();
+        List<String> annotations = Collections.emptyList();
+        for (int i = 0; i < count; i++) {
+            int nameIndex = readUnsignedShort();
+            int length = readInt(bytes, position);
+            position += 4;
+            int end = position + length;
+            if (isUtf8(nameIndex, RUNTIME_VISIBLE_ANNOTATIONS)) {
+                int annotationCount = readUnsignedShort();
+                annotations = new ArrayList<>(annotationCount);
+                for (int j = 0; j < annotationCount; j++) {
+                    annotations.add(readAnnotation());
+                }
+            }
+            position = end;
+        }
+        return annotations;
+    }
+
+    private String readAnnotation() {
+        String type = descriptorToName(utf8(readUnsignedShort()));
+        int pairs = readUnsignedShort();
+        for (int i = 0; i < pairs; i++) {
+            position += 2;
+            skipElementValue();
+        }
+        return type;
+    }
+
+    private void skipElementValue() {
+        int tag = bytes[position++];
+        switch (tag) {
+            case 'e':
+                position += 4;
+                break;
+            case '@':
+                readAnnotation();
+                break;
+            case '[':
+                int count = readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                position += 2;
+                break;
+        }
+    }
+
+    private String className(int index) {
+        return utf8(readUnsignedShort(offsets[index] + 1)).replace('/', '.');
+    }
+
+    private boolean isUtf8(int index, String expected) {
+        int offset = offsets[index];
+        int length = readUnsignedShort(offset + 1);
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + 3 + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String utf8(int index) {
+        String value = strings[index];
+        if (value == null) {
+            int offset = offsets[index];
+            value = decodeModifiedUtf8(offset + 3, readUnsignedShort(offset + 1));
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private String decodeModifiedUtf8(int start, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = start + length;
+        int i = start;
+        while (i < end) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Converts a field descriptor such as {@code Ljava/lang/Deprecated;} to a binary class name.
+     */
+    static String descriptorToName(String descriptor) {
+        if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.charAt(descriptor.length() - 1) == ';') {
+            return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        }
+        return descriptor;
+    }
+
+    private int readUnsignedShort() {
+        int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
@@ -1,36 +1,77 @@
 package org.cultro.helix.reflection.classloader;
 
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
 
 /**
  * Custom ClassLoader to load classes dynamically at runtime.
+ * <p>
+ * The loader is parallel capable: classes are loaded under a lock per class name, so threads loading different
+ * classes never wait for each other. Class files in directories are read with a single bulk read, or memory-mapped
+ * when they are large, and class files in jars are read into an array of exactly the entry's size. One
+ * {@link ProtectionDomain} is created per code source and shared by all classes defined from it.
+ * </p>
  */
 public class DynamicClassLoader extends ClassLoader {
 
+    /**
+     * Class files at least this large are memory-mapped instead of copied onto the heap.
+     */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final ConcurrentMap<String, ProtectionDomain> protectionDomains = new ConcurrentHashMap<>();
+
     public DynamicClassLoader(ClassLoader parent) {
         super(parent);
     }
 
     /**
-     * Loads a class from its binary name.
+     * Loads a class from its binary name. Classes in {@code java.} packages are delegated to the parent; all
+     * other classes are defined by this loader.
      *
      * @param className The fully qualified name of the class.
+     * @param resolve   Whether to link the class.
      * @return The Class object.
      * @throws ClassNotFoundException If the class cannot be loaded.
      */
     @Override
-    public Class<?> loadClass(String className) throws ClassNotFoundException {
-        Class<?> clazz = findLoadedClass(className);
-        if (clazz == null) {
-            if (className.startsWith("java.")) {
-                clazz = getParent().loadClass(className);
-            } else {
-                clazz = findClass(className);
+    protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(className)) {
+            Class<?> clazz = findLoadedClass(className);
+            if (clazz == null) {
+                if (className.startsWith("java.")) {
+                    clazz = getParent().loadClass(className);
+                } else {
+                    clazz = findClass(className);
+                }
             }
+            if (resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
         }
-        return clazz;
     }
 
     /**
@@ -43,22 +84,121 @@ public class DynamicClassLoader extends ClassLoader {
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
         String path = name.replace('.', '/') + ".class";
-        try (InputStream is = getResourceAsStream(path);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
+        URL url = getResource(path);
+        if (url == null) {
+            throw new ClassNotFoundException("Cannot find class: " + name);
+        }
+        try {
+            definePackageOf(name);
+            if ("file".equals(url.getProtocol())) {
+                return defineFromFile(name, url, path);
+            }
+            return defineFromConnection(name, url, path);
+        } catch (IOException | URISyntaxException e) {
+            throw new ClassNotFoundException("Failed to load class " + name, e);
+        }
+    }
+
+    private Class<?> defineFromFile(String name, URL url, String path) throws IOException, URISyntaxException {
+        ProtectionDomain domain = getProtectionDomain(rootOf(url, path));
+        Path file = Paths.get(url.toURI());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return defineClass(name, mapped, domain);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of " + file);
+                }
+            }
+            return defineClass(name, buffer.array(), 0, buffer.position(), domain);
+        }
+    }
+
+    private Class<?> defineFromConnection(String name, URL url, String path) throws IOException {
+        URLConnection connection = url.openConnection();
+        String codeSource;
+        long size = -1;
+        if (connection instanceof JarURLConnection) {
+            JarURLConnection jarConnection = (JarURLConnection) connection;
+            codeSource = jarConnection.getJarFileURL().toString();
+            JarEntry entry = jarConnection.getJarEntry();
+            if (entry != null) {
+                size = entry.getSize();
+            }
+        } else {
+            codeSource = rootOf(url, path);
+        }
+        try (InputStream in = connection.getInputStream()) {
+            byte[] classData = size >= 0 && size <= Integer.MAX_VALUE ? readExactly(in, (int) size) : readFully(in);
+            return defineClass(name, classData, 0, classData.length, getProtectionDomain(codeSource));
+        }
+    }
+
+    /**
+     * Returns the shared protection domain of a code source, creating it on first use. Locations are compared
+     * as strings because {@link URL#equals(Object)} may resolve host names.
+     */
+    private ProtectionDomain getProtectionDomain(String location) throws MalformedURLException {
+        ProtectionDomain domain = protectionDomains.get(location);
+        if (domain == null) {
+            CodeSource codeSource = new CodeSource(new URL(location), (Certificate[]) null);
+            domain = new ProtectionDomain(codeSource, null, this, null);
+            ProtectionDomain existing = protectionDomains.putIfAbsent(location, domain);
+            if (existing != null) {
+                domain = existing;
+            }
+        }
+        return domain;
+    }
 
-            if (is == null) {
-                throw new ClassNotFoundException("Cannot find class: " + name);
+    @SuppressWarnings("deprecation")
+    private void definePackageOf(String className) {
+        int index = className.lastIndexOf('.');
+        if (index < 0) {
+            return;
+        }
+        String packageName = className.substring(0, index);
+        if (getPackage(packageName) == null) {
+            try {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            } catch (IllegalArgumentException e) {
+                // Defined concurrently by another thread loading a class of the same package.
             }
+        }
+    }
+
+    /**
+     * Strips the resource path from a URL, leaving the directory or archive the resource was found in.
+     */
+    private static String rootOf(URL url, String path) {
+        String location = url.toString();
+        return location.endsWith(path) ? location.substring(0, location.length() - path.length()) : location;
+    }
 
-            int data;
-            while ((data = is.read()) != -1) {
-                buffer.write(data);
+    private static byte[] readExactly(InputStream in, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        while (offset < size) {
+            int read = in.read(bytes, offset, size - offset);
+            if (read < 0) {
+                throw new EOFException("Expected " + size + " bytes but found " + offset);
             }
+            offset += read;
+        }
+        return bytes;
+    }
 
-            byte[] classData = buffer.toByteArray();
-            return defineClass(name, classData, 0, classData.length);
-        } catch (IOException e) {
-            throw new ClassNotFoundException("Failed to load class " + name, e);
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
         }
+        return out.toByteArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,287 @@
+package org.cultro.helix.reflection.cloning;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.util.UnsafeAccess;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * How objects of one class are deep copied, decided once per class and cached in a {@link ClassValue}.
+ */
+abstract class ClonePlan {
+
+    private static final Set<Class<?>> VALUE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, Locale.class,
+            Pattern.class, URI.class, URL.class, File.class, Currency.class, Class.class));
+
+    private static final ClonePlan SHARED = new ClonePlan() {
+        @Override
+        boolean isShared() {
+            return true;
+        }
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) {
+            return source;
+        }
+    };
+
+    private static final ClassValue<ClonePlan> PLANS = new ClassValue<ClonePlan>() {
+        @Override
+        protected ClonePlan computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    static ClonePlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Whether every object of the class is shared, so it can be copied by reference without looking at it.
+     */
+    boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Copies an object of the class, registering the copy with the cloner before copying its contents.
+     */
+    abstract Object copy(Object source, DeepCloner cloner) throws ReflectionException;
+
+    /**
+     * Whether every value of a field of the given type is shared, which is the case for immutable classes
+     * without subclasses.
+     */
+    static boolean isFinalImmutable(Class<?> type) {
+        return (Modifier.isFinal(type.getModifiers()) || type.isEnum()) && of(type).isShared();
+    }
+
+    private static ClonePlan create(Class<?> type) {
+        if (isImmutable(type)) {
+            return SHARED;
+        } else if (type.isArray()) {
+            Class<?> componentType = type.getComponentType();
+            return componentType.isPrimitive() ? new PrimitiveArrayPlan(componentType) : new ObjectArrayPlan(componentType);
+        }
+        ClonePlan jdkPlan = JdkPlans.forType(type);
+        if (jdkPlan != null) {
+            return jdkPlan;
+        } else if (isJdkClass(type) && type != Object.class) {
+            return Serializable.class.isAssignableFrom(type) ? JdkPlans.SERIALIZATION : new UnsupportedPlan(type);
+        } else if (hasJdkSuperclass(type)) {
+            ClonePlan subclassPlan = JdkPlans.forSubclass(type);
+            if (subclassPlan != null) {
+                return subclassPlan;
+            }
+            return Serializable.class.isAssignableFrom(type) ? JdkPlans.SERIALIZATION : new UnsupportedPlan(type);
+        }
+        return new ObjectPlan(type);
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        if (VALUE_TYPES.contains(type) || Enum.class.isAssignableFrom(type) || type.isSynthetic()
+                || Charset.class.isAssignableFrom(type) || Path.class.isAssignableFrom(type)
+                || InetAddress.class.isAssignableFrom(type) || Member.class.isAssignableFrom(type)) {
+            return true;
+        }
+        String name = type.getName();
+        if (name.startsWith("java.time.")) {
+            return true;
+        }
+        if (!Modifier.isFinal(type.getModifiers()) || type.isArray() || isJdkClass(type)) {
+            return false;
+        }
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            if (isJdkClass(current)) {
+                return false;
+            }
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers)) {
+                    continue;
+                }
+                Class<?> fieldType = field.getType();
+                if (!Modifier.isFinal(modifiers) || !(fieldType.isPrimitive() || VALUE_TYPES.contains(fieldType) || fieldType.isEnum())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the class extends a JDK class other than {@code Object}, whose fields cannot be copied one by one.
+     */
+    private static boolean hasJdkSuperclass(Class<?> type) {
+        for (Class<?> current = type.getSuperclass(); current != null && current != Object.class; current = current.getSuperclass()) {
+            if (isJdkClass(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    private static final class PrimitiveArrayPlan extends ClonePlan {
+
+        private final Class<?> componentType;
+
+        PrimitiveArrayPlan(Class<?> componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) {
+            int length = Array.getLength(source);
+            Object copy = Array.newInstance(componentType, length);
+            System.arraycopy(source, 0, copy, 0, length);
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+
+    private static final class ObjectArrayPlan extends ClonePlan {
+
+        private final Class<?> componentType;
+        private final boolean sharedElements;
+
+        ObjectArrayPlan(Class<?> componentType) {
+            this.componentType = componentType;
+            this.sharedElements = isFinalImmutable(componentType);
+        }
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object[] original = (Object[]) source;
+            Object[] copy = (Object[]) Array.newInstance(componentType, original.length);
+            cloner.register(source, copy);
+            if (sharedElements) {
+                System.arraycopy(original, 0, copy, 0, original.length);
+            } else {
+                for (int i = 0; i < original.length; i++) {
+                    copy[i] = cloner.copyValue(original[i]);
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Copies an object field by field. The field copiers are built on first use, when the plans of the field
+     * types can be looked up without recursing into the plan of this class.
+     */
+    private static final class ObjectPlan extends ClonePlan {
+
+        private static final Unsafe UNSAFE = UnsafeAccess.get();
+
+        private final Class<?> type;
+        private volatile FieldCopier[] copiers;
+        private volatile CompiledConstructor<?> constructor;
+
+        ObjectPlan(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object copy = allocate();
+            cloner.register(source, copy);
+            for (FieldCopier copier : copiers()) {
+                copier.copy(source, copy, cloner);
+            }
+            return copy;
+        }
+
+        private Object allocate() throws ReflectionException {
+            if (UNSAFE != null) {
+                try {
+                    return UNSAFE.allocateInstance(type);
+                } catch (InstantiationException e) {
+                    throw new ReflectionException("Failed to allocate an instance of class " + type.getName(), e);
+                }
+            }
+            CompiledConstructor<?> compiled = constructor;
+            if (compiled == null) {
+                constructor = compiled = ConstructorInvoker.compile(type);
+            }
+            return compiled.newInstance();
+        }
+
+        private FieldCopier[] copiers() {
+            FieldCopier[] result = copiers;
+            if (result == null) {
+                result = fieldCopiers(type);
+                copiers = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Lists the copiers of the non-transient instance fields of a class and its superclasses up to the first JDK
+     * superclass, including references to enclosing instances, which {@link FieldLayout#getInstanceFields()}
+     * leaves out. Transient fields keep their default values, as they would with serialization.
+     */
+    static FieldCopier[] fieldCopiers(Class<?> type) {
+        List<FieldCopier> list = new ArrayList<>();
+        for (Class<?> current = type; current != null && !isJdkClass(current); current = current.getSuperclass()) {
+            FieldLayout layout = FieldLayout.of(current);
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    CompiledField compiled = layout.getDeclaredField(field.getName());
+                    list.add(FieldCopier.of(compiled));
+                }
+            }
+        }
+        return list.toArray(new FieldCopier[0]);
+    }
+
+    private static final class UnsupportedPlan extends ClonePlan {
+
+        private final Class<?> type;
+
+        UnsupportedPlan(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            throw new ReflectionException("Cannot deep copy " + type.getName()
+                    + ": JDK classes are copied only if they are immutable, known collections or serializable");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.cultro.helix.reflection.cloning;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Copies object graphs field by field, without going through Java serialization.
+ * <p>
+ * The copy plan of every class is built once from its {@code FieldLayout} and cached in a {@link ClassValue}:
+ * </p>
+ * <ul>
+ *     <li>Immutable values are shared instead of copied: strings, boxed primitives, big numbers, enums,
+ *     {@code java.time} values and other JDK value types, as well as final classes whose instance fields are
+ *     all final and themselves primitive or immutable.</li>
+ *     <li>Primitive arrays are copied with {@link System#arraycopy}, object arrays element by element.</li>
+ *     <li>The common JDK collections and maps are rebuilt with their comparators, and {@code EnumSet},
+ *     {@code EnumMap} and {@code Optional} are copied directly. The unmodifiable and synchronized wrappers of
+ *     {@code Collections} wrap the copy of the collection they wrap, and immutable collections such as those of
+ *     {@code List.of} are rebuilt from copies of their elements. Other serializable JDK classes fall back to
+ *     serialization for the object concerned.</li>
+ *     <li>Application classes extending a JDK collection or map are created through their no-argument
+ *     constructor, their own fields are copied and their elements added; other serializable classes extending a
+ *     JDK class are serialized.</li>
+ *     <li>Other objects are allocated without running a constructor where the runtime permits, otherwise through
+ *     their no-argument constructor, and every non-transient instance field, including final ones, is copied
+ *     with compiled accessors, primitives without boxing. Transient fields keep their default values, as they
+ *     would with serialization.</li>
+ * </ul>
+ * <p>
+ * Objects reachable along several paths, including cycles, are copied once, so the copy has the same shape as the
+ * original. A cloner instance is a single copy operation and is not shared between threads.
+ * </p>
+ */
+public final class DeepCloner {
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+
+    private DeepCloner() {
+    }
+
+    /**
+     * Creates a deep copy of an object graph.
+     *
+     * @param object The object to copy.
+     * @param <T>    The type of the object.
+     * @return The copy, or the object itself if it is immutable, or null for null.
+     * @throws ReflectionException If an object in the graph cannot be instantiated or its fields cannot be accessed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T object) throws ReflectionException {
+        return (T) new DeepCloner().copyValue(object);
+    }
+
+    /**
+     * Checks whether objects of a class are shared between an original and its copies.
+     *
+     * @param type The class.
+     * @return Whether instances are treated as immutable.
+     */
+    public static boolean isImmutable(Class<?> type) {
+        return ClonePlan.of(type).isShared();
+    }
+
+    Object copyValue(Object value) throws ReflectionException {
+        if (value == null) {
+            return null;
+        }
+        ClonePlan plan = ClonePlan.of(value.getClass());
+        if (plan.isShared()) {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        return plan.copy(value, this);
+    }
+
+    /**
+     * Registers the copy of an object before its contents are copied, so that references back to the object
+     * resolve to the copy.
+     */
+    void register(Object original, Object copy) {
+        copies.put(original, copy);
+    }
+}
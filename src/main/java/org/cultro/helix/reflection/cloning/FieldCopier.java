@@ -0,0 +1,163 @@
+package org.cultro.helix.reflection.cloning;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+
+/**
+ * Copies one field from an original to its copy. Primitive fields go through the typed accessors of
+ * {@link CompiledField}, so they are never boxed; fields holding immutable values copy the reference.
+ */
+abstract class FieldCopier {
+
+    final CompiledField field;
+
+    FieldCopier(CompiledField field) {
+        this.field = field;
+    }
+
+    abstract void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException;
+
+    static FieldCopier of(CompiledField field) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntCopier(field);
+        } else if (type == long.class) {
+            return new LongCopier(field);
+        } else if (type == double.class) {
+            return new DoubleCopier(field);
+        } else if (type == boolean.class) {
+            return new BooleanCopier(field);
+        } else if (type == float.class) {
+            return new FloatCopier(field);
+        } else if (type == char.class) {
+            return new CharCopier(field);
+        } else if (type == short.class) {
+            return new ShortCopier(field);
+        } else if (type == byte.class) {
+            return new ByteCopier(field);
+        } else if (ClonePlan.isFinalImmutable(type)) {
+            return new ReferenceCopier(field);
+        }
+        return new DeepCopier(field);
+    }
+
+    private static final class ReferenceCopier extends FieldCopier {
+
+        ReferenceCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.set(to, field.get(from));
+        }
+    }
+
+    private static final class DeepCopier extends FieldCopier {
+
+        DeepCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.set(to, cloner.copyValue(field.get(from)));
+        }
+    }
+
+    private static final class IntCopier extends FieldCopier {
+
+        IntCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setInt(to, field.getInt(from));
+        }
+    }
+
+    private static final class LongCopier extends FieldCopier {
+
+        LongCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setLong(to, field.getLong(from));
+        }
+    }
+
+    private static final class DoubleCopier extends FieldCopier {
+
+        DoubleCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setDouble(to, field.getDouble(from));
+        }
+    }
+
+    private static final class BooleanCopier extends FieldCopier {
+
+        BooleanCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setBoolean(to, field.getBoolean(from));
+        }
+    }
+
+    private static final class FloatCopier extends FieldCopier {
+
+        FloatCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setFloat(to, field.getFloat(from));
+        }
+    }
+
+    private static final class CharCopier extends FieldCopier {
+
+        CharCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setChar(to, field.getChar(from));
+        }
+    }
+
+    private static final class ShortCopier extends FieldCopier {
+
+        ShortCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setShort(to, field.getShort(from));
+        }
+    }
+
+    private static final class ByteCopier extends FieldCopier {
+
+        ByteCopier(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        void copy(Object from, Object to, DeepCloner cloner) throws ReflectionException {
+            field.setByte(to, field.getByte(from));
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package org.cultro.helix.reflection.cloning;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.util.UnsafeAccess;
+import sun.misc.Unsafe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Function;
+
+/**
+ * Copy plans for JDK classes whose fields must not be copied one by one: the common collections and maps, which
+ * are rebuilt through their public API, the collection wrappers and immutable collections, which are rebuilt
+ * around copies of their contents, application subclasses of collections and maps, and serializable classes
+ * without a dedicated plan. Sorted collections keep the comparator of the original, which is shared rather than
+ * copied.
+ */
+final class JdkPlans {
+
+    static final ClonePlan SERIALIZATION = new SerializationPlan();
+
+    private static final Map<Class<?>, ClonePlan> PLANS = new HashMap<>();
+
+    static {
+        collection(ArrayList.class, source -> new ArrayList<>(source.size()));
+        collection(LinkedList.class, source -> new LinkedList<>());
+        collection(ArrayDeque.class, source -> new ArrayDeque<>(source.size()));
+        collection(Vector.class, source -> new Vector<>(source.size()));
+        collection(HashSet.class, source -> new HashSet<>(capacity(source.size())));
+        collection(LinkedHashSet.class, source -> new LinkedHashSet<>(capacity(source.size())));
+        collection(TreeSet.class, source -> new TreeSet<>(comparator(source)));
+        collection(PriorityQueue.class, source -> new PriorityQueue<>(Math.max(1, source.size()), comparator(source)));
+        collection(CopyOnWriteArrayList.class, source -> new CopyOnWriteArrayList<>());
+        collection(CopyOnWriteArraySet.class, source -> new CopyOnWriteArraySet<>());
+        collection(ConcurrentLinkedQueue.class, source -> new ConcurrentLinkedQueue<>());
+        collection(ConcurrentLinkedDeque.class, source -> new ConcurrentLinkedDeque<>());
+        collection(ConcurrentSkipListSet.class, source -> new ConcurrentSkipListSet<>(comparator(source)));
+        map(HashMap.class, source -> new HashMap<>(capacity(source.size())));
+        map(LinkedHashMap.class, source -> new LinkedHashMap<>(capacity(source.size())));
+        map(Hashtable.class, source -> new Hashtable<>(capacity(source.size())));
+        map(IdentityHashMap.class, source -> new IdentityHashMap<>(source.size()));
+        map(ConcurrentHashMap.class, source -> new ConcurrentHashMap<>(capacity(source.size())));
+        map(TreeMap.class, source -> new TreeMap<>(((SortedMap<Object, Object>) source).comparator()));
+        map(ConcurrentSkipListMap.class, source -> new ConcurrentSkipListMap<>(((SortedMap<Object, Object>) source).comparator()));
+        PLANS.put(EnumMap.class, new EnumMapPlan());
+        PLANS.put(Optional.class, new OptionalPlan());
+        WrapperPlan.register(PLANS);
+    }
+
+    private JdkPlans() {
+    }
+
+    /**
+     * Returns the dedicated plan of a JDK class.
+     *
+     * @return The plan, or null if the class has none.
+     */
+    static ClonePlan forType(Class<?> type) {
+        if (EnumSet.class.isAssignableFrom(type)) {
+            return new EnumSetPlan();
+        }
+        ClonePlan plan = PLANS.get(type);
+        if (plan == null && type.getName().startsWith("java.util.ImmutableCollections$")) {
+            plan = ImmutablePlan.forType(type);
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the plan of an application class that extends a JDK collection or map with a no-argument
+     * constructor: the copy is created through that constructor, the fields declared by the application classes
+     * are copied, and then the elements are added. Sorted collections are left out, since their comparator is
+     * typically passed to another constructor.
+     *
+     * @return The plan, or null if the class is not such a collection.
+     */
+    static ClonePlan forSubclass(Class<?> type) {
+        if (!(Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+                || SortedSet.class.isAssignableFrom(type) || SortedMap.class.isAssignableFrom(type)
+                || PriorityQueue.class.isAssignableFrom(type) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            return new SubclassPlan(ConstructorInvoker.compile(type), type);
+        } catch (ReflectionException e) {
+            return null;
+        }
+    }
+
+    private static void collection(Class<?> type, Function<Collection<Object>, Collection<Object>> factory) {
+        PLANS.put(type, new CollectionPlan(factory));
+    }
+
+    private static void map(Class<?> type, Function<Map<Object, Object>, Map<Object, Object>> factory) {
+        PLANS.put(type, new MapPlan(factory));
+    }
+
+    private static Comparator<? super Object> comparator(Collection<Object> source) {
+        if (source instanceof SortedSet) {
+            return ((SortedSet<Object>) source).comparator();
+        }
+        return ((PriorityQueue<Object>) source).comparator();
+    }
+
+    private static int capacity(int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+
+    private static final class CollectionPlan extends ClonePlan {
+
+        private final Function<Collection<Object>, Collection<Object>> factory;
+
+        CollectionPlan(Function<Collection<Object>, Collection<Object>> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Collection<Object> original = (Collection<Object>) source;
+            Collection<Object> copy = factory.apply(original);
+            cloner.register(source, copy);
+            for (Object element : original) {
+                copy.add(cloner.copyValue(element));
+            }
+            return copy;
+        }
+    }
+
+    private static final class MapPlan extends ClonePlan {
+
+        private final Function<Map<Object, Object>, Map<Object, Object>> factory;
+
+        MapPlan(Function<Map<Object, Object>, Map<Object, Object>> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Map<Object, Object> original = (Map<Object, Object>) source;
+            Map<Object, Object> copy = factory.apply(original);
+            cloner.register(source, copy);
+            for (Map.Entry<Object, Object> entry : original.entrySet()) {
+                copy.put(cloner.copyValue(entry.getKey()), cloner.copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+    }
+
+    private static final class EnumMapPlan extends ClonePlan {
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            EnumMap<?, Object> copy = new EnumMap((EnumMap) source);
+            cloner.register(source, copy);
+            for (Map.Entry<?, Object> entry : copy.entrySet()) {
+                entry.setValue(cloner.copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+    }
+
+    private static final class EnumSetPlan extends ClonePlan {
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) {
+            EnumSet<?> copy = ((EnumSet<?>) source).clone();
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Copies the value of an {@code Optional}. An optional whose value refers back to the optional itself
+     * cannot be copied, since the copy can only be created once its value is.
+     */
+    private static final class OptionalPlan extends ClonePlan {
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Optional<?> copy = Optional.ofNullable(cloner.copyValue(((Optional<?>) source).orElse(null)));
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+
+    private static final class SubclassPlan extends ClonePlan {
+
+        private final CompiledConstructor<?> constructor;
+        private final Class<?> type;
+        private volatile FieldCopier[] copiers;
+
+        SubclassPlan(CompiledConstructor<?> constructor, Class<?> type) {
+            this.constructor = constructor;
+            this.type = type;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object copy = constructor.newInstance();
+            cloner.register(source, copy);
+            FieldCopier[] fields = copiers;
+            if (fields == null) {
+                copiers = fields = fieldCopiers(type);
+            }
+            for (FieldCopier copier : fields) {
+                copier.copy(source, copy, cloner);
+            }
+            if (source instanceof Map) {
+                Map<Object, Object> target = (Map<Object, Object>) copy;
+                target.clear();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) source).entrySet()) {
+                    target.put(cloner.copyValue(entry.getKey()), cloner.copyValue(entry.getValue()));
+                }
+            } else {
+                Collection<Object> target = (Collection<Object>) copy;
+                target.clear();
+                for (Object element : (Collection<?>) source) {
+                    target.add(cloner.copyValue(element));
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Copies the unmodifiable and synchronized wrappers of {@link Collections} by copying the wrapped collection
+     * through the cloner and wrapping the copy, so that the copied wrapper is a view of the copy of the wrapped
+     * collection, as the original is of the original. The wrapped collection is read through Unsafe, since the
+     * wrapper classes are not accessible by reflection on newer runtimes.
+     */
+    private static final class WrapperPlan extends ClonePlan {
+
+        private static final Unsafe UNSAFE = UnsafeAccess.get();
+
+        private final long offset;
+        private final Function<Object, Object> wrapper;
+
+        private WrapperPlan(long offset, Function<Object, Object> wrapper) {
+            this.offset = offset;
+            this.wrapper = wrapper;
+        }
+
+        static void register(Map<Class<?>, ClonePlan> plans) {
+            if (UNSAFE == null) {
+                return;
+            }
+            try {
+                long unmodifiableCollection = offset("java.util.Collections$UnmodifiableCollection", "c");
+                long unmodifiableMap = offset("java.util.Collections$UnmodifiableMap", "m");
+                long synchronizedCollection = offset("java.util.Collections$SynchronizedCollection", "c");
+                long synchronizedMap = offset("java.util.Collections$SynchronizedMap", "m");
+                if (unmodifiableCollection < 0 || unmodifiableMap < 0 || synchronizedCollection < 0 || synchronizedMap < 0) {
+                    return;
+                }
+                for (String name : new String[]{"Collection", "Set", "SortedSet", "NavigableSet", "List", "RandomAccessList"}) {
+                    plans.put(Class.forName("java.util.Collections$Unmodifiable" + name),
+                            new WrapperPlan(unmodifiableCollection, wrapper(name, false)));
+                    plans.put(Class.forName("java.util.Collections$Synchronized" + name),
+                            new WrapperPlan(synchronizedCollection, wrapper(name, true)));
+                }
+                for (String name : new String[]{"Map", "SortedMap", "NavigableMap"}) {
+                    plans.put(Class.forName("java.util.Collections$Unmodifiable" + name),
+                            new WrapperPlan(unmodifiableMap, wrapper(name, false)));
+                    plans.put(Class.forName("java.util.Collections$Synchronized" + name),
+                            new WrapperPlan(synchronizedMap, wrapper(name, true)));
+                }
+            } catch (ClassNotFoundException | NoSuchFieldException e) {
+                // The wrappers are copied through serialization on this runtime.
+            }
+        }
+
+        private static long offset(String className, String fieldName) throws ClassNotFoundException, NoSuchFieldException {
+            return UnsafeAccess.objectFieldOffset(Class.forName(className).getDeclaredField(fieldName));
+        }
+
+        /**
+         * Copies the wrapped collection first and the wrapper afterwards, so a wrapper that is reachable from its
+         * own wrapped collection cannot be copied.
+         */
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object copy = wrapper.apply(cloner.copyValue(UNSAFE.getObject(source, offset)));
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Returns the {@link Collections} factory of the wrapper class with the given name, so that the copy is of
+     * the same class as the original.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> wrapper(String name, boolean synchronize) {
+        switch (name) {
+            case "Set":
+                return c -> synchronize ? Collections.synchronizedSet((Set<Object>) c) : Collections.unmodifiableSet((Set<Object>) c);
+            case "SortedSet":
+                return c -> synchronize ? Collections.synchronizedSortedSet((SortedSet<Object>) c) : Collections.unmodifiableSortedSet((SortedSet<Object>) c);
+            case "NavigableSet":
+                return c -> synchronize ? Collections.synchronizedNavigableSet((NavigableSet<Object>) c) : Collections.unmodifiableNavigableSet((NavigableSet<Object>) c);
+            case "List":
+            case "RandomAccessList":
+                return c -> synchronize ? Collections.synchronizedList((List<Object>) c) : Collections.unmodifiableList((List<Object>) c);
+            case "Map":
+                return m -> synchronize ? Collections.synchronizedMap((Map<Object, Object>) m) : Collections.unmodifiableMap((Map<Object, Object>) m);
+            case "SortedMap":
+                return m -> synchronize ? Collections.synchronizedSortedMap((SortedMap<Object, Object>) m) : Collections.unmodifiableSortedMap((SortedMap<Object, Object>) m);
+            case "NavigableMap":
+                return m -> synchronize ? Collections.synchronizedNavigableMap((NavigableMap<Object, Object>) m) : Collections.unmodifiableNavigableMap((NavigableMap<Object, Object>) m);
+            default:
+                return c -> synchronize ? Collections.synchronizedCollection((Collection<Object>) c) : Collections.unmodifiableCollection((Collection<Object>) c);
+        }
+    }
+
+    /**
+     * Copies the immutable collections of {@code List.of}, {@code Set.of} and {@code Map.of} by copying their
+     * elements through the cloner and passing them to the same factory. The factories are looked up at runtime,
+     * since they do not exist on Java 8. Lists that hold null, as created by {@code Stream.toList()}, are copied
+     * through serialization.
+     */
+    private static final class ImmutablePlan extends ClonePlan {
+
+        private final MethodHandle factory;
+        private final boolean map;
+
+        private ImmutablePlan(MethodHandle factory, boolean map) {
+            this.factory = factory.asFixedArity();
+            this.map = map;
+        }
+
+        static ClonePlan forType(Class<?> type) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                if (List.class.isAssignableFrom(type)) {
+                    return new ImmutablePlan(lookup.findStatic(List.class, "of", MethodType.methodType(List.class, Object[].class)), false);
+                } else if (Set.class.isAssignableFrom(type)) {
+                    return new ImmutablePlan(lookup.findStatic(Set.class, "of", MethodType.methodType(Set.class, Object[].class)), false);
+                } else if (Map.class.isAssignableFrom(type)) {
+                    return new ImmutablePlan(lookup.findStatic(Map.class, "ofEntries", MethodType.methodType(Map.class, Map.Entry[].class)), true);
+                }
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // Not a runtime with immutable collection factories.
+            }
+            return null;
+        }
+
+        /**
+         * Copies the elements first and the collection afterwards, so a collection that is reachable from its own
+         * elements cannot be copied.
+         */
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object[] elements;
+            if (map) {
+                Map<?, ?> original = (Map<?, ?>) source;
+                elements = new Map.Entry<?, ?>[original.size()];
+                int i = 0;
+                for (Map.Entry<?, ?> entry : original.entrySet()) {
+                    elements[i++] = new AbstractMap.SimpleImmutableEntry<>(cloner.copyValue(entry.getKey()), cloner.copyValue(entry.getValue()));
+                }
+            } else {
+                Collection<?> original = (Collection<?>) source;
+                for (Object element : original) {
+                    if (element == null) {
+                        return SERIALIZATION.copy(source, cloner);
+                    }
+                }
+                elements = new Object[original.size()];
+                int i = 0;
+                for (Object element : original) {
+                    elements[i++] = cloner.copyValue(element);
+                }
+            }
+            Object copy;
+            try {
+                copy = factory.invoke(elements);
+            } catch (Throwable e) {
+                throw new ReflectionException("Failed to copy " + source.getClass().getName(), e);
+            }
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Copies a serializable JDK object by serializing it on its own. References from inside the object to other
+     * objects of the graph are copied separately from them.
+     */
+    private static final class SerializationPlan extends ClonePlan {
+
+        @Override
+        Object copy(Object source, DeepCloner cloner) throws ReflectionException {
+            Object copy;
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(source);
+                }
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    copy = in.readObject();
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw new ReflectionException("Failed to copy " + source.getClass().getName() + " through serialization", e);
+            }
+            cloner.register(source, copy);
+            return copy;
+        }
+    }
+}
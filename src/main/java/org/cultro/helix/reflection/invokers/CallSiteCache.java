@@ -0,0 +1,204 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.metrics.ReflectionMetrics;
+import org.cultro.helix.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the resolution of name-based reflective calls.
+ * <p>
+ * A call site is identified by the receiver class, the member name and the runtime classes of the arguments.
+ * The first call with a given shape resolves the member through {@link OverloadResolver} and compiles it; every
+ * later call with the same shape is a single map lookup followed by the compiled invoker. Failed resolutions
+ * are remembered as well, since the members of a class never change once it is loaded.
+ * </p>
+ * <p>
+ * Entries live in a {@link ClassValue} of the receiver class, so they are reclaimed together with the class and
+ * never keep its class loader alive on their own. Calls with arguments of classes from a loader that is neither
+ * the loader of the receiver nor one of its ancestors are not cached, since the entry would keep that loader alive
+ * as long as the receiver, and at most {@value #MAX_SITES_PER_CLASS} call sites are cached per class.
+ * </p>
+ */
+public final class CallSiteCache {
+
+    /**
+     * The number of call sites cached per receiver class, beyond which new argument shapes are resolved on every
+     * call.
+     */
+    static final int MAX_SITES_PER_CLASS = 256;
+
+    private static final CompiledMethod NO_METHOD = (target, args) -> null;
+    private static final CompiledConstructor<Object> NO_CONSTRUCTOR = args -> null;
+
+    private static final ClassValue<ConcurrentHashMap<CallSite, CompiledMethod>> METHODS =
+            new ClassValue<ConcurrentHashMap<CallSite, CompiledMethod>>() {
+                @Override
+                protected ConcurrentHashMap<CallSite, CompiledMethod> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private static final ClassValue<ConcurrentHashMap<CallSite, CompiledConstructor<?>>> CONSTRUCTORS =
+            new ClassValue<ConcurrentHashMap<CallSite, CompiledConstructor<?>>>() {
+                @Override
+                protected ConcurrentHashMap<CallSite, CompiledConstructor<?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private CallSiteCache() {
+    }
+
+    /**
+     * Returns the compiled method that a call with the given name and arguments resolves to.
+     *
+     * @param clazz      The class declaring the method.
+     * @param methodName The name of the method.
+     * @param args       The arguments of the call, used for their runtime classes only.
+     * @return The compiled method, or null if no method matches.
+     * @throws ReflectionException If several methods match equally well or the matching one cannot be made accessible.
+     */
+    public static CompiledMethod resolveMethod(Class<?> clazz, String methodName, Object... args) throws ReflectionException {
+        ConcurrentHashMap<CallSite, CompiledMethod> sites = METHODS.get(clazz);
+        CallSite site = new CallSite(methodName, ReflectionUtils.getArgumentTypes(args));
+        CompiledMethod compiled = sites.get(site);
+        if (compiled == null) {
+            long start = ReflectionMetrics.start();
+            Method method = OverloadResolver.resolveMethod(clazz, methodName, site.argumentTypes);
+            compiled = method == null ? NO_METHOD : compile(method);
+            ReflectionMetrics.recordResolution(start);
+            if (sites.size() < MAX_SITES_PER_CLASS && isCacheable(clazz, site.argumentTypes)) {
+                CompiledMethod existing = sites.putIfAbsent(site, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled == NO_METHOD ? null : compiled;
+    }
+
+    /**
+     * Returns the compiled constructor that a call with the given arguments resolves to.
+     *
+     * @param clazz The class to instantiate.
+     * @param args  The arguments of the call, used for their runtime classes only.
+     * @param <T>   The type of the class.
+     * @return The compiled constructor, or null if no constructor matches.
+     * @throws ReflectionException If several constructors match equally well or the matching one cannot be made
+     *                             accessible.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompiledConstructor<T> resolveConstructor(Class<T> clazz, Object... args) throws ReflectionException {
+        ConcurrentHashMap<CallSite, CompiledConstructor<?>> sites = CONSTRUCTORS.get(clazz);
+        CallSite site = new CallSite(null, ReflectionUtils.getArgumentTypes(args));
+        CompiledConstructor<?> compiled = sites.get(site);
+        if (compiled == null) {
+            long start = ReflectionMetrics.start();
+            Constructor<T> constructor = OverloadResolver.resolveConstructor(clazz, site.argumentTypes);
+            compiled = constructor == null ? NO_CONSTRUCTOR : compile(constructor);
+            ReflectionMetrics.recordResolution(start);
+            if (sites.size() < MAX_SITES_PER_CLASS && isCacheable(clazz, site.argumentTypes)) {
+                CompiledConstructor<?> existing = sites.putIfAbsent(site, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled == NO_CONSTRUCTOR ? null : (CompiledConstructor<T>) compiled;
+    }
+
+    /**
+     * Compiles a resolved method, collecting the trailing arguments of variable-arity calls into an array.
+     */
+    private static CompiledMethod compile(Method method) throws ReflectionException {
+        CompiledMethod compiled = MethodHandleInvokers.compile(method);
+        if (!method.isVarArgs()) {
+            return compiled;
+        }
+        return (target, args) -> compiled.invoke(target, OverloadResolver.toInvocationArguments(method, args));
+    }
+
+    private static <T> CompiledConstructor<T> compile(Constructor<T> constructor) throws ReflectionException {
+        CompiledConstructor<T> compiled = MethodHandleInvokers.compile(constructor);
+        if (!constructor.isVarArgs()) {
+            return compiled;
+        }
+        return args -> compiled.newInstance(OverloadResolver.toInvocationArguments(constructor, args));
+    }
+
+    /**
+     * Whether a resolution for arguments of the given classes may be cached on the receiver class: every argument
+     * class is loaded by the bootstrap loader, the loader of the receiver or one of its ancestors, and so cannot
+     * be unloaded before the receiver.
+     *
+     * @param receiver      The class the cache entry is stored on.
+     * @param argumentTypes The classes of the arguments, with null entries for null arguments.
+     * @return Whether the entry can be cached without keeping another class loader alive.
+     */
+    static boolean isCacheable(Class<?> receiver, Class<?>[] argumentTypes) {
+        ClassLoader receiverLoader = receiver.getClassLoader();
+        for (Class<?> type : argumentTypes) {
+            if (type != null && !isSelfOrAncestor(type.getClassLoader(), receiverLoader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSelfOrAncestor(ClassLoader loader, ClassLoader descendant) {
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader current = descendant; current != null; current = current.getParent()) {
+            if (current == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops all cached call sites of the class.
+     *
+     * @param clazz The class to forget.
+     */
+    public static void invalidate(Class<?> clazz) {
+        METHODS.remove(clazz);
+        CONSTRUCTORS.remove(clazz);
+    }
+
+    private static final class CallSite {
+        private final String name;
+        private final Class<?>[] argumentTypes;
+        private final int hash;
+
+        private CallSite(String name, Class<?>[] argumentTypes) {
+            this.name = name;
+            this.argumentTypes = argumentTypes;
+            this.hash = 31 * (name == null ? 0 : name.hashCode()) + Arrays.hashCode(argumentTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CallSite)) {
+                return false;
+            }
+            CallSite other = (CallSite) o;
+            return hash == other.hash && (name == null ? other.name == null : name.equals(other.name))
+                    && Arrays.equals(argumentTypes, other.argumentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
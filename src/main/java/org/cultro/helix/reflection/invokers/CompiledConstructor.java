@@ -0,0 +1,21 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+
+/**
+ * A constructor that was resolved and made accessible once and can then be invoked repeatedly without
+ * the per-call checks of {@link java.lang.reflect.Constructor#newInstance(Object...)}.
+ *
+ * @param <T> The type of the created instances.
+ */
+public interface CompiledConstructor<T> {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param args The arguments to pass to the constructor.
+     * @return The new instance.
+     * @throws ReflectionException If the arguments do not fit the constructor or the constructor throws.
+     */
+    T newInstance(Object... args) throws ReflectionException;
+}
@@ -0,0 +1,243 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.lang.reflect.Field;
+
+/**
+ * A field that was resolved and made accessible once and can then be read and written repeatedly without the
+ * per-call checks of {@link Field#get(Object)} and {@link Field#set(Object, Object)}.
+ * <p>
+ * The typed accessors follow the rules of {@link Field}: a getter accepts any field whose type widens to the
+ * requested primitive, and a setter accepts any field the primitive widens to. Implementations for a field of
+ * exactly the requested type read and write it without boxing.
+ * </p>
+ */
+public abstract class CompiledField {
+
+    private static final int BYTE = 0;
+    private static final int SHORT = 1;
+    private static final int CHAR = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int FLOAT = 5;
+    private static final int DOUBLE = 6;
+    private static final int BOOLEAN = 7;
+    private static final int OTHER = 8;
+
+    private final Field field;
+
+    CompiledField(Field field) {
+        this.field = field;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * Reads the field.
+     *
+     * @param target The object to read the field of, ignored for static fields.
+     * @return The value of the field, boxed if primitive.
+     * @throws ReflectionException If the target is not an instance of the declaring class or the field cannot be accessed.
+     */
+    public abstract Object get(Object target) throws ReflectionException;
+
+    /**
+     * Writes the field.
+     *
+     * @param target The object to write the field of, ignored for static fields.
+     * @param value  The value, boxed for primitive fields.
+     * @throws ReflectionException If the target or value do not fit the field or the field cannot be written.
+     */
+    public abstract void set(Object target, Object value) throws ReflectionException;
+
+    public boolean getBoolean(Object target) throws ReflectionException {
+        return (Boolean) widen(get(target), boolean.class);
+    }
+
+    public byte getByte(Object target) throws ReflectionException {
+        return (Byte) widen(get(target), byte.class);
+    }
+
+    public char getChar(Object target) throws ReflectionException {
+        return (Character) widen(get(target), char.class);
+    }
+
+    public short getShort(Object target) throws ReflectionException {
+        return (Short) widen(get(target), short.class);
+    }
+
+    public int getInt(Object target) throws ReflectionException {
+        return (Integer) widen(get(target), int.class);
+    }
+
+    public long getLong(Object target) throws ReflectionException {
+        return (Long) widen(get(target), long.class);
+    }
+
+    public float getFloat(Object target) throws ReflectionException {
+        return (Float) widen(get(target), float.class);
+    }
+
+    public double getDouble(Object target) throws ReflectionException {
+        return (Double) widen(get(target), double.class);
+    }
+
+    public void setBoolean(Object target, boolean value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setByte(Object target, byte value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setChar(Object target, char value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setShort(Object target, short value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setInt(Object target, int value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setLong(Object target, long value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setFloat(Object target, float value) throws ReflectionException {
+        set(target, value);
+    }
+
+    public void setDouble(Object target, double value) throws ReflectionException {
+        set(target, value);
+    }
+
+    /**
+     * Converts a value for a write to this field, widening boxed primitives to the field type.
+     *
+     * @param value The value to write.
+     * @return The value to store, of the wrapper type for primitive fields.
+     * @throws ReflectionException If the value cannot be assigned to the field.
+     */
+    final Object coerce(Object value) throws ReflectionException {
+        Class<?> type = field.getType();
+        if (!type.isPrimitive()) {
+            if (value != null && !type.isInstance(value)) {
+                throw mismatch(value.getClass());
+            }
+            return value;
+        }
+        return widen(value, type);
+    }
+
+    final ReflectionException notInstance(Object target) {
+        return new ReflectionException("Cannot access field " + getName() + " of " + field.getDeclaringClass().getName()
+                + " on " + (target == null ? "null" : "an instance of " + target.getClass().getName()));
+    }
+
+    private Object widen(Object value, Class<?> to) throws ReflectionException {
+        int from = rank(value);
+        int rank = rank(to);
+        if (from == rank || (from < BOOLEAN && rank < BOOLEAN && from < rank && accepts(rank, from))) {
+            return convert(value, rank);
+        }
+        throw mismatch(value == null ? null : value.getClass());
+    }
+
+    private ReflectionException mismatch(Class<?> valueType) {
+        return new ReflectionException("Field " + getName() + " of type " + field.getType().getName()
+                + " does not match " + (valueType == null ? "null" : valueType.getName()));
+    }
+
+    private static boolean accepts(int to, int from) {
+        if (to == CHAR) {
+            return false;
+        }
+        return to != SHORT || from == BYTE;
+    }
+
+    private static int rank(Object value) {
+        if (value instanceof Integer) {
+            return INT;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN;
+        } else if (value instanceof Float) {
+            return FLOAT;
+        } else if (value instanceof Character) {
+            return CHAR;
+        } else if (value instanceof Short) {
+            return SHORT;
+        } else if (value instanceof Byte) {
+            return BYTE;
+        }
+        return OTHER;
+    }
+
+    private static int rank(Class<?> type) {
+        if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == double.class) {
+            return DOUBLE;
+        } else if (type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == float.class) {
+            return FLOAT;
+        } else if (type == char.class) {
+            return CHAR;
+        } else if (type == short.class) {
+            return SHORT;
+        } else if (type == byte.class) {
+            return BYTE;
+        }
+        return OTHER;
+    }
+
+    private static Object convert(Object value, int rank) {
+        if (rank == BOOLEAN || rank == CHAR) {
+            return value;
+        }
+        long integral;
+        double floating;
+        if (value instanceof Character) {
+            integral = (Character) value;
+            floating = integral;
+        } else {
+            Number number = (Number) value;
+            integral = number.longValue();
+            floating = number.doubleValue();
+        }
+        switch (rank) {
+            case BYTE:
+                return (byte) integral;
+            case SHORT:
+                return (short) integral;
+            case INT:
+                return (int) integral;
+            case LONG:
+                return integral;
+            case FLOAT:
+                return value instanceof Float ? (Float) value : (float) integral;
+            default:
+                return value instanceof Double || value instanceof Float ? floating : (double) integral;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+
+/**
+ * A method that was resolved and made accessible once and can then be invoked repeatedly without
+ * the per-call checks of {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+ */
+public interface CompiledMethod {
+
+    /**
+     * Invokes the method.
+     *
+     * @param target The object to invoke the method on, ignored for static methods.
+     * @param args   The arguments to pass to the method.
+     * @return The result of the method, boxed if primitive, or null for void methods.
+     * @throws ReflectionException If the arguments do not fit the method or the method throws.
+     */
+    Object invoke(Object target, Object... args) throws ReflectionException;
+}
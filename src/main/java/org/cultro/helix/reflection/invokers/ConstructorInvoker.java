@@ -1,10 +1,9 @@
 package org.cultro.helix.reflection.invokers;
 
 import org.cultro.helix.lang.ReflectionException;
-import org.cultro.helix.util.ReflectionUtils;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
 
 /**
  * Utility class to create instances via constructors using reflection.
@@ -13,6 +12,7 @@ public class ConstructorInvoker {
 
     /**
      * Creates a new instance of the specified class using the constructor that matches the provided arguments.
+     * The constructor is resolved once per argument shape and cached, see {@link CallSiteCache}.
      *
      * @param clazz The class to instantiate.
      * @param args  The arguments to pass to the constructor.
@@ -20,15 +20,56 @@ public class ConstructorInvoker {
      * @throws ReflectionException If the constructor cannot be found or invoked.
      */
     public static <T> T createInstance(Class<T> clazz, Object... args) throws ReflectionException {
-        Constructor<T> constructor = ReflectionUtils.findConstructor(clazz, args);
+        CompiledConstructor<T> constructor = CallSiteCache.resolveConstructor(clazz, args);
         if (constructor == null) {
             throw new ReflectionException("No suitable constructor found for class " + clazz.getName());
         }
+        return constructor.newInstance(args);
+    }
+
+    /**
+     * Resolves the constructor once into an invoker that skips access checks and argument validation on every call.
+     *
+     * @param constructor The constructor to compile.
+     * @param <T>         The type of the class.
+     * @return The compiled constructor.
+     * @throws ReflectionException If the constructor cannot be made accessible.
+     */
+    public static <T> CompiledConstructor<T> compile(Constructor<T> constructor) throws ReflectionException {
+        return MethodHandleInvokers.compile(constructor);
+    }
+
+    /**
+     * Compiles the constructor with the given parameter types.
+     *
+     * @param clazz          The class to instantiate.
+     * @param parameterTypes The exact parameter types of the constructor.
+     * @param <T>            The type of the class.
+     * @return The compiled constructor.
+     * @throws ReflectionException If no such constructor exists or it cannot be made accessible.
+     */
+    public static <T> CompiledConstructor<T> compile(Class<T> clazz, Class<?>... parameterTypes) throws ReflectionException {
+        try {
+            return compile(clazz.getDeclaredConstructor(parameterTypes));
+        } catch (NoSuchMethodException e) {
+            throw new ReflectionException("No suitable constructor found for class " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * Compiles the no-argument constructor of the class into a supplier that calls it directly.
+     *
+     * @param clazz The class to instantiate.
+     * @param <T>   The type of the class.
+     * @return A supplier of new instances.
+     * @throws ReflectionException If the class has no no-argument constructor.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Supplier<T> compileSupplier(Class<T> clazz) throws ReflectionException {
         try {
-            constructor.setAccessible(true);
-            return constructor.newInstance(args);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new ReflectionException("Failed to create instance of class " + clazz.getName(), e);
+            return LambdaFactory.create(clazz.getDeclaredConstructor(), Supplier.class);
+        } catch (NoSuchMethodException e) {
+            throw new ReflectionException("No suitable constructor found for class " + clazz.getName(), e);
         }
     }
 }
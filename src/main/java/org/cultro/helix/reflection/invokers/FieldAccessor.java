@@ -1,12 +1,13 @@
 package org.cultro.helix.reflection.invokers;
 
 import org.cultro.helix.lang.ReflectionException;
-import org.cultro.helix.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
 
 /**
  * Utility class to get and set field values via reflection.
+ * Fields are compiled once per class and looked up through {@link FieldLayout}.
+ * Paths of nested fields are better read through a compiled {@link PropertyPath}.
  */
 public class FieldAccessor {
 
@@ -19,17 +20,7 @@ public class FieldAccessor {
      * @throws ReflectionException If the field does not exist or cannot be accessed.
      */
     public static Object getFieldValue(Object target, String fieldName) throws ReflectionException {
-        Class<?> clazz = target.getClass();
-        Field field = ReflectionUtils.findField(clazz, fieldName);
-        if (field == null) {
-            throw new ReflectionException("Field " + fieldName + " not found in class " + clazz.getName());
-        }
-        try {
-            field.setAccessible(true);
-            return field.get(target);
-        } catch (IllegalAccessException e) {
-            throw new ReflectionException("Unable to access field " + fieldName, e);
-        }
+        return findField(target.getClass(), fieldName).get(target);
     }
 
     /**
@@ -41,16 +32,44 @@ public class FieldAccessor {
      * @throws ReflectionException If the field does not exist or cannot be accessed.
      */
     public static void setFieldValue(Object target, String fieldName, Object value) throws ReflectionException {
-        Class<?> clazz = target.getClass();
-        Field field = ReflectionUtils.findField(clazz, fieldName);
+        findField(target.getClass(), fieldName).set(target, value);
+    }
+
+    /**
+     * Returns the compiled field declared by the class with the given name.
+     *
+     * @param clazz     The class declaring the field.
+     * @param fieldName The name of the field.
+     * @return The compiled field.
+     * @throws ReflectionException If the class declares no such field.
+     */
+    public static CompiledField findField(Class<?> clazz, String fieldName) throws ReflectionException {
+        CompiledField field = FieldLayout.of(clazz).getDeclaredField(fieldName);
         if (field == null) {
             throw new ReflectionException("Field " + fieldName + " not found in class " + clazz.getName());
         }
-        try {
-            field.setAccessible(true);
-            field.set(target, value);
-        } catch (IllegalAccessException e) {
-            throw new ReflectionException("Unable to set field " + fieldName, e);
-        }
+        return field;
+    }
+
+    /**
+     * Compiles the field into an accessor that skips access checks on every call and reads and writes
+     * primitive fields without boxing through its typed methods.
+     *
+     * @param field The field to compile.
+     * @return The compiled field.
+     * @throws ReflectionException If the field cannot be made accessible.
+     */
+    public static CompiledField compile(Field field) throws ReflectionException {
+        return FieldInvokers.compile(field);
+    }
+
+    /**
+     * Returns the compiled fields of the class, including bulk reads and writes of all instance fields.
+     *
+     * @param clazz The class.
+     * @return The field layout of the class.
+     */
+    public static FieldLayout getLayout(Class<?> clazz) {
+        return FieldLayout.of(clazz);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,380 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.util.MethodHandleUtils;
+import org.cultro.helix.util.UnsafeAccess;
+import sun.misc.Unsafe;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Builds {@link CompiledField} instances.
+ * <p>
+ * Plain instance fields are accessed through Unsafe field offsets when the runtime provides them, with one
+ * implementation per primitive type so typed reads and writes never box. Unsafe is only used for fields that
+ * could also be made accessible through reflection, so it never grants access the runtime would refuse.
+ * All other fields, and every field on runtimes without Unsafe, go through method handles.
+ * </p>
+ */
+final class FieldInvokers {
+
+    private static final Unsafe UNSAFE = UnsafeAccess.get();
+    private static final MethodType GETTER_SHAPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_SHAPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private FieldInvokers() {
+    }
+
+    static CompiledField compile(Field field) throws ReflectionException {
+        MethodHandle getter = MethodHandleUtils.unreflectGetter(field);
+        long offset = UnsafeAccess.objectFieldOffset(field);
+        if (offset >= 0) {
+            return unsafeField(field, offset);
+        }
+        MethodHandle setter;
+        try {
+            setter = MethodHandleUtils.unreflectSetter(field);
+        } catch (ReflectionException e) {
+            setter = null;
+        }
+        if (Modifier.isStatic(field.getModifiers())) {
+            getter = MethodHandles.dropArguments(getter, 0, Object.class);
+            if (setter != null) {
+                setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+        }
+        return new HandleField(field, getter.asType(GETTER_SHAPE), setter == null ? null : setter.asType(SETTER_SHAPE));
+    }
+
+    /**
+     * Returns a compiled field whose every access fails with the given cause, for fields that cannot be
+     * made accessible but must still be listed.
+     */
+    static CompiledField inaccessible(Field field, ReflectionException cause) {
+        return new InaccessibleField(field, cause);
+    }
+
+    private static CompiledField unsafeField(Field field, long offset) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntField(field, offset);
+        } else if (type == long.class) {
+            return new LongField(field, offset);
+        } else if (type == double.class) {
+            return new DoubleField(field, offset);
+        } else if (type == boolean.class) {
+            return new BooleanField(field, offset);
+        } else if (type == float.class) {
+            return new FloatField(field, offset);
+        } else if (type == byte.class) {
+            return new ByteField(field, offset);
+        } else if (type == short.class) {
+            return new ShortField(field, offset);
+        } else if (type == char.class) {
+            return new CharField(field, offset);
+        }
+        return new ReferenceField(field, offset);
+    }
+
+    private static final class HandleField extends CompiledField {
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private HandleField(Field field, MethodHandle getter, MethodHandle setter) {
+            super(field);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException("Unable to access field " + getName(), e);
+            }
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            if (setter == null) {
+                throw new ReflectionException("Unable to set field " + getName());
+            }
+            Object coerced = coerce(value);
+            try {
+                setter.invokeExact(target, coerced);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException("Unable to set field " + getName(), e);
+            }
+        }
+    }
+
+    private static final class InaccessibleField extends CompiledField {
+        private final ReflectionException cause;
+
+        private InaccessibleField(Field field, ReflectionException cause) {
+            super(field);
+            this.cause = cause;
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            throw new ReflectionException("Unable to access field " + getName(), cause);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            throw new ReflectionException("Unable to set field " + getName(), cause);
+        }
+    }
+
+    private abstract static class UnsafeField extends CompiledField {
+        final long offset;
+        private final Class<?> declaringClass;
+
+        UnsafeField(Field field, long offset) {
+            super(field);
+            this.offset = offset;
+            this.declaringClass = field.getDeclaringClass();
+        }
+
+        final Object check(Object target) throws ReflectionException {
+            if (!declaringClass.isInstance(target)) {
+                throw notInstance(target);
+            }
+            return target;
+        }
+    }
+
+    private static final class ReferenceField extends UnsafeField {
+        ReferenceField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return UNSAFE.getObject(check(target), offset);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            UNSAFE.putObject(check(target), offset, coerce(value));
+        }
+    }
+
+    private static final class IntField extends UnsafeField {
+        IntField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getInt(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setInt(target, (Integer) coerce(value));
+        }
+
+        @Override
+        public int getInt(Object target) throws ReflectionException {
+            return UNSAFE.getInt(check(target), offset);
+        }
+
+        @Override
+        public void setInt(Object target, int value) throws ReflectionException {
+            UNSAFE.putInt(check(target), offset, value);
+        }
+    }
+
+    private static final class LongField extends UnsafeField {
+        LongField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getLong(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setLong(target, (Long) coerce(value));
+        }
+
+        @Override
+        public long getLong(Object target) throws ReflectionException {
+            return UNSAFE.getLong(check(target), offset);
+        }
+
+        @Override
+        public void setLong(Object target, long value) throws ReflectionException {
+            UNSAFE.putLong(check(target), offset, value);
+        }
+    }
+
+    private static final class DoubleField extends UnsafeField {
+        DoubleField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getDouble(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setDouble(target, (Double) coerce(value));
+        }
+
+        @Override
+        public double getDouble(Object target) throws ReflectionException {
+            return UNSAFE.getDouble(check(target), offset);
+        }
+
+        @Override
+        public void setDouble(Object target, double value) throws ReflectionException {
+            UNSAFE.putDouble(check(target), offset, value);
+        }
+    }
+
+    private static final class FloatField extends UnsafeField {
+        FloatField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getFloat(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setFloat(target, (Float) coerce(value));
+        }
+
+        @Override
+        public float getFloat(Object target) throws ReflectionException {
+            return UNSAFE.getFloat(check(target), offset);
+        }
+
+        @Override
+        public void setFloat(Object target, float value) throws ReflectionException {
+            UNSAFE.putFloat(check(target), offset, value);
+        }
+    }
+
+    private static final class BooleanField extends UnsafeField {
+        BooleanField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getBoolean(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setBoolean(target, (Boolean) coerce(value));
+        }
+
+        @Override
+        public boolean getBoolean(Object target) throws ReflectionException {
+            return UNSAFE.getBoolean(check(target), offset);
+        }
+
+        @Override
+        public void setBoolean(Object target, boolean value) throws ReflectionException {
+            UNSAFE.putBoolean(check(target), offset, value);
+        }
+    }
+
+    private static final class ByteField extends UnsafeField {
+        ByteField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getByte(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setByte(target, (Byte) coerce(value));
+        }
+
+        @Override
+        public byte getByte(Object target) throws ReflectionException {
+            return UNSAFE.getByte(check(target), offset);
+        }
+
+        @Override
+        public void setByte(Object target, byte value) throws ReflectionException {
+            UNSAFE.putByte(check(target), offset, value);
+        }
+    }
+
+    private static final class ShortField extends UnsafeField {
+        ShortField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getShort(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setShort(target, (Short) coerce(value));
+        }
+
+        @Override
+        public short getShort(Object target) throws ReflectionException {
+            return UNSAFE.getShort(check(target), offset);
+        }
+
+        @Override
+        public void setShort(Object target, short value) throws ReflectionException {
+            UNSAFE.putShort(check(target), offset, value);
+        }
+    }
+
+    private static final class CharField extends UnsafeField {
+        CharField(Field field, long offset) {
+            super(field, offset);
+        }
+
+        @Override
+        public Object get(Object target) throws ReflectionException {
+            return getChar(target);
+        }
+
+        @Override
+        public void set(Object target, Object value) throws ReflectionException {
+            setChar(target, (Character) coerce(value));
+        }
+
+        @Override
+        public char getChar(Object target) throws ReflectionException {
+            return UNSAFE.getChar(check(target), offset);
+        }
+
+        @Override
+        public void setChar(Object target, char value) throws ReflectionException {
+            UNSAFE.putChar(check(target), offset, value);
+        }
+    }
+}
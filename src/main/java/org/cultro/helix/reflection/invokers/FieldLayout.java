@@ -0,0 +1,154 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled fields of a class, built once per class and cached in a {@link ClassValue}.
+ * <p>
+ * Besides lookups of declared fields by name, the layout lists the instance fields of the whole class hierarchy,
+ * superclass fields first, so that mapping and serialization loops can copy an object into an {@code Object[]}
+ * and back with {@link #readAll(Object, Object[])} and {@link #writeAll(Object, Object[])}. Synthetic fields such
+ * as references to enclosing instances are not part of that list.
+ * </p>
+ */
+public final class FieldLayout {
+
+    private static final ClassValue<FieldLayout> LAYOUTS = new ClassValue<FieldLayout>() {
+        @Override
+        protected FieldLayout computeValue(Class<?> type) {
+            return new FieldLayout(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, CompiledField> declaredFields;
+    private final CompiledField[] instanceFields;
+    private final List<CompiledField> instanceFieldList;
+
+    private FieldLayout(Class<?> type) {
+        this.type = type;
+        Field[] fields = type.getDeclaredFields();
+        Map<String, CompiledField> declared = new HashMap<>(fields.length * 2);
+        List<CompiledField> instance = new ArrayList<>();
+        Class<?> superclass = type.getSuperclass();
+        if (superclass != null) {
+            instance.addAll(of(superclass).instanceFieldList);
+        }
+        for (Field field : fields) {
+            CompiledField compiled;
+            try {
+                compiled = FieldInvokers.compile(field);
+            } catch (ReflectionException e) {
+                compiled = FieldInvokers.inaccessible(field, e);
+            }
+            declared.put(field.getName(), compiled);
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                instance.add(compiled);
+            }
+        }
+        this.declaredFields = declared;
+        this.instanceFields = instance.toArray(new CompiledField[0]);
+        this.instanceFieldList = Collections.unmodifiableList(Arrays.asList(instanceFields));
+    }
+
+    /**
+     * Returns the layout of the class, building it on first use.
+     *
+     * @param clazz The class.
+     * @return The field layout of the class.
+     */
+    public static FieldLayout of(Class<?> clazz) {
+        return LAYOUTS.get(clazz);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the compiled field declared by the class itself with the given name.
+     *
+     * @param name The name of the field.
+     * @return The compiled field, or null if the class declares no such field.
+     */
+    public CompiledField getDeclaredField(String name) {
+        return declaredFields.get(name);
+    }
+
+    /**
+     * Returns the instance fields of the class and its superclasses, superclass fields first.
+     *
+     * @return An unmodifiable list of compiled fields.
+     */
+    public List<CompiledField> getInstanceFields() {
+        return instanceFieldList;
+    }
+
+    /**
+     * Returns the number of instance fields, which is the array length expected by the bulk operations.
+     *
+     * @return The number of instance fields.
+     */
+    public int size() {
+        return instanceFields.length;
+    }
+
+    /**
+     * Reads all instance fields of the target into a new array.
+     *
+     * @param target The object to read.
+     * @return The field values in the order of {@link #getInstanceFields()}.
+     * @throws ReflectionException If a field cannot be read.
+     */
+    public Object[] readAll(Object target) throws ReflectionException {
+        Object[] values = new Object[instanceFields.length];
+        readAll(target, values);
+        return values;
+    }
+
+    /**
+     * Reads all instance fields of the target into the given array.
+     *
+     * @param target The object to read.
+     * @param values The array to fill, at least {@link #size()} long.
+     * @throws ReflectionException If a field cannot be read.
+     */
+    public void readAll(Object target, Object[] values) throws ReflectionException {
+        checkLength(values);
+        CompiledField[] fields = instanceFields;
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = fields[i].get(target);
+        }
+    }
+
+    /**
+     * Writes all instance fields of the target from the given array.
+     *
+     * @param target The object to write.
+     * @param values The field values in the order of {@link #getInstanceFields()}.
+     * @throws ReflectionException If a value does not fit its field or a field cannot be written.
+     */
+    public void writeAll(Object target, Object[] values) throws ReflectionException {
+        checkLength(values);
+        CompiledField[] fields = instanceFields;
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].set(target, values[i]);
+        }
+    }
+
+    private void checkLength(Object[] values) {
+        if (values.length < instanceFields.length) {
+            throw new IllegalArgumentException("Expected at least " + instanceFields.length + " values for "
+                    + type.getName() + " but got " + values.length + ".");
+        }
+    }
+}
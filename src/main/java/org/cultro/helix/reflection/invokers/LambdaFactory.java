@@ -0,0 +1,199 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.util.MethodHandleUtils;
+import org.cultro.helix.util.TypeUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements functional interfaces with reflective methods and constructors through {@link LambdaMetafactory}.
+ * <p>
+ * The resulting object calls the member directly, exactly like a method reference written in source, so the JIT
+ * can inline it and primitive parameters and return values are passed without boxing when the functional
+ * interface declares them as primitives (for example {@link java.util.function.ToIntFunction}). Where the
+ * runtime does not allow spinning a lambda class for the member, a slower method handle proxy is returned.
+ * </p>
+ */
+public final class LambdaFactory {
+
+    private LambdaFactory() {
+    }
+
+    /**
+     * Implements the functional interface with the method. For instance methods, the first parameter of the
+     * interface method receives the target object.
+     *
+     * @param method              The method to call.
+     * @param functionalInterface The interface to implement, having exactly one abstract method.
+     * @param <F>                 The type of the interface.
+     * @return An instance of the interface calling the method.
+     * @throws ReflectionException If the shapes of method and interface do not match.
+     */
+    public static <F> F create(Method method, Class<F> functionalInterface) throws ReflectionException {
+        return create(method, functionalInterface, MethodHandleUtils.unreflect(method), null);
+    }
+
+    /**
+     * Implements the functional interface with the constructor, for example {@link java.util.function.Supplier}
+     * for a no-argument constructor.
+     *
+     * @param constructor         The constructor to call.
+     * @param functionalInterface The interface to implement, having exactly one abstract method.
+     * @param <F>                 The type of the interface.
+     * @return An instance of the interface calling the constructor.
+     * @throws ReflectionException If the shapes of constructor and interface do not match.
+     */
+    public static <F> F create(Constructor<?> constructor, Class<F> functionalInterface) throws ReflectionException {
+        return create(constructor, functionalInterface, MethodHandleUtils.unreflectConstructor(constructor), null);
+    }
+
+    /**
+     * Implements a functional interface by forwarding its abstract method to the implementation of the target,
+     * without going through {@link java.lang.reflect.Proxy}. The result behaves like the method reference
+     * {@code target::method}; in particular {@code equals}, {@code hashCode} and {@code toString} are those of
+     * the generated object, not of the target.
+     *
+     * @param functionalInterface The interface to implement, having exactly one abstract method.
+     * @param target              The object to forward to.
+     * @param <F>                 The type of the interface.
+     * @return An instance of the interface calling the target.
+     * @throws ReflectionException If the type is not a functional interface.
+     */
+    public static <F> F delegate(Class<F> functionalInterface, F target) throws ReflectionException {
+        Method sam = findSingleAbstractMethod(functionalInterface);
+        if (!sam.getDeclaringClass().isInstance(target)) {
+            throw new ReflectionException("Target does not implement " + functionalInterface.getName());
+        }
+        return create(sam, functionalInterface, MethodHandleUtils.unreflect(sam), target);
+    }
+
+    /**
+     * Checks whether the type is an interface with exactly one abstract method.
+     *
+     * @param type The type to check.
+     * @return True if lambdas can implement the type.
+     */
+    public static boolean isFunctionalInterface(Class<?> type) {
+        try {
+            findSingleAbstractMethod(type);
+            return true;
+        } catch (ReflectionException e) {
+            return false;
+        }
+    }
+
+    private static <F> F create(Executable member, Class<F> functionalInterface, MethodHandle accessibleHandle,
+                                Object receiver) throws ReflectionException {
+        Method sam = findSingleAbstractMethod(functionalInterface);
+        MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        MethodType implType = accessibleHandle.type();
+        MethodType factoryType = MethodType.methodType(functionalInterface);
+        if (receiver != null) {
+            factoryType = factoryType.appendParameterTypes(implType.parameterType(0));
+            implType = implType.dropParameterTypes(0, 1);
+        }
+        if (implType.parameterCount() != samType.parameterCount()) {
+            throw new ReflectionException(member + " takes " + implType.parameterCount() + " arguments but "
+                    + functionalInterface.getName() + "." + sam.getName() + " passes " + samType.parameterCount());
+        }
+        MethodType instantiatedType = instantiate(samType, implType);
+        for (MethodHandles.Lookup lookup : candidateLookups(member)) {
+            try {
+                MethodHandle impl = member instanceof Method
+                        ? lookup.unreflect((Method) member)
+                        : lookup.unreflectConstructor((Constructor<?>) member);
+                CallSite site = LambdaMetafactory.metafactory(lookup, sam.getName(),
+                        factoryType, samType, impl, instantiatedType);
+                Object instance = receiver != null ? site.getTarget().invoke(receiver) : site.getTarget().invoke();
+                return functionalInterface.cast(instance);
+            } catch (VirtualMachineError e) {
+                throw e;
+            } catch (Throwable ignored) {
+                // Try the next lookup, and eventually the proxy below
+            }
+        }
+        try {
+            MethodHandle handle = receiver != null ? accessibleHandle.bindTo(receiver) : accessibleHandle;
+            return MethodHandleProxies.asInterfaceInstance(functionalInterface, handle);
+        } catch (RuntimeException e) {
+            throw new ReflectionException("Cannot implement " + functionalInterface.getName() + " with " + member, e);
+        }
+    }
+
+    private static List<MethodHandles.Lookup> candidateLookups(Executable member) {
+        List<MethodHandles.Lookup> lookups = new ArrayList<>(2);
+        try {
+            lookups.add(MethodHandleUtils.privateLookupIn(member.getDeclaringClass()));
+        } catch (ReflectionException ignored) {
+            // The declaring class is not open to us
+        }
+        if (Modifier.isPublic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers())) {
+            lookups.add(MethodHandles.lookup());
+        }
+        return lookups;
+    }
+
+    private static MethodType instantiate(MethodType samType, MethodType implType) {
+        Class<?>[] parameters = new Class<?>[samType.parameterCount()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = specialize(samType.parameterType(i), implType.parameterType(i));
+        }
+        Class<?> returnType = samType.returnType() == void.class
+                ? void.class
+                : specialize(samType.returnType(), implType.returnType());
+        return MethodType.methodType(returnType, parameters);
+    }
+
+    private static Class<?> specialize(Class<?> samType, Class<?> implType) {
+        if (samType.isPrimitive()) {
+            return samType;
+        }
+        if (implType.isPrimitive()) {
+            return TypeUtils.toWrapper(implType);
+        }
+        return samType.isAssignableFrom(implType) ? implType : samType;
+    }
+
+    static Method findSingleAbstractMethod(Class<?> functionalInterface) throws ReflectionException {
+        if (!functionalInterface.isInterface()) {
+            throw new ReflectionException(functionalInterface.getName() + " is not an interface.");
+        }
+        Method found = null;
+        for (Method method : functionalInterface.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            if (found != null && !(found.getName().equals(method.getName())
+                    && Arrays.equals(found.getParameterTypes(), method.getParameterTypes()))) {
+                throw new ReflectionException(functionalInterface.getName() + " has more than one abstract method.");
+            }
+            found = method;
+        }
+        if (found == null) {
+            throw new ReflectionException(functionalInterface.getName() + " has no abstract method.");
+        }
+        return found;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
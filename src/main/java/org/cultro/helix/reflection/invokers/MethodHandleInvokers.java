@@ -0,0 +1,122 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.metrics.InvocationStats;
+import org.cultro.helix.reflection.metrics.ReflectionMetrics;
+import org.cultro.helix.util.MethodHandleUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Builds {@link CompiledMethod} and {@link CompiledConstructor} instances on top of method handles
+ * adapted to a single {@code (Object, Object[])Object} shape, so every call is one {@code invokeExact}.
+ * Like {@link Method#invoke}, variable-arity members are invoked with their trailing array as is.
+ * Method calls are counted and sampled for {@link ReflectionMetrics} while it is enabled.
+ */
+final class MethodHandleInvokers {
+
+    private static final MethodType METHOD_SHAPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final MethodType CONSTRUCTOR_SHAPE = MethodType.methodType(Object.class, Object[].class);
+
+    private MethodHandleInvokers() {
+    }
+
+    static CompiledMethod compile(Method method) throws ReflectionException {
+        MethodHandle handle = MethodHandleUtils.unreflect(method).asFixedArity();
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(METHOD_SHAPE);
+        return new HandleMethod(handle, method);
+    }
+
+    static <T> CompiledConstructor<T> compile(Constructor<T> constructor) throws ReflectionException {
+        MethodHandle handle = MethodHandleUtils.unreflectConstructor(constructor)
+                .asFixedArity()
+                .asSpreader(Object[].class, constructor.getParameterCount())
+                .asType(CONSTRUCTOR_SHAPE);
+        return new HandleConstructor<>(handle, constructor);
+    }
+
+    private static final class HandleMethod implements CompiledMethod {
+        private final MethodHandle handle;
+        private final Method method;
+        private InvocationStats stats;
+
+        private HandleMethod(MethodHandle handle, Method method) {
+            this.handle = handle;
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(Object target, Object... args) throws ReflectionException {
+            if (ReflectionMetrics.isEnabled()) {
+                return invokeMeasured(target, args);
+            }
+            return invokeDirect(target, args);
+        }
+
+        private Object invokeMeasured(Object target, Object[] args) throws ReflectionException {
+            InvocationStats stats = this.stats;
+            if (stats == null) {
+                this.stats = stats = ReflectionMetrics.invocationStats(method);
+            }
+            if (!stats.sample()) {
+                return invokeDirect(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeDirect(target, args);
+            } finally {
+                stats.record(System.nanoTime() - start);
+            }
+        }
+
+        private Object invokeDirect(Object target, Object[] args) throws ReflectionException {
+            try {
+                return (Object) handle.invokeExact(target, args);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException("Failed to invoke method " + method.getName(), e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CompiledMethod{" + method + '}';
+        }
+    }
+
+    private static final class HandleConstructor<T> implements CompiledConstructor<T> {
+        private final MethodHandle handle;
+        private final Constructor<T> constructor;
+
+        private HandleConstructor(MethodHandle handle, Constructor<T> constructor) {
+            this.handle = handle;
+            this.constructor = constructor;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... args) throws ReflectionException {
+            try {
+                return (T) (Object) handle.invokeExact(args);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ReflectionException("Failed to create instance of class " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CompiledConstructor{" + constructor + '}';
+        }
+    }
+}
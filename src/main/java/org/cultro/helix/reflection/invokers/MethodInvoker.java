@@ -1,10 +1,12 @@
 package org.cultro.helix.reflection.invokers;
 
 import org.cultro.helix.lang.ReflectionException;
-import org.cultro.helix.util.ReflectionUtils;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Utility class to invoke methods via reflection.
@@ -13,6 +15,7 @@ public class MethodInvoker {
 
     /**
      * Invokes a method on the given object with specified arguments.
+     * The method is resolved once per argument shape and cached, see {@link CallSiteCache}.
      *
      * @param target     The object on which to invoke the method.
      * @param methodName The name of the method to invoke.
@@ -22,15 +25,88 @@ public class MethodInvoker {
      */
     public static Object invokeMethod(Object target, String methodName, Object... args) throws ReflectionException {
         Class<?> clazz = target.getClass();
-        Method method = ReflectionUtils.findMethod(clazz, methodName, args);
+        CompiledMethod method = CallSiteCache.resolveMethod(clazz, methodName, args);
         if (method == null) {
             throw new ReflectionException("Method " + methodName + " not found in class " + clazz.getName());
         }
-        try {
-            method.setAccessible(true);
-            return method.invoke(target, args);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new ReflectionException("Failed to invoke method " + methodName, e);
-        }
+        return method.invoke(target, args);
+    }
+
+    /**
+     * Resolves the method once into an invoker that skips access checks and argument validation on every call.
+     *
+     * @param method The method to compile.
+     * @return The compiled method.
+     * @throws ReflectionException If the method cannot be made accessible.
+     */
+    public static CompiledMethod compile(Method method) throws ReflectionException {
+        return MethodHandleInvokers.compile(method);
+    }
+
+    /**
+     * Compiles the method into an implementation of the given functional interface that calls it directly.
+     * For instance methods, the first parameter of the interface method receives the target object.
+     *
+     * @param method              The method to compile.
+     * @param functionalInterface The interface to implement.
+     * @param <F>                 The type of the interface.
+     * @return An instance of the interface calling the method.
+     * @throws ReflectionException If the shapes of method and interface do not match.
+     * @see LambdaFactory#create(Method, Class)
+     */
+    public static <F> F compile(Method method, Class<F> functionalInterface) throws ReflectionException {
+        return LambdaFactory.create(method, functionalInterface);
+    }
+
+    /**
+     * Compiles a no-argument instance method returning an {@code int} (or a narrower type) without boxing.
+     *
+     * @param method The method to compile.
+     * @param <T>    The type of the target object.
+     * @return A function calling the method on its argument.
+     * @throws ReflectionException If the method does not have this shape.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ToIntFunction<T> compileToInt(Method method) throws ReflectionException {
+        return LambdaFactory.create(method, ToIntFunction.class);
+    }
+
+    /**
+     * Compiles a no-argument instance method returning a {@code long} (or a narrower type) without boxing.
+     *
+     * @param method The method to compile.
+     * @param <T>    The type of the target object.
+     * @return A function calling the method on its argument.
+     * @throws ReflectionException If the method does not have this shape.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ToLongFunction<T> compileToLong(Method method) throws ReflectionException {
+        return LambdaFactory.create(method, ToLongFunction.class);
+    }
+
+    /**
+     * Compiles a no-argument instance method returning a {@code double} (or a narrower type) without boxing.
+     *
+     * @param method The method to compile.
+     * @param <T>    The type of the target object.
+     * @return A function calling the method on its argument.
+     * @throws ReflectionException If the method does not have this shape.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ToDoubleFunction<T> compileToDouble(Method method) throws ReflectionException {
+        return LambdaFactory.create(method, ToDoubleFunction.class);
+    }
+
+    /**
+     * Compiles a no-argument instance method returning a {@code boolean} without boxing.
+     *
+     * @param method The method to compile.
+     * @param <T>    The type of the target object.
+     * @return A predicate calling the method on its argument.
+     * @throws ReflectionException If the method does not have this shape.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Predicate<T> compileToBoolean(Method method) throws ReflectionException {
+        return LambdaFactory.create(method, Predicate.class);
     }
 }
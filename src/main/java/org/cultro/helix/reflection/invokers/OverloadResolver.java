@@ -0,0 +1,386 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.metadata.MethodMetadata;
+import org.cultro.helix.util.TypeUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the method or constructor a dynamic call binds to, following the phases of JLS 15.12.2 applied to the
+ * runtime classes of the arguments.
+ * <ol>
+ *     <li>Strict: arguments match by identity, subtyping or primitive widening, without boxing.</li>
+ *     <li>Loose: a boxed argument may also be unboxed and widened to a primitive parameter, and a primitive
+ *     argument type boxed to a reference parameter.</li>
+ *     <li>Varargs: variable-arity members may also take their trailing arguments one by one.</li>
+ * </ol>
+ * <p>
+ * The first phase with an applicable member decides, and among the applicable members of that phase the most
+ * specific one is chosen. Since reflective calls pass every argument boxed, a boxed argument prefers a parameter
+ * of its wrapper or a supertype over a primitive parameter. A null argument matches any reference parameter.
+ * </p>
+ * <p>
+ * Candidates are grouped once per class, name and arity, and every argument shape is resolved once and then
+ * answered from a hash lookup. Methods are looked up among the methods the class declares or inherits, as merged
+ * by {@link ClassMetadata#getAllMethods()}; constructors among the declared constructors. Like
+ * {@link CallSiteCache}, at most {@value #MAX_SHAPES} shapes are remembered per class and member name, and
+ * shapes with argument classes from a loader the class cannot see are resolved without being remembered.
+ * </p>
+ */
+public final class OverloadResolver {
+
+    private static final String CONSTRUCTOR = "<init>";
+    private static final Object NONE = new Object();
+
+    /**
+     * The number of argument shapes remembered per class and member name.
+     */
+    static final int MAX_SHAPES = 256;
+
+    private static final ClassValue<ConcurrentHashMap<String, OverloadSet>> OVERLOADS =
+            new ClassValue<ConcurrentHashMap<String, OverloadSet>>() {
+                @Override
+                protected ConcurrentHashMap<String, OverloadSet> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private OverloadResolver() {
+    }
+
+    /**
+     * Resolves the method a call with arguments of the given classes binds to.
+     *
+     * @param clazz         The class to call the method on.
+     * @param methodName    The name of the method.
+     * @param argumentTypes The classes of the arguments, with null entries for null arguments.
+     * @return The most specific applicable method, or null if none is applicable.
+     * @throws ReflectionException If several applicable methods are equally specific or the class cannot be inspected.
+     */
+    public static Method resolveMethod(Class<?> clazz, String methodName, Class<?>[] argumentTypes) throws ReflectionException {
+        return (Method) overloads(clazz, methodName).resolve(argumentTypes);
+    }
+
+    /**
+     * Resolves the constructor a call with arguments of the given classes binds to.
+     *
+     * @param clazz         The class to instantiate.
+     * @param argumentTypes The classes of the arguments, with null entries for null arguments.
+     * @param <T>           The type of the class.
+     * @return The most specific applicable constructor, or null if none is applicable.
+     * @throws ReflectionException If several applicable constructors are equally specific.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Constructor<T> resolveConstructor(Class<T> clazz, Class<?>[] argumentTypes) throws ReflectionException {
+        return (Constructor<T>) overloads(clazz, CONSTRUCTOR).resolve(argumentTypes);
+    }
+
+    /**
+     * Converts the arguments of a call to those the member is invoked with reflectively, collecting the trailing
+     * arguments of a variable-arity call into an array. Arguments that already fit the fixed arity are returned
+     * unchanged.
+     *
+     * @param executable The resolved method or constructor.
+     * @param args       The arguments of the call.
+     * @return The arguments to invoke the member with.
+     */
+    public static Object[] toInvocationArguments(Executable executable, Object[] args) {
+        if (!executable.isVarArgs()) {
+            return args;
+        }
+        Class<?>[] parameterTypes = executable.getParameterTypes();
+        int fixed = parameterTypes.length - 1;
+        if (args.length == parameterTypes.length && (args[fixed] == null || parameterTypes[fixed].isInstance(args[fixed]))) {
+            return args;
+        }
+        Class<?> componentType = parameterTypes[fixed].getComponentType();
+        Object varargs = Array.newInstance(componentType, args.length - fixed);
+        for (int i = fixed; i < args.length; i++) {
+            Array.set(varargs, i - fixed, args[i]);
+        }
+        Object[] invocation = Arrays.copyOf(args, parameterTypes.length);
+        invocation[fixed] = varargs;
+        return invocation;
+    }
+
+    private static OverloadSet overloads(Class<?> clazz, String name) throws ReflectionException {
+        ConcurrentHashMap<String, OverloadSet> sets = OVERLOADS.get(clazz);
+        OverloadSet set = sets.get(name);
+        if (set == null) {
+            set = new OverloadSet(clazz, name, candidates(clazz, name));
+            OverloadSet existing = sets.putIfAbsent(name, set);
+            if (existing != null) {
+                set = existing;
+            }
+        }
+        return set;
+    }
+
+    private static List<Executable> candidates(Class<?> clazz, String name) throws ReflectionException {
+        List<Executable> candidates = new ArrayList<>();
+        if (CONSTRUCTOR.equals(name)) {
+            candidates.addAll(Arrays.asList(clazz.getDeclaredConstructors()));
+            return candidates;
+        }
+        try {
+            for (MethodMetadata method : ClassMetadata.getCachedMetadata(clazz).getAllMethods()) {
+                if (method.getName().equals(name)) {
+                    candidates.add(method.getMethod());
+                }
+            }
+        } catch (MetadataException e) {
+            throw new ReflectionException("Failed to inspect methods of class " + clazz.getName(), e);
+        }
+        return candidates;
+    }
+
+    /**
+     * Whether an argument of the given class is applicable to a parameter without boxing.
+     */
+    private static boolean isStrict(Class<?> parameter, Class<?> argument) {
+        if (argument == null) {
+            return !parameter.isPrimitive();
+        }
+        if (argument.isPrimitive()) {
+            return TypeUtils.isPrimitiveWidening(argument, parameter);
+        }
+        return !parameter.isPrimitive() && parameter.isAssignableFrom(argument);
+    }
+
+    /**
+     * Whether an argument of the given class is applicable to a parameter, allowing boxing and unboxing.
+     */
+    private static boolean isLoose(Class<?> parameter, Class<?> argument) {
+        if (argument == null || isStrict(parameter, argument)) {
+            return isStrict(parameter, argument);
+        }
+        if (argument.isPrimitive()) {
+            return parameter.isAssignableFrom(TypeUtils.toWrapper(argument));
+        }
+        Class<?> primitive = TypeUtils.toPrimitive(argument);
+        return primitive != null && parameter.isPrimitive() && TypeUtils.isPrimitiveWidening(primitive, parameter);
+    }
+
+    /**
+     * Whether one parameter type is at least as specific as another: a subtype of it, or a primitive that widens
+     * to it.
+     */
+    private static boolean isSubtype(Class<?> type, Class<?> of) {
+        if (type == of) {
+            return true;
+        }
+        if (type.isPrimitive() || of.isPrimitive()) {
+            return type.isPrimitive() && of.isPrimitive() && TypeUtils.isPrimitiveWidening(type, of);
+        }
+        return of.isAssignableFrom(type);
+    }
+
+    /**
+     * The candidates of one class and name, grouped by arity, and the decisions made for argument shapes so far.
+     */
+    private static final class OverloadSet {
+
+        private final Class<?> type;
+        private final String name;
+        private final Map<Integer, Executable[]> byArity = new HashMap<>();
+        private final Executable[] variableArity;
+        private final ConcurrentHashMap<Shape, Object> decisions = new ConcurrentHashMap<>();
+
+        private OverloadSet(Class<?> type, String name, List<Executable> candidates) {
+            this.type = type;
+            this.name = name;
+            Map<Integer, List<Executable>> groups = new HashMap<>();
+            List<Executable> varargs = new ArrayList<>();
+            for (Executable candidate : candidates) {
+                groups.computeIfAbsent(candidate.getParameterCount(), key -> new ArrayList<>()).add(candidate);
+                if (candidate.isVarArgs()) {
+                    varargs.add(candidate);
+                }
+            }
+            for (Map.Entry<Integer, List<Executable>> group : groups.entrySet()) {
+                byArity.put(group.getKey(), group.getValue().toArray(new Executable[0]));
+            }
+            this.variableArity = varargs.toArray(new Executable[0]);
+        }
+
+        private Executable resolve(Class<?>[] argumentTypes) throws ReflectionException {
+            Shape shape = new Shape(argumentTypes);
+            Object decision = decisions.get(shape);
+            if (decision == null) {
+                decision = decide(argumentTypes);
+                if (decisions.size() < MAX_SHAPES && CallSiteCache.isCacheable(type, argumentTypes)) {
+                    Object existing = decisions.putIfAbsent(shape, decision);
+                    if (existing != null) {
+                        decision = existing;
+                    }
+                }
+            }
+            if (decision instanceof ReflectionException) {
+                ReflectionException ambiguity = (ReflectionException) decision;
+                throw new ReflectionException(ambiguity.getMessage());
+            }
+            return decision == NONE ? null : (Executable) decision;
+        }
+
+        private Object decide(Class<?>[] argumentTypes) {
+            Executable[] fixed = byArity.get(argumentTypes.length);
+            if (fixed != null) {
+                List<Executable> strict = new ArrayList<>();
+                List<Executable> loose = new ArrayList<>();
+                for (Executable candidate : fixed) {
+                    Class<?>[] parameters = candidate.getParameterTypes();
+                    if (applies(parameters, argumentTypes, true)) {
+                        strict.add(candidate);
+                    } else if (applies(parameters, argumentTypes, false)) {
+                        loose.add(candidate);
+                    }
+                }
+                if (!strict.isEmpty()) {
+                    return mostSpecific(strict, argumentTypes.length, false);
+                }
+                if (!loose.isEmpty()) {
+                    return mostSpecific(loose, argumentTypes.length, false);
+                }
+            }
+            List<Executable> variable = new ArrayList<>();
+            for (Executable candidate : variableArity) {
+                if (appliesVariableArity(candidate.getParameterTypes(), argumentTypes)) {
+                    variable.add(candidate);
+                }
+            }
+            return variable.isEmpty() ? NONE : mostSpecific(variable, argumentTypes.length, true);
+        }
+
+        private static boolean applies(Class<?>[] parameters, Class<?>[] arguments, boolean strict) {
+            for (int i = 0; i < parameters.length; i++) {
+                if (strict ? !isStrict(parameters[i], arguments[i]) : !isLoose(parameters[i], arguments[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean appliesVariableArity(Class<?>[] parameters, Class<?>[] arguments) {
+            int fixed = parameters.length - 1;
+            if (arguments.length < fixed) {
+                return false;
+            }
+            for (int i = 0; i < fixed; i++) {
+                if (!isLoose(parameters[i], arguments[i])) {
+                    return false;
+                }
+            }
+            Class<?> componentType = parameters[fixed].getComponentType();
+            for (int i = fixed; i < arguments.length; i++) {
+                if (!isLoose(componentType, arguments[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Picks the candidate that is more specific than all others, or reports the ambiguity.
+         */
+        private Object mostSpecific(List<Executable> candidates, int arity, boolean variableArity) {
+            if (candidates.size() == 1) {
+                return candidates.get(0);
+            }
+            List<Executable> maximal = new ArrayList<>();
+            for (Executable candidate : candidates) {
+                Class<?>[] parameters = parameterTypes(candidate, arity, variableArity);
+                boolean specific = true;
+                for (Executable other : candidates) {
+                    if (other != candidate && !isMoreSpecific(parameters, parameterTypes(other, arity, variableArity))) {
+                        specific = false;
+                        break;
+                    }
+                }
+                if (specific) {
+                    maximal.add(candidate);
+                }
+            }
+            if (maximal.size() == 1) {
+                return maximal.get(0);
+            }
+            StringBuilder message = new StringBuilder("Ambiguous call to ")
+                    .append(CONSTRUCTOR.equals(name) ? "constructor" : "method " + name)
+                    .append(" of ").append(type.getName()).append(", candidates:");
+            for (Executable candidate : maximal.isEmpty() ? candidates : maximal) {
+                message.append(' ').append(candidate.toGenericString()).append(';');
+            }
+            message.setLength(message.length() - 1);
+            return new ReflectionException(message.toString());
+        }
+
+        /**
+         * Returns the parameter types of a candidate, expanded to the arity of the call for variable-arity calls.
+         */
+        private static Class<?>[] parameterTypes(Executable candidate, int arity, boolean variableArity) {
+            Class<?>[] parameters = candidate.getParameterTypes();
+            if (!variableArity) {
+                return parameters;
+            }
+            Class<?>[] expanded = new Class<?>[Math.max(arity, parameters.length - 1)];
+            int fixed = parameters.length - 1;
+            System.arraycopy(parameters, 0, expanded, 0, Math.min(fixed, expanded.length));
+            for (int i = fixed; i < expanded.length; i++) {
+                expanded[i] = parameters[fixed].getComponentType();
+            }
+            return expanded;
+        }
+
+        private static boolean isMoreSpecific(Class<?>[] parameters, Class<?>[] others) {
+            int length = Math.min(parameters.length, others.length);
+            for (int i = 0; i < length; i++) {
+                if (!isSubtype(parameters[i], others[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The classes of the arguments of a call, compared by identity.
+     */
+    private static final class Shape {
+
+        private final Class<?>[] argumentTypes;
+        private final int hash;
+
+        private Shape(Class<?>[] argumentTypes) {
+            this.argumentTypes = argumentTypes;
+            this.hash = Arrays.hashCode(argumentTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Shape)) {
+                return false;
+            }
+            Shape other = (Shape) o;
+            return hash == other.hash && Arrays.equals(argumentTypes, other.argumentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
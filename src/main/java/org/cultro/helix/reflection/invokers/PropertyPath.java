@@ -0,0 +1,288 @@
+package org.cultro.helix.reflection.invokers;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A property path such as {@code customer.addresses[0].city} or {@code settings['max-size']}, parsed once into a
+ * chain of steps that is evaluated against object graphs.
+ * <p>
+ * A property step reads the field with that name, declared by the class of the current object or one of its
+ * superclasses; on a {@link Map}, it looks up the name as a key. Every property step keeps an inline cache of the
+ * last class it saw and the compiled field it resolved to, so evaluating a path against objects of the same
+ * classes is one class comparison and one compiled field read per step. An index step {@code [n]} reads an
+ * element of an array or {@link List}, or the value of the {@link Integer} key {@code n} of a map; a quoted
+ * index {@code ['key']} or {@code ["key"]} reads the value of a string key.
+ * </p>
+ * <p>
+ * Navigation is null-safe: when a step yields null, the whole path evaluates to null. Paths are immutable and
+ * safe for concurrent use.
+ * </p>
+ * <pre>{@code
+ * PropertyPath city = PropertyPath.compile("customer.addresses[0].city");
+ * Object value = city.getValue(order);
+ * }</pre>
+ */
+public final class PropertyPath {
+
+    private final String expression;
+    private final Step[] steps;
+
+    private PropertyPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Parses a property path.
+     *
+     * @param expression The path, made of property names separated by dots, each followed by any number of
+     *                   indexes in brackets.
+     * @return The compiled path.
+     * @throws IllegalArgumentException If the expression is malformed.
+     */
+    public static PropertyPath compile(String expression) {
+        Validate.notNull(expression, "Expression cannot be null");
+        return new PropertyPath(expression, new Parser(expression).parse());
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates the path against an object.
+     *
+     * @param root The object the path starts at.
+     * @return The value at the end of the path, or null if the root or any intermediate value is null.
+     * @throws ReflectionException If a property does not exist, an index is out of range or a step does not fit
+     *                             the value it is applied to.
+     */
+    public Object getValue(Object root) throws ReflectionException {
+        Object current = root;
+        for (Step step : steps) {
+            if (current == null) {
+                return null;
+            }
+            current = step.apply(current);
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private abstract static class Step {
+
+        final String expression;
+
+        Step(String expression) {
+            this.expression = expression;
+        }
+
+        abstract Object apply(Object target) throws ReflectionException;
+
+        ReflectionException error(String message) {
+            return new ReflectionException(message + " in path '" + expression + "'");
+        }
+    }
+
+    /**
+     * Reads a field, or a map value by name, caching the field resolved for the last class seen.
+     */
+    private static final class PropertyStep extends Step {
+
+        private final String name;
+        private CachedField cache;
+
+        private PropertyStep(String expression, String name) {
+            super(expression);
+            this.name = name;
+        }
+
+        @Override
+        Object apply(Object target) throws ReflectionException {
+            Class<?> type = target.getClass();
+            CachedField cached = cache;
+            if (cached == null || cached.type != type) {
+                if (target instanceof Map) {
+                    return ((Map<?, ?>) target).get(name);
+                }
+                cached = new CachedField(type, resolve(type));
+                cache = cached;
+            }
+            return cached.field.get(target);
+        }
+
+        private CompiledField resolve(Class<?> type) throws ReflectionException {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                CompiledField field = FieldLayout.of(current).getDeclaredField(name);
+                if (field != null) {
+                    return field;
+                }
+            }
+            throw error("No property '" + name + "' in class " + type.getName());
+        }
+    }
+
+    /**
+     * The class a property step last saw and the field it resolved to, published together.
+     */
+    private static final class CachedField {
+
+        private final Class<?> type;
+        private final CompiledField field;
+
+        private CachedField(Class<?> type, CompiledField field) {
+            this.type = type;
+            this.field = field;
+        }
+    }
+
+    private static final class IndexStep extends Step {
+
+        private final int index;
+        private final Integer key;
+
+        private IndexStep(String expression, int index) {
+            super(expression);
+            this.index = index;
+            this.key = index;
+        }
+
+        @Override
+        Object apply(Object target) throws ReflectionException {
+            if (target instanceof Object[]) {
+                Object[] array = (Object[]) target;
+                if (index >= array.length) {
+                    throw outOfRange(array.length);
+                }
+                return array[index];
+            } else if (target instanceof List) {
+                List<?> list = (List<?>) target;
+                if (index >= list.size()) {
+                    throw outOfRange(list.size());
+                }
+                return list.get(index);
+            } else if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(key);
+            } else if (target.getClass().isArray()) {
+                int length = Array.getLength(target);
+                if (index >= length) {
+                    throw outOfRange(length);
+                }
+                return Array.get(target, index);
+            }
+            throw error("Cannot index " + target.getClass().getName() + " with [" + index + "]");
+        }
+
+        private ReflectionException outOfRange(int size) {
+            return error("Index " + index + " out of range for size " + size);
+        }
+    }
+
+    private static final class KeyStep extends Step {
+
+        private final String key;
+
+        private KeyStep(String expression, String key) {
+            super(expression);
+            this.key = key;
+        }
+
+        @Override
+        Object apply(Object target) throws ReflectionException {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(key);
+            }
+            throw error("Cannot look up key '" + key + "' in " + target.getClass().getName());
+        }
+    }
+
+    /**
+     * Splits an expression into steps.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private final List<Step> steps = new ArrayList<>();
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Step[] parse() {
+            while (true) {
+                steps.add(new PropertyStep(text, name()));
+                while (position < text.length() && text.charAt(position) == '[') {
+                    position++;
+                    steps.add(index());
+                    expect(']');
+                }
+                if (position == text.length()) {
+                    return steps.toArray(new Step[0]);
+                }
+                expect('.');
+            }
+        }
+
+        private String name() {
+            int start = position;
+            if (position < text.length() && Character.isJavaIdentifierStart(text.charAt(position))) {
+                position++;
+                while (position < text.length() && Character.isJavaIdentifierPart(text.charAt(position))) {
+                    position++;
+                }
+            }
+            if (start == position) {
+                throw malformed("a property name");
+            }
+            return text.substring(start, position);
+        }
+
+        private Step index() {
+            if (position < text.length() && (text.charAt(position) == '\'' || text.charAt(position) == '"')) {
+                char quote = text.charAt(position++);
+                int end = text.indexOf(quote, position);
+                if (end < 0) {
+                    throw malformed("a closing " + quote);
+                }
+                String key = text.substring(position, end);
+                position = end + 1;
+                return new KeyStep(text, key);
+            }
+            int start = position;
+            while (position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+                position++;
+            }
+            if (start == position) {
+                throw malformed("an index");
+            }
+            try {
+                return new IndexStep(text, Integer.parseInt(text.substring(start, position)));
+            } catch (NumberFormatException e) {
+                throw malformed("an index that fits an int");
+            }
+        }
+
+        private void expect(char c) {
+            if (position >= text.length() || text.charAt(position) != c) {
+                throw malformed("'" + c + "'");
+            }
+            position++;
+        }
+
+        private IllegalArgumentException malformed(String expected) {
+            return new IllegalArgumentException("Expected " + expected + " at position " + position
+                    + " of property path '" + text + "'");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.cultro.helix.reflection.mapping;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.util.TypeUtils;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Mapper} that runs a copy plan built from the {@link FieldLayout}s of both classes.
+ * <p>
+ * The plan is built on first use rather than on creation, so that mappers of classes that refer to each other
+ * can be created while their plans are being built. Copying an object is a loop over the plan without any
+ * lookups.
+ * </p>
+ *
+ * @param <A> The source type.
+ * @param <B> The target type.
+ */
+final class CompiledMapper<A, B> implements Mapper<A, B> {
+
+    private static final PropertyCopier[] EMPTY = new PropertyCopier[0];
+
+    private final Class<A> sourceType;
+    private final Class<B> targetType;
+    private volatile PropertyCopier[] plan;
+    private volatile CompiledConstructor<B> constructor;
+
+    CompiledMapper(Class<A> sourceType, Class<B> targetType) {
+        this.sourceType = sourceType;
+        this.targetType = targetType;
+    }
+
+    @Override
+    public Class<A> getSourceType() {
+        return sourceType;
+    }
+
+    @Override
+    public Class<B> getTargetType() {
+        return targetType;
+    }
+
+    @Override
+    public List<String> getMappedFields() throws ReflectionException {
+        PropertyCopier[] copiers = plan();
+        List<String> names = new ArrayList<>(copiers.length);
+        for (PropertyCopier copier : copiers) {
+            names.add(copier.target.getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public B map(A source) throws ReflectionException {
+        if (source == null) {
+            return null;
+        }
+        CompiledConstructor<B> compiled = constructor;
+        if (compiled == null) {
+            compiled = ConstructorInvoker.compile(targetType);
+            constructor = compiled;
+        }
+        B target = compiled.newInstance();
+        map(source, target);
+        return target;
+    }
+
+    @Override
+    public void map(A source, B target) throws ReflectionException {
+        Validate.notNull(source, "Source cannot be null");
+        Validate.notNull(target, "Target cannot be null");
+        for (PropertyCopier copier : plan()) {
+            copier.copy(source, target);
+        }
+    }
+
+    private PropertyCopier[] plan() throws ReflectionException {
+        PropertyCopier[] result = plan;
+        if (result == null) {
+            result = buildPlan();
+            plan = result;
+        }
+        return result;
+    }
+
+    /**
+     * Matches every non-final instance field of the target with the source field of the same name, the one
+     * declared lowest in the hierarchy if several are, and picks how to copy it from the two field types.
+     * Fields without a usable match are left out.
+     */
+    private PropertyCopier[] buildPlan() {
+        Map<String, CompiledField> sources = new HashMap<>();
+        for (CompiledField field : FieldLayout.of(sourceType).getInstanceFields()) {
+            sources.put(field.getName(), field);
+        }
+        List<PropertyCopier> copiers = new ArrayList<>();
+        for (CompiledField target : FieldLayout.of(targetType).getInstanceFields()) {
+            CompiledField source = sources.get(target.getName());
+            if (source == null || Modifier.isFinal(target.getField().getModifiers())) {
+                continue;
+            }
+            PropertyCopier copier = copier(source, target);
+            if (copier != null) {
+                copiers.add(copier);
+            }
+        }
+        return copiers.toArray(EMPTY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PropertyCopier copier(CompiledField source, CompiledField target) {
+        Class<?> from = source.getType();
+        Class<?> to = target.getType();
+        if (from == to && from.isPrimitive()) {
+            return PropertyCopier.primitive(source, target);
+        }
+        if (to.isAssignableFrom(from) || (to.isPrimitive() && TypeUtils.toWrapper(to) == from)) {
+            return new PropertyCopier.ValueCopier(source, target);
+        }
+        Conversions.Conversion conversion = Conversions.find(from, to);
+        if (conversion != null) {
+            return new PropertyCopier.ConvertingCopier(source, target, conversion);
+        }
+        if (isBean(from) && isBean(to)) {
+            return new PropertyCopier.NestedCopier(source, target, (Mapper<Object, Object>) Mappers.get(from, to));
+        }
+        return null;
+    }
+
+    /**
+     * Whether objects of the type are mapped field by field when nested: concrete classes outside the JDK.
+     */
+    private static boolean isBean(Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface()
+                || Modifier.isAbstract(type.getModifiers())) {
+            return false;
+        }
+        String name = type.getName();
+        return !name.startsWith("java.") && !name.startsWith("javax.");
+    }
+
+    @Override
+    public String toString() {
+        return "Mapper{" + sourceType.getName() + " -> " + targetType.getName() + '}';
+    }
+}
@@ -0,0 +1,166 @@
+package org.cultro.helix.reflection.mapping;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.util.TypeUtils;
+
+/**
+ * The value conversions a {@link Mapper} applies between fields of different types: to and from strings,
+ * between enums by constant name and widening between numeric types, boxed or not.
+ */
+final class Conversions {
+
+    /**
+     * A conversion of non-null values from one type to another.
+     */
+    interface Conversion {
+
+        Object convert(Object value) throws ReflectionException;
+    }
+
+    private static final int BYTE = 0;
+    private static final int SHORT = 1;
+    private static final int CHAR = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int FLOAT = 5;
+    private static final int DOUBLE = 6;
+
+    private static final Conversion TO_STRING = value -> value instanceof Enum ? ((Enum<?>) value).name() : String.valueOf(value);
+
+    private Conversions() {
+    }
+
+    /**
+     * Finds the conversion from one field type to another.
+     *
+     * @param from The source field type.
+     * @param to   The target field type.
+     * @return The conversion, or null if values of the source type cannot be converted.
+     */
+    static Conversion find(Class<?> from, Class<?> to) {
+        Class<?> source = wrap(from);
+        Class<?> target = wrap(to);
+        if (target == String.class) {
+            return TO_STRING;
+        }
+        if (target.isEnum()) {
+            if (source == String.class) {
+                return value -> toEnum(target, (String) value);
+            }
+            if (source.isEnum()) {
+                return value -> toEnum(target, ((Enum<?>) value).name());
+            }
+            return null;
+        }
+        if (source == String.class) {
+            return parser(target);
+        }
+        int fromRank = rank(source);
+        int toRank = rank(target);
+        if (fromRank < 0 || toRank < 0 || !widens(fromRank, toRank)) {
+            return null;
+        }
+        return value -> widen(value, toRank);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String name) throws ReflectionException {
+        try {
+            return Enum.valueOf((Class<? extends Enum>) type, name);
+        } catch (IllegalArgumentException e) {
+            throw new ReflectionException("No constant " + name + " in " + type.getName(), e);
+        }
+    }
+
+    private static Conversion parser(Class<?> type) {
+        if (type == Character.class) {
+            return value -> {
+                String string = (String) value;
+                if (string.length() != 1) {
+                    throw new ReflectionException("Cannot convert \"" + string + "\" to a char");
+                }
+                return string.charAt(0);
+            };
+        }
+        if (type == Boolean.class || rank(type) >= 0) {
+            return value -> parse(value, type);
+        }
+        return null;
+    }
+
+    private static Object parse(Object value, Class<?> type) throws ReflectionException {
+        String string = ((String) value).trim();
+        try {
+            if (type == Integer.class) {
+                return Integer.valueOf(string);
+            } else if (type == Long.class) {
+                return Long.valueOf(string);
+            } else if (type == Double.class) {
+                return Double.valueOf(string);
+            } else if (type == Float.class) {
+                return Float.valueOf(string);
+            } else if (type == Short.class) {
+                return Short.valueOf(string);
+            } else if (type == Byte.class) {
+                return Byte.valueOf(string);
+            }
+            return Boolean.valueOf(string);
+        } catch (NumberFormatException e) {
+            throw new ReflectionException("Cannot convert \"" + string + "\" to " + type.getSimpleName(), e);
+        }
+    }
+
+    private static int rank(Class<?> wrapper) {
+        if (wrapper == Byte.class) {
+            return BYTE;
+        } else if (wrapper == Short.class) {
+            return SHORT;
+        } else if (wrapper == Character.class) {
+            return CHAR;
+        } else if (wrapper == Integer.class) {
+            return INT;
+        } else if (wrapper == Long.class) {
+            return LONG;
+        } else if (wrapper == Float.class) {
+            return FLOAT;
+        } else if (wrapper == Double.class) {
+            return DOUBLE;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a primitive widening conversion (JLS 5.1.2) exists between the ranks, or they are equal.
+     */
+    private static boolean widens(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        if (to == CHAR || from > to) {
+            return false;
+        }
+        return to != SHORT || from == BYTE;
+    }
+
+    private static Object widen(Object value, int rank) {
+        long integral = value instanceof Character ? (Character) value : ((Number) value).longValue();
+        switch (rank) {
+            case SHORT:
+                return (short) integral;
+            case INT:
+                return (int) integral;
+            case LONG:
+                return integral;
+            case FLOAT:
+                return value instanceof Float ? value : (float) integral;
+            case DOUBLE:
+                return value instanceof Float || value instanceof Double ? ((Number) value).doubleValue() : (double) integral;
+            default:
+                return value;
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? TypeUtils.toWrapper(type) : type;
+    }
+}
@@ -0,0 +1,46 @@
+package org.cultro.helix.reflection.mapping;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.util.List;
+
+/**
+ * Copies the properties of objects of one class onto objects of another, matching fields by name.
+ *
+ * @param <A> The source type.
+ * @param <B> The target type.
+ * @see Mappers#get(Class, Class)
+ */
+public interface Mapper<A, B> {
+
+    Class<A> getSourceType();
+
+    Class<B> getTargetType();
+
+    /**
+     * Returns the names of the target fields this mapper writes.
+     *
+     * @return The mapped field names, in the order they are copied.
+     * @throws ReflectionException If the copy plan cannot be built.
+     */
+    List<String> getMappedFields() throws ReflectionException;
+
+    /**
+     * Creates a new target object with the no-argument constructor and copies the source onto it.
+     *
+     * @param source The object to copy from.
+     * @return The new target object, or null if the source is null.
+     * @throws ReflectionException If the target cannot be instantiated or a field cannot be copied.
+     */
+    B map(A source) throws ReflectionException;
+
+    /**
+     * Copies the source onto an existing target object. Target fields without a matching source field keep
+     * their values.
+     *
+     * @param source The object to copy from.
+     * @param target The object to copy to.
+     * @throws ReflectionException If a field cannot be copied.
+     */
+    void map(A source, B target) throws ReflectionException;
+}
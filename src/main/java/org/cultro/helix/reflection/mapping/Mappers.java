@@ -0,0 +1,81 @@
+package org.cultro.helix.reflection.mapping;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates and caches {@link Mapper}s, one per pair of source and target class.
+ * <p>
+ * A mapper matches fields by name across the whole class hierarchy of both classes and copies each pair in the
+ * cheapest way the field types allow:
+ * </p>
+ * <ul>
+ *     <li>fields of the same primitive type are copied without boxing,</li>
+ *     <li>assignable values, including boxed to primitive, are copied as they are,</li>
+ *     <li>values are converted to strings, parsed from strings, converted between enums by constant name and
+ *     widened between numeric types,</li>
+ *     <li>other objects of application classes are mapped recursively with the mapper of their field types.</li>
+ * </ul>
+ * <p>
+ * Final target fields and fields without a compatible source field are not written. Object graphs with cycles
+ * through nested mapped fields are not supported.
+ * </p>
+ */
+public final class Mappers {
+
+    private static final ClassValue<ConcurrentHashMap<Class<?>, Mapper<?, ?>>> MAPPERS =
+            new ClassValue<ConcurrentHashMap<Class<?>, Mapper<?, ?>>>() {
+                @Override
+                protected ConcurrentHashMap<Class<?>, Mapper<?, ?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private Mappers() {
+    }
+
+    /**
+     * Returns the mapper between two classes, creating it on first request. Its copy plan is compiled the first
+     * time it maps an object.
+     *
+     * @param sourceType The class to copy from.
+     * @param targetType The class to copy to.
+     * @param <A>        The source type.
+     * @param <B>        The target type.
+     * @return The cached mapper.
+     */
+    @SuppressWarnings("unchecked")
+    public static <A, B> Mapper<A, B> get(Class<A> sourceType, Class<B> targetType) {
+        Validate.notNull(sourceType, "Source type cannot be null");
+        Validate.notNull(targetType, "Target type cannot be null");
+        ConcurrentHashMap<Class<?>, Mapper<?, ?>> mappers = MAPPERS.get(sourceType);
+        Mapper<?, ?> mapper = mappers.get(targetType);
+        if (mapper == null) {
+            mapper = new CompiledMapper<>(sourceType, targetType);
+            Mapper<?, ?> existing = mappers.putIfAbsent(targetType, mapper);
+            if (existing != null) {
+                mapper = existing;
+            }
+        }
+        return (Mapper<A, B>) mapper;
+    }
+
+    /**
+     * Maps an object to a new instance of the target class with the cached mapper of its runtime class.
+     *
+     * @param source     The object to copy from.
+     * @param targetType The class to create.
+     * @param <B>        The target type.
+     * @return The new object, or null if the source is null.
+     * @throws ReflectionException If the target cannot be instantiated or a field cannot be copied.
+     */
+    @SuppressWarnings("unchecked")
+    public static <B> B map(Object source, Class<B> targetType) throws ReflectionException {
+        if (source == null) {
+            return null;
+        }
+        return get((Class<Object>) source.getClass(), targetType).map(source);
+    }
+}
@@ -0,0 +1,205 @@
+package org.cultro.helix.reflection.mapping;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+
+/**
+ * One step of a copy plan: reads a field of the source and writes a field of the target. Fields of the same
+ * primitive type are copied through the typed accessors of {@link CompiledField}, so they are never boxed.
+ */
+abstract class PropertyCopier {
+
+    final CompiledField source;
+    final CompiledField target;
+
+    PropertyCopier(CompiledField source, CompiledField target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    abstract void copy(Object from, Object to) throws ReflectionException;
+
+    /**
+     * Creates the copier for two fields of the same primitive type.
+     */
+    static PropertyCopier primitive(CompiledField source, CompiledField target) {
+        Class<?> type = target.getType();
+        if (type == int.class) {
+            return new IntCopier(source, target);
+        } else if (type == long.class) {
+            return new LongCopier(source, target);
+        } else if (type == double.class) {
+            return new DoubleCopier(source, target);
+        } else if (type == boolean.class) {
+            return new BooleanCopier(source, target);
+        } else if (type == float.class) {
+            return new FloatCopier(source, target);
+        } else if (type == char.class) {
+            return new CharCopier(source, target);
+        } else if (type == short.class) {
+            return new ShortCopier(source, target);
+        }
+        return new ByteCopier(source, target);
+    }
+
+    /**
+     * Copies a value that the target field accepts as is, widening boxed primitives where needed. Nulls are not
+     * written to primitive fields.
+     */
+    static final class ValueCopier extends PropertyCopier {
+
+        private final boolean primitiveTarget;
+
+        ValueCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+            this.primitiveTarget = target.getType().isPrimitive();
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            Object value = source.get(from);
+            if (value != null || !primitiveTarget) {
+                target.set(to, value);
+            }
+        }
+    }
+
+    /**
+     * Copies a value through a conversion. Nulls are copied to reference fields without conversion.
+     */
+    static final class ConvertingCopier extends PropertyCopier {
+
+        private final Conversions.Conversion conversion;
+        private final boolean primitiveTarget;
+
+        ConvertingCopier(CompiledField source, CompiledField target, Conversions.Conversion conversion) {
+            super(source, target);
+            this.conversion = conversion;
+            this.primitiveTarget = target.getType().isPrimitive();
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            Object value = source.get(from);
+            if (value != null) {
+                target.set(to, conversion.convert(value));
+            } else if (!primitiveTarget) {
+                target.set(to, null);
+            }
+        }
+    }
+
+    /**
+     * Maps a nested object to a new instance of the target field type.
+     */
+    static final class NestedCopier extends PropertyCopier {
+
+        private final Mapper<Object, Object> mapper;
+
+        NestedCopier(CompiledField source, CompiledField target, Mapper<Object, Object> mapper) {
+            super(source, target);
+            this.mapper = mapper;
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.set(to, mapper.map(source.get(from)));
+        }
+    }
+
+    private static final class IntCopier extends PropertyCopier {
+
+        IntCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setInt(to, source.getInt(from));
+        }
+    }
+
+    private static final class LongCopier extends PropertyCopier {
+
+        LongCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setLong(to, source.getLong(from));
+        }
+    }
+
+    private static final class DoubleCopier extends PropertyCopier {
+
+        DoubleCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setDouble(to, source.getDouble(from));
+        }
+    }
+
+    private static final class FloatCopier extends PropertyCopier {
+
+        FloatCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setFloat(to, source.getFloat(from));
+        }
+    }
+
+    private static final class BooleanCopier extends PropertyCopier {
+
+        BooleanCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setBoolean(to, source.getBoolean(from));
+        }
+    }
+
+    private static final class CharCopier extends PropertyCopier {
+
+        CharCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setChar(to, source.getChar(from));
+        }
+    }
+
+    private static final class ShortCopier extends PropertyCopier {
+
+        ShortCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setShort(to, source.getShort(from));
+        }
+    }
+
+    private static final class ByteCopier extends PropertyCopier {
+
+        ByteCopier(CompiledField source, CompiledField target) {
+            super(source, target);
+        }
+
+        @Override
+        void copy(Object from, Object to) throws ReflectionException {
+            target.setByte(to, source.getByte(from));
+        }
+    }
+}
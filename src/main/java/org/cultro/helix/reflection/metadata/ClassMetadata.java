@@ -3,56 +3,425 @@ package org.cultro.helix.reflection.metadata;
 import org.cultro.helix.lang.MetadataException;
 import org.cultro.helix.lang.ReflectionException;
 import org.cultro.helix.reflection.cache.ReflectionCache;
+import org.cultro.helix.reflection.metrics.ReflectionMetrics;
 import org.cultro.helix.util.ReflectionUtils;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents metadata of a class, including its fields, methods, and constructors.
+ * <p>
+ * Member metadata is built lazily, separately for fields, methods and constructors, the first time it is
+ * requested, so metadata that is only used for one kind of member never pays for the others. Instances are
+ * safe for concurrent use; concurrent first accesses may build a list twice but always publish one of them.
+ * </p>
+ * <p>
+ * The hierarchy views ({@link #getAllFields()}, {@link #getFieldLayout()}, {@link #getAllMethods()}) are built
+ * from the cached metadata of the superclass and interfaces, so every class in a hierarchy is inspected once no
+ * matter how many subclasses ask for inherited members.
+ * </p>
  */
 public class ClassMetadata {
 
     private final Class<?> clazz;
-    private final List<FieldMetadata> fields;
-    private final List<MethodMetadata> methods;
-    private final List<ConstructorMetadata> constructors;
+    private volatile List<FieldMetadata> fields;
+    private volatile List<MethodMetadata> methods;
+    private volatile List<ConstructorMetadata> constructors;
+    private volatile Map<String, FieldMetadata> fieldsByName;
+    private volatile Map<String, List<MethodMetadata>> methodsByName;
+    private volatile List<ClassMetadata> interfaceMetadata;
+    private volatile List<FieldMetadata> allFields;
+    private volatile List<FieldMetadata> fieldLayout;
+    private volatile Map<String, MethodMetadata> allMethods;
+    private volatile Set<String> bridgeSignatures;
 
     /**
-     * Constructs ClassMetadata for the given class.
+     * Constructs ClassMetadata for the given class. Member metadata is retrieved on first access.
      *
      * @param clazz The class to retrieve metadata for.
      * @throws ReflectionException If metadata retrieval fails.
      */
     public ClassMetadata(Class<?> clazz) throws ReflectionException, MetadataException {
         this.clazz = clazz;
-        this.fields = ReflectionUtils.getFieldMetadata(clazz);
-        this.methods = ReflectionUtils.getMethodMetadata(clazz);
-        this.constructors = ReflectionUtils.getConstructorMetadata(clazz);
     }
 
     public Class<?> getClazz() {
         return clazz;
     }
 
+    /**
+     * Returns the metadata of the fields declared by the class.
+     *
+     * @return An unmodifiable list of field metadata.
+     * @throws IllegalStateException If the fields cannot be inspected.
+     */
     public List<FieldMetadata> getFields() {
-        return fields;
+        List<FieldMetadata> result = fields;
+        if (result == null) {
+            long start = ReflectionMetrics.start();
+            try {
+                result = Collections.unmodifiableList(ReflectionUtils.getFieldMetadata(clazz));
+            } catch (MetadataException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } finally {
+                ReflectionMetrics.recordMetadataBuild(start);
+            }
+            fields = result;
+        }
+        return result;
     }
 
+    /**
+     * Returns the metadata of the methods declared by the class.
+     *
+     * @return An unmodifiable list of method metadata.
+     * @throws IllegalStateException If the methods cannot be inspected.
+     */
     public List<MethodMetadata> getMethods() {
-        return methods;
+        List<MethodMetadata> result = methods;
+        if (result == null) {
+            long start = ReflectionMetrics.start();
+            try {
+                result = Collections.unmodifiableList(ReflectionUtils.getMethodMetadata(clazz));
+            } catch (MetadataException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } finally {
+                ReflectionMetrics.recordMetadataBuild(start);
+            }
+            methods = result;
+        }
+        return result;
     }
 
+    /**
+     * Returns the metadata of the constructors declared by the class.
+     *
+     * @return An unmodifiable list of constructor metadata.
+     * @throws IllegalStateException If the constructors cannot be inspected.
+     */
     public List<ConstructorMetadata> getConstructors() {
-        return constructors;
+        List<ConstructorMetadata> result = constructors;
+        if (result == null) {
+            long start = ReflectionMetrics.start();
+            try {
+                result = Collections.unmodifiableList(ReflectionUtils.getConstructorMetadata(clazz));
+            } catch (ReflectionException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            } finally {
+                ReflectionMetrics.recordMetadataBuild(start);
+            }
+            constructors = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the metadata of the field declared by the class with the given name.
+     *
+     * @param name The name of the field.
+     * @return The field metadata, or null if the class declares no such field.
+     */
+    public FieldMetadata getField(String name) {
+        Map<String, FieldMetadata> index = fieldsByName;
+        if (index == null) {
+            List<FieldMetadata> list = getFields();
+            index = new HashMap<>(list.size() * 2);
+            for (FieldMetadata field : list) {
+                index.put(field.getName(), field);
+            }
+            fieldsByName = index;
+        }
+        return index.get(name);
+    }
+
+    /**
+     * Returns the metadata of all methods declared by the class with the given name, one per overload.
+     *
+     * @param name The name of the methods.
+     * @return An unmodifiable list of method metadata, empty if the class declares no such method.
+     */
+    public List<MethodMetadata> getMethods(String name) {
+        Map<String, List<MethodMetadata>> index = methodsByName;
+        if (index == null) {
+            List<MethodMetadata> list = getMethods();
+            index = new HashMap<>(list.size() * 2);
+            for (MethodMetadata method : list) {
+                index.computeIfAbsent(method.getName(), key -> new ArrayList<>(1)).add(method);
+            }
+            for (Map.Entry<String, List<MethodMetadata>> entry : index.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            methodsByName = index;
+        }
+        List<MethodMetadata> result = index.get(name);
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    /**
+     * Returns the cached metadata of the superclass.
+     *
+     * @return The superclass metadata, or null for interfaces, primitives and {@code Object}.
+     */
+    public ClassMetadata getSuperclassMetadata() {
+        Class<?> superclass = clazz.getSuperclass();
+        return superclass == null ? null : cached(superclass);
+    }
+
+    /**
+     * Returns the cached metadata of the interfaces the class directly implements or extends.
+     *
+     * @return An unmodifiable list of interface metadata, in declaration order.
+     */
+    public List<ClassMetadata> getInterfaceMetadata() {
+        List<ClassMetadata> result = interfaceMetadata;
+        if (result == null) {
+            Class<?>[] interfaces = clazz.getInterfaces();
+            List<ClassMetadata> list = new ArrayList<>(interfaces.length);
+            for (Class<?> type : interfaces) {
+                list.add(cached(type));
+            }
+            result = Collections.unmodifiableList(list);
+            interfaceMetadata = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the fields of the class and all its supertypes: those of the superclass hierarchy first, then
+     * interface constants, then the fields declared by the class. Shadowed fields are included.
+     *
+     * @return An unmodifiable list of field metadata.
+     */
+    public List<FieldMetadata> getAllFields() {
+        List<FieldMetadata> result = allFields;
+        if (result == null) {
+            Set<FieldMetadata> fields = new LinkedHashSet<>();
+            ClassMetadata superclass = getSuperclassMetadata();
+            if (superclass != null) {
+                fields.addAll(superclass.getAllFields());
+            }
+            for (ClassMetadata type : getInterfaceMetadata()) {
+                fields.addAll(type.getAllFields());
+            }
+            fields.addAll(getFields());
+            result = Collections.unmodifiableList(new ArrayList<>(fields));
+            allFields = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the instance fields an object of the class consists of, superclass fields first.
+     *
+     * @return An unmodifiable list of field metadata.
+     */
+    public List<FieldMetadata> getFieldLayout() {
+        List<FieldMetadata> result = fieldLayout;
+        if (result == null) {
+            ClassMetadata superclass = getSuperclassMetadata();
+            List<FieldMetadata> inherited = superclass != null ? superclass.getFieldLayout() : Collections.emptyList();
+            List<FieldMetadata> declared = getFields();
+            long start = ReflectionMetrics.start();
+            List<FieldMetadata> list = new ArrayList<>(inherited);
+            for (FieldMetadata field : declared) {
+                if (!Modifier.isStatic(field.getField().getModifiers())) {
+                    list.add(field);
+                }
+            }
+            result = Collections.unmodifiableList(list);
+            ReflectionMetrics.recordMetadataBuild(start);
+            fieldLayout = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the methods that can be invoked on the class, one per signature: the methods it declares, the
+     * methods inherited from its superclasses that it does not override, and the interface methods, including
+     * defaults, that no class in the hierarchy implements. As in method resolution, class methods take precedence
+     * over interface methods and default methods over abstract ones. Bridge methods, private methods of
+     * supertypes and static methods of interfaces are left out; static methods of superclasses are included, as
+     * they can be invoked through the class.
+     *
+     * @return An unmodifiable list of method metadata.
+     */
+    public List<MethodMetadata> getAllMethods() {
+        return Collections.unmodifiableList(new ArrayList<>(allMethods().values()));
+    }
+
+    /**
+     * Returns the methods of the supertypes that the given method of this class overrides or implements,
+     * including those only reached through one of its bridge methods, as for generic interface methods. Static
+     * and private methods override nothing, and package-private methods are only overridden from the same package.
+     *
+     * @param method A method declared by this class.
+     * @return The overridden methods, nearest supertypes first.
+     */
+    public List<MethodMetadata> getOverriddenMethods(MethodMetadata method) {
+        int modifiers = method.getMethod().getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) {
+            return Collections.emptyList();
+        }
+        List<String> signatures = new ArrayList<>();
+        signatures.add(signature(method.getMethod()));
+        for (MethodMetadata candidate : getMethods(method.getName())) {
+            Method bridge = candidate.getMethod();
+            if (bridge.isBridge() && isBridgeFor(bridge, method.getMethod())) {
+                signatures.add(signature(bridge));
+            }
+        }
+        List<MethodMetadata> overridden = new ArrayList<>();
+        List<ClassMetadata> supertypes = new ArrayList<>();
+        ClassMetadata superclass = getSuperclassMetadata();
+        if (superclass != null) {
+            supertypes.add(superclass);
+        }
+        supertypes.addAll(getInterfaceMetadata());
+        for (ClassMetadata supertype : supertypes) {
+            for (String signature : signatures) {
+                MethodMetadata inherited = supertype.allMethods().get(signature);
+                if (inherited != null && isOverridable(inherited.getMethod()) && !overridden.contains(inherited)) {
+                    overridden.add(inherited);
+                }
+            }
+        }
+        return overridden;
+    }
+
+    private boolean isOverridable(Method inherited) {
+        int modifiers = inherited.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) {
+            return false;
+        } else if (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)) {
+            return true;
+        }
+        Class<?> declaringClass = inherited.getDeclaringClass();
+        return declaringClass.getClassLoader() == clazz.getClassLoader()
+                && packageName(declaringClass).equals(packageName(clazz));
+    }
+
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(0, index);
+    }
+
+    private Map<String, MethodMetadata> allMethods() {
+        Map<String, MethodMetadata> result = allMethods;
+        if (result == null) {
+            // Supertypes are merged first, so the time recorded for this class covers only its own merge
+            List<MethodMetadata> declared = getMethods();
+            ClassMetadata superclass = getSuperclassMetadata();
+            Map<String, MethodMetadata> inherited = superclass != null ? superclass.allMethods() : Collections.emptyMap();
+            List<Map<String, MethodMetadata>> interfaces = new ArrayList<>();
+            for (ClassMetadata type : getInterfaceMetadata()) {
+                interfaces.add(type.allMethods());
+            }
+            Set<String> bridges = bridgeSignatures();
+            long start = ReflectionMetrics.start();
+            Map<String, MethodMetadata> merged = new LinkedHashMap<>();
+            for (MethodMetadata method : declared) {
+                if (!method.getMethod().isBridge()) {
+                    merged.put(signature(method.getMethod()), method);
+                }
+            }
+            for (Map.Entry<String, MethodMetadata> entry : inherited.entrySet()) {
+                if (!Modifier.isPrivate(entry.getValue().getMethod().getModifiers())) {
+                    merged.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+            for (Map<String, MethodMetadata> interfaceMethods : interfaces) {
+                for (Map.Entry<String, MethodMetadata> entry : interfaceMethods.entrySet()) {
+                    Method method = entry.getValue().getMethod();
+                    if (Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+                        continue;
+                    }
+                    MethodMetadata present = merged.get(entry.getKey());
+                    if (present == null && bridges.contains(entry.getKey())) {
+                        continue;
+                    }
+                    if (present == null || (present.getMethod().getDeclaringClass().isInterface()
+                            && Modifier.isAbstract(present.getMethod().getModifiers()) && method.isDefault())) {
+                        merged.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            result = merged;
+            ReflectionMetrics.recordMetadataBuild(start);
+            allMethods = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the signatures implemented by bridge methods of the class and its superclasses, which hide the
+     * erased interface methods they implement.
+     */
+    private Set<String> bridgeSignatures() {
+        Set<String> result = bridgeSignatures;
+        if (result == null) {
+            result = new HashSet<>();
+            ClassMetadata superclass = getSuperclassMetadata();
+            if (superclass != null) {
+                result.addAll(superclass.bridgeSignatures());
+            }
+            for (MethodMetadata method : getMethods()) {
+                if (method.getMethod().isBridge()) {
+                    result.add(signature(method.getMethod()));
+                }
+            }
+            bridgeSignatures = result;
+        }
+        return result;
+    }
+
+    private static boolean isBridgeFor(Method bridge, Method target) {
+        if (target.isBridge() || bridge.getParameterCount() != target.getParameterCount()) {
+            return false;
+        }
+        Class<?>[] bridgeTypes = bridge.getParameterTypes();
+        Class<?>[] targetTypes = target.getParameterTypes();
+        for (int i = 0; i < bridgeTypes.length; i++) {
+            if (!bridgeTypes[i].isAssignableFrom(targetTypes[i])) {
+                return false;
+            }
+        }
+        return bridge.getReturnType().isAssignableFrom(target.getReturnType());
+    }
+
+    private static String signature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        for (Class<?> type : method.getParameterTypes()) {
+            signature.append(type.getName()).append(',');
+        }
+        return signature.append(')').toString();
+    }
+
+    private static ClassMetadata cached(Class<?> type) {
+        try {
+            return getCachedMetadata(type);
+        } catch (ReflectionException | MetadataException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
     }
 
     @Override
     public String toString() {
         return "ClassMetadata{" +
                 "clazz=" + clazz.getName() +
-                ", fields=" + fields +
-                ", methods=" + methods +
-                ", constructors=" + constructors +
+                ", fields=" + getFields() +
+                ", methods=" + getMethods() +
+                ", constructors=" + getConstructors() +
                 '}';
     }
 
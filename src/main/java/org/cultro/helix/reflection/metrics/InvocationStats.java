@@ -0,0 +1,100 @@
+package org.cultro.helix.reflection.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The live call statistics of one method, updated by the invokers while {@link ReflectionMetrics} is enabled.
+ * <p>
+ * Every call is counted; whether a call is timed is decided by a thread-local random number, so sampling needs
+ * no shared state. Sampled latencies go into a histogram with one bucket per power of two nanoseconds, from which
+ * percentiles are estimated to within a factor of two.
+ * </p>
+ */
+public final class InvocationStats {
+
+    private static final int BUCKETS = 64;
+
+    private final Method method;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    InvocationStats(Method method) {
+        this.method = method;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Counts a call and decides whether to time it.
+     *
+     * @return Whether the caller should time the call and {@link #record(long) record} its latency.
+     */
+    public boolean sample() {
+        invocations.increment();
+        return (ThreadLocalRandom.current().nextInt() & ReflectionMetrics.sampleMask()) == 0;
+    }
+
+    /**
+     * Records the latency of a sampled call.
+     *
+     * @param nanos The duration of the call in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        samples.increment();
+        sampledNanos.add(value);
+        maxNanos.accumulate(value);
+        histogram.incrementAndGet(value == 0L ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(value));
+    }
+
+    void reset() {
+        invocations.reset();
+        samples.reset();
+        sampledNanos.reset();
+        maxNanos.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0L);
+        }
+    }
+
+    MethodLatency snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        long sampleCount = samples.sum();
+        return new MethodLatency(method, invocations.sum(), sampleCount, sampledNanos.sum(), maxNanos.get(),
+                percentile(counts, 0.5), percentile(counts, 0.99));
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the histogram bucket it falls into.
+     */
+    private static long percentile(long[] counts, double quantile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,78 @@
+package org.cultro.helix.reflection.metrics;
+
+import java.lang.reflect.Method;
+
+/**
+ * The call statistics of one method at the time of a {@link MetricsSnapshot}. Latencies are derived from the
+ * sampled calls only; percentiles are upper bounds within a factor of two.
+ */
+public final class MethodLatency {
+
+    private final Method method;
+    private final long invocations;
+    private final long samples;
+    private final long sampledNanos;
+    private final long maxNanos;
+    private final long medianNanos;
+    private final long p99Nanos;
+
+    MethodLatency(Method method, long invocations, long samples, long sampledNanos, long maxNanos, long medianNanos, long p99Nanos) {
+        this.method = method;
+        this.invocations = invocations;
+        this.samples = samples;
+        this.sampledNanos = sampledNanos;
+        this.maxNanos = maxNanos;
+        this.medianNanos = medianNanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public double getMeanNanos() {
+        return samples == 0 ? 0.0 : (double) sampledNanos / samples;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMedianNanos() {
+        return medianNanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * Estimates the time spent in the method across all calls, sampled or not.
+     *
+     * @return The mean sampled latency times the number of calls, in nanoseconds.
+     */
+    public double getEstimatedTotalNanos() {
+        return getMeanNanos() * invocations;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodLatency{" +
+                "method=" + method.getDeclaringClass().getName() + '.' + method.getName() +
+                ", invocations=" + invocations +
+                ", samples=" + samples +
+                ", meanNanos=" + Math.round(getMeanNanos()) +
+                ", medianNanos<=" + medianNanos +
+                ", p99Nanos<=" + p99Nanos +
+                ", maxNanos=" + maxNanos +
+                '}';
+    }
+}
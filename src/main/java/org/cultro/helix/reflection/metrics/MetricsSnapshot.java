@@ -0,0 +1,131 @@
+package org.cultro.helix.reflection.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable copy of the values recorded by {@link ReflectionMetrics}.
+ */
+public final class MetricsSnapshot {
+
+    private final long metadataBuilds;
+    private final long metadataBuildNanos;
+    private final long classCacheHits;
+    private final long classCacheMisses;
+    private final long fieldCacheHits;
+    private final long fieldCacheMisses;
+    private final long methodCacheHits;
+    private final long methodCacheMisses;
+    private final long resolutions;
+    private final long resolutionNanos;
+    private final long scans;
+    private final long scannedClasses;
+    private final long scanNanos;
+    private final List<MethodLatency> methodLatencies;
+
+    MetricsSnapshot(long metadataBuilds, long metadataBuildNanos, long classCacheHits, long classCacheMisses,
+                    long fieldCacheHits, long fieldCacheMisses, long methodCacheHits, long methodCacheMisses,
+                    long resolutions, long resolutionNanos, long scans, long scannedClasses, long scanNanos,
+                    List<MethodLatency> methodLatencies) {
+        this.metadataBuilds = metadataBuilds;
+        this.metadataBuildNanos = metadataBuildNanos;
+        this.classCacheHits = classCacheHits;
+        this.classCacheMisses = classCacheMisses;
+        this.fieldCacheHits = fieldCacheHits;
+        this.fieldCacheMisses = fieldCacheMisses;
+        this.methodCacheHits = methodCacheHits;
+        this.methodCacheMisses = methodCacheMisses;
+        this.resolutions = resolutions;
+        this.resolutionNanos = resolutionNanos;
+        this.scans = scans;
+        this.scannedClasses = scannedClasses;
+        this.scanNanos = scanNanos;
+        List<MethodLatency> sorted = new ArrayList<>(methodLatencies);
+        sorted.sort(Comparator.comparingDouble(MethodLatency::getEstimatedTotalNanos).reversed());
+        this.methodLatencies = Collections.unmodifiableList(sorted);
+    }
+
+    public long getMetadataBuilds() {
+        return metadataBuilds;
+    }
+
+    public long getMetadataBuildNanos() {
+        return metadataBuildNanos;
+    }
+
+    public long getClassCacheHits() {
+        return classCacheHits;
+    }
+
+    public long getClassCacheMisses() {
+        return classCacheMisses;
+    }
+
+    public long getFieldCacheHits() {
+        return fieldCacheHits;
+    }
+
+    public long getFieldCacheMisses() {
+        return fieldCacheMisses;
+    }
+
+    public long getMethodCacheHits() {
+        return methodCacheHits;
+    }
+
+    public long getMethodCacheMisses() {
+        return methodCacheMisses;
+    }
+
+    /**
+     * @return The number of name-based calls resolved to a compiled member.
+     */
+    public long getResolutions() {
+        return resolutions;
+    }
+
+    public long getResolutionNanos() {
+        return resolutionNanos;
+    }
+
+    public long getScans() {
+        return scans;
+    }
+
+    public long getScannedClasses() {
+        return scannedClasses;
+    }
+
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    /**
+     * Returns the call statistics of the methods called through compiled invokers, the methods with the most
+     * estimated total time first.
+     *
+     * @return An unmodifiable list of method statistics.
+     */
+    public List<MethodLatency> getMethodLatencies() {
+        return methodLatencies;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "metadataBuilds=" + metadataBuilds +
+                ", metadataBuildNanos=" + metadataBuildNanos +
+                ", classCache=" + classCacheHits + '/' + classCacheMisses +
+                ", fieldCache=" + fieldCacheHits + '/' + fieldCacheMisses +
+                ", methodCache=" + methodCacheHits + '/' + methodCacheMisses +
+                ", resolutions=" + resolutions +
+                ", resolutionNanos=" + resolutionNanos +
+                ", scans=" + scans +
+                ", scannedClasses=" + scannedClasses +
+                ", scanNanos=" + scanNanos +
+                ", methods=" + methodLatencies.size() +
+                '}';
+    }
+}
@@ -0,0 +1,266 @@
+package org.cultro.helix.reflection.metrics;
+
+import org.cultro.helix.lang.Validate;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of the reflection layer, for finding reflection hot spots in production without a
+ * profiler.
+ * <p>
+ * While disabled, which is the default, every hook costs a single volatile read. Once {@link #enable() enabled},
+ * the following is recorded:
+ * </p>
+ * <ul>
+ *     <li>lazy builds of the members, field layouts and merged methods of {@code ClassMetadata}, and the time
+ *     they took,</li>
+ *     <li>hits and misses of the class, field and method metadata caches of {@code ReflectionCacheManager},</li>
+ *     <li>resolutions of name-based calls by {@code CallSiteCache}, and the time they took,</li>
+ *     <li>class path scans by {@code ClassScanner}, the classes they found, and the time they took,</li>
+ *     <li>the number of calls of every compiled method, and the latency of a sample of them.</li>
+ * </ul>
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent updates do not contend. Sampling keeps the cost of timing off
+ * most calls; the latency of one in {@code sampleRate} calls per method is measured. Methods compiled into
+ * functional interfaces by {@code LambdaFactory} bypass the invoker and are not timed. The statistics of a method
+ * are held through its declaring class, so they do not keep unloaded classes alive.
+ * </p>
+ * <pre>{@code
+ * ReflectionMetrics.enable(64);
+ * ...
+ * MetricsSnapshot snapshot = ReflectionMetrics.snapshot();
+ * snapshot.getMethodLatencies().stream().limit(10).forEach(System.out::println);
+ * }</pre>
+ */
+public final class ReflectionMetrics {
+
+    private static volatile boolean enabled;
+    private static volatile int sampleMask = 63;
+
+    private static final LongAdder METADATA_BUILDS = new LongAdder();
+    private static final LongAdder METADATA_BUILD_NANOS = new LongAdder();
+    private static final LongAdder CLASS_LOOKUPS = new LongAdder();
+    private static final LongAdder CLASS_MISSES = new LongAdder();
+    private static final LongAdder FIELD_HITS = new LongAdder();
+    private static final LongAdder FIELD_MISSES = new LongAdder();
+    private static final LongAdder METHOD_HITS = new LongAdder();
+    private static final LongAdder METHOD_MISSES = new LongAdder();
+    private static final LongAdder RESOLUTIONS = new LongAdder();
+    private static final LongAdder RESOLUTION_NANOS = new LongAdder();
+    private static final LongAdder SCANS = new LongAdder();
+    private static final LongAdder SCANNED_CLASSES = new LongAdder();
+    private static final LongAdder SCAN_NANOS = new LongAdder();
+    private static final ClassValue<ConcurrentHashMap<Method, InvocationStats>> INVOCATIONS =
+            new ClassValue<ConcurrentHashMap<Method, InvocationStats>>() {
+                @Override
+                protected ConcurrentHashMap<Method, InvocationStats> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+    private static final Map<InvocationStats, Boolean> ALL_INVOCATIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ReflectionMetrics() {
+    }
+
+    /**
+     * Starts recording, timing one in 64 calls of every compiled method.
+     */
+    public static void enable() {
+        enable(64);
+    }
+
+    /**
+     * Starts recording.
+     *
+     * @param sampleRate Time one in this many calls of every compiled method, rounded up to a power of two.
+     */
+    public static void enable(int sampleRate) {
+        Validate.isPositive(sampleRate, "Sample rate must be positive");
+        sampleMask = sampleRate == 1 ? 0 : (Integer.highestOneBit(sampleRate - 1) << 1) - 1;
+        enabled = true;
+    }
+
+    /**
+     * Stops recording. The values recorded so far are kept until {@link #reset()}.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets all counters and latencies back to zero.
+     */
+    public static void reset() {
+        METADATA_BUILDS.reset();
+        METADATA_BUILD_NANOS.reset();
+        CLASS_LOOKUPS.reset();
+        CLASS_MISSES.reset();
+        FIELD_HITS.reset();
+        FIELD_MISSES.reset();
+        METHOD_HITS.reset();
+        METHOD_MISSES.reset();
+        RESOLUTIONS.reset();
+        RESOLUTION_NANOS.reset();
+        SCANS.reset();
+        SCANNED_CLASSES.reset();
+        SCAN_NANOS.reset();
+        for (InvocationStats stats : allInvocations()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Returns a copy of the values recorded so far. Counters updated concurrently may be slightly out of step
+     * with each other.
+     *
+     * @return The snapshot.
+     */
+    public static MetricsSnapshot snapshot() {
+        List<MethodLatency> latencies = new ArrayList<>();
+        for (InvocationStats stats : allInvocations()) {
+            MethodLatency latency = stats.snapshot();
+            if (latency.getInvocations() > 0) {
+                latencies.add(latency);
+            }
+        }
+        long misses = CLASS_MISSES.sum();
+        return new MetricsSnapshot(METADATA_BUILDS.sum(), METADATA_BUILD_NANOS.sum(), Math.max(0, CLASS_LOOKUPS.sum() - misses), misses,
+                FIELD_HITS.sum(), FIELD_MISSES.sum(), METHOD_HITS.sum(), METHOD_MISSES.sum(),
+                RESOLUTIONS.sum(), RESOLUTION_NANOS.sum(), SCANS.sum(), SCANNED_CLASSES.sum(), SCAN_NANOS.sum(),
+                latencies);
+    }
+
+    /**
+     * Returns the current time for a measured operation, or 0 while disabled.
+     *
+     * @return The value to pass to the matching {@code record} method.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records that {@code ClassMetadata} was looked up in the reflection cache.
+     */
+    public static void recordClassLookup() {
+        if (enabled) {
+            CLASS_LOOKUPS.increment();
+        }
+    }
+
+    /**
+     * Records that the reflection cache created {@code ClassMetadata}, which is a miss of the class cache.
+     */
+    public static void recordClassMiss() {
+        if (enabled) {
+            CLASS_MISSES.increment();
+        }
+    }
+
+    /**
+     * Records that {@code ClassMetadata} built a part of its metadata on first access.
+     *
+     * @param start The value returned by {@link #start()} before the build.
+     */
+    public static void recordMetadataBuild(long start) {
+        if (enabled) {
+            METADATA_BUILDS.increment();
+            METADATA_BUILD_NANOS.add(elapsed(start));
+        }
+    }
+
+    /**
+     * Records a lookup in the field metadata cache.
+     *
+     * @param hit Whether the field was cached.
+     */
+    public static void recordFieldLookup(boolean hit) {
+        if (enabled) {
+            (hit ? FIELD_HITS : FIELD_MISSES).increment();
+        }
+    }
+
+    /**
+     * Records a lookup in the method metadata cache.
+     *
+     * @param hit Whether the method was cached.
+     */
+    public static void recordMethodLookup(boolean hit) {
+        if (enabled) {
+            (hit ? METHOD_HITS : METHOD_MISSES).increment();
+        }
+    }
+
+    /**
+     * Records the resolution of a name-based call to a compiled member.
+     *
+     * @param start The value returned by {@link #start()} before the resolution.
+     */
+    public static void recordResolution(long start) {
+        if (enabled) {
+            RESOLUTIONS.increment();
+            RESOLUTION_NANOS.add(elapsed(start));
+        }
+    }
+
+    /**
+     * Records a scan for the classes of a package.
+     *
+     * @param start   The value returned by {@link #start()} before the scan.
+     * @param classes The number of classes found.
+     */
+    public static void recordScan(long start, int classes) {
+        if (enabled) {
+            SCANS.increment();
+            SCANNED_CLASSES.add(classes);
+            SCAN_NANOS.add(elapsed(start));
+        }
+    }
+
+    /**
+     * Returns the statistics of a method that invokers record its calls in. The same instance is returned for
+     * every call with the same method, so invokers may keep it.
+     *
+     * @param method The invoked method.
+     * @return The statistics of the method.
+     */
+    public static InvocationStats invocationStats(Method method) {
+        ConcurrentHashMap<Method, InvocationStats> invocations = INVOCATIONS.get(method.getDeclaringClass());
+        InvocationStats stats = invocations.get(method);
+        if (stats == null) {
+            stats = new InvocationStats(method);
+            InvocationStats existing = invocations.putIfAbsent(method, stats);
+            if (existing != null) {
+                stats = existing;
+            } else {
+                ALL_INVOCATIONS.put(stats, Boolean.TRUE);
+            }
+        }
+        return stats;
+    }
+
+    private static List<InvocationStats> allInvocations() {
+        synchronized (ALL_INVOCATIONS) {
+            return new ArrayList<>(ALL_INVOCATIONS.keySet());
+        }
+    }
+
+    static int sampleMask() {
+        return sampleMask;
+    }
+
+    private static long elapsed(long start) {
+        return start == 0L ? 0L : System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,110 @@
+package org.cultro.helix.reflection.proxies;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.util.MethodHandleUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the methods of a proxied type to method handles that call them on a target, built once per type and
+ * cached in a {@link ClassValue}.
+ * <p>
+ * Every handle is adapted to the shape {@code (Object target, Object[] args)Object}, so dispatching a proxied call
+ * is one map lookup and one {@code invokeExact}. Exceptions thrown by the target reach the caller of the proxy
+ * unchanged. Tables of interfaces also cover {@code equals}, {@code hashCode} and {@code toString}, the
+ * {@link Object} methods that {@link java.lang.reflect.Proxy} forwards to its handler.
+ * </p>
+ */
+public final class DispatchTable {
+
+    private static final MethodType SHAPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final Method[] OBJECT_METHODS;
+
+    private static final ClassValue<DispatchTable> TABLES = new ClassValue<DispatchTable>() {
+        @Override
+        protected DispatchTable computeValue(Class<?> type) {
+            return new DispatchTable(type);
+        }
+    };
+
+    static {
+        try {
+            OBJECT_METHODS = new Method[]{
+                    Object.class.getMethod("equals", Object.class),
+                    Object.class.getMethod("hashCode"),
+                    Object.class.getMethod("toString")
+            };
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<Method, MethodHandle> handles;
+
+    private DispatchTable(Class<?> type) {
+        Method[] methods = type.getMethods();
+        Map<Method, MethodHandle> table = new HashMap<>((methods.length + OBJECT_METHODS.length) * 2);
+        for (Method method : methods) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                register(table, method);
+            }
+        }
+        if (type.isInterface()) {
+            for (Method method : OBJECT_METHODS) {
+                register(table, method);
+            }
+        }
+        this.handles = table;
+    }
+
+    /**
+     * Returns the dispatch table of the type, building it on first use.
+     *
+     * @param type The proxied type, usually an interface.
+     * @return The dispatch table of the type.
+     */
+    public static DispatchTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /**
+     * Calls the method on the target. Methods missing from the table, for example because they could not be
+     * made accessible when it was built, are invoked reflectively.
+     *
+     * @param target The object to call the method on.
+     * @param method The method, as passed to an {@link java.lang.reflect.InvocationHandler}.
+     * @param args   The arguments, or null if there are none.
+     * @return The result of the method.
+     * @throws Throwable Whatever the method throws.
+     */
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        MethodHandle handle = handles.get(method);
+        if (handle != null) {
+            return (Object) handle.invokeExact(target, args);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException("Error invoking method " + method.getName(), e);
+        }
+    }
+
+    private static void register(Map<Method, MethodHandle> table, Method method) {
+        try {
+            MethodHandle handle = MethodHandleUtils.unreflect(method)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(SHAPE);
+            table.put(method, handle);
+        } catch (ReflectionException ignored) {
+            // Left to the reflective fallback in invoke
+        }
+    }
+}
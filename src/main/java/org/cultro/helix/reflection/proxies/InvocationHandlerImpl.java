@@ -1,19 +1,31 @@
 package org.cultro.helix.reflection.proxies;
 
-import org.cultro.helix.lang.ReflectionException;
-
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 
 /**
  * Implementation of InvocationHandler to handle method calls on proxy instances.
+ * Calls are dispatched through the {@link DispatchTable} of the proxied interface.
  */
 public class InvocationHandlerImpl implements InvocationHandler {
 
     private final Object target;
+    private final DispatchTable table;
 
     public InvocationHandlerImpl(Object target) {
         this.target = target;
+        this.table = null;
+    }
+
+    /**
+     * Creates a handler whose dispatch table is resolved up front instead of on the first call.
+     *
+     * @param target         The object to delegate to.
+     * @param interfaceClass The proxied interface.
+     */
+    public InvocationHandlerImpl(Object target, Class<?> interfaceClass) {
+        this.target = target;
+        this.table = DispatchTable.of(interfaceClass);
     }
 
     /**
@@ -23,14 +35,11 @@ public class InvocationHandlerImpl implements InvocationHandler {
      * @param method The method being invoked.
      * @param args   The arguments passed to the method.
      * @return The result of the method invocation.
-     * @throws Throwable If an error occurs during method invocation.
+     * @throws Throwable The exception thrown by the target method, unchanged.
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        try {
-            return method.invoke(target, args);
-        } catch (Exception e) {
-            throw new ReflectionException("Error invoking method " + method.getName(), e);
-        }
+        DispatchTable dispatchTable = table != null ? table : DispatchTable.of(method.getDeclaringClass());
+        return dispatchTable.invoke(target, method, args);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package org.cultro.helix.reflection.proxies;
 
 import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.LambdaFactory;
 
 import java.lang.reflect.Proxy;
 
@@ -23,11 +24,30 @@ public class ProxyFactory {
         if (!interfaceClass.isInterface()) {
             throw new ReflectionException(interfaceClass.getName() + " is not an interface.");
         }
-        InvocationHandlerImpl handler = new InvocationHandlerImpl(target);
+        InvocationHandlerImpl handler = new InvocationHandlerImpl(target, interfaceClass);
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
                 new Class<?>[]{interfaceClass},
                 handler
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a delegating instance of the interface without {@link Proxy} where possible, for interfaces on
+     * hot paths. Functional interfaces are implemented by a class generated through
+     * {@link LambdaFactory#delegate(Class, Object)} that calls the target directly, so {@code equals},
+     * {@code hashCode} and {@code toString} are not forwarded. Other interfaces get a regular proxy.
+     *
+     * @param interfaceClass The interface to implement.
+     * @param target         The target object implementing the interface.
+     * @param <T>            The type of the interface.
+     * @return An instance implementing the specified interface.
+     * @throws ReflectionException If creation fails.
+     */
+    public static <T> T createGeneratedProxy(Class<T> interfaceClass, T target) throws ReflectionException {
+        if (LambdaFactory.isFunctionalInterface(interfaceClass)) {
+            return LambdaFactory.delegate(interfaceClass, target);
+        }
+        return createProxy(interfaceClass, target);
+    }
+}
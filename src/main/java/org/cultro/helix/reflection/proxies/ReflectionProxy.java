@@ -12,9 +12,16 @@ import java.lang.reflect.Proxy;
 public class ReflectionProxy implements InvocationHandler {
 
     private final Object target;
+    private final DispatchTable table;
 
     public ReflectionProxy(Object target) {
         this.target = target;
+        this.table = null;
+    }
+
+    private ReflectionProxy(Object target, Class<?> interfaceClass) {
+        this.target = target;
+        this.table = DispatchTable.of(interfaceClass);
     }
 
     /**
@@ -31,7 +38,7 @@ public class ReflectionProxy implements InvocationHandler {
         if (!interfaceClass.isInterface()) {
             throw new ReflectionException(interfaceClass.getName() + " is not an interface.");
         }
-        ReflectionProxy handler = new ReflectionProxy(target);
+        ReflectionProxy handler = new ReflectionProxy(target, interfaceClass);
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
                 new Class<?>[]{interfaceClass},
@@ -41,6 +48,7 @@ public class ReflectionProxy implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        return method.invoke(target, args);
+        DispatchTable dispatchTable = table != null ? table : DispatchTable.of(method.getDeclaringClass());
+        return dispatchTable.invoke(target, method, args);
     }
 }
@@ -0,0 +1,257 @@
+package org.cultro.helix.reflection.scanners;
+
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.classfile.ClassFileInfo;
+import org.cultro.helix.reflection.classfile.ClassFileReader;
+
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An index of annotations and type hierarchy built from class files, without loading any class.
+ * <p>
+ * The index answers which classes, methods and fields carry an annotation and which classes extend or implement
+ * a type, by name. Only runtime-visible annotations are indexed, exactly those that reflection would see after
+ * loading. Classes can be loaded afterwards for the results that are actually needed.
+ * </p>
+ */
+public final class AnnotationIndex {
+
+    private final TreeMap<String, ClassFileInfo> classes = new TreeMap<>();
+    private final Map<String, List<String>> annotatedClasses = new HashMap<>();
+    private final Map<String, List<IndexedMember>> annotatedMethods = new HashMap<>();
+    private final Map<String, List<IndexedMember>> annotatedFields = new HashMap<>();
+    private final Map<String, List<String>> directSubtypes = new HashMap<>();
+
+    /**
+     * Creates an index over the given class files.
+     *
+     * @param classFiles The parsed class files.
+     */
+    public AnnotationIndex(Collection<ClassFileInfo> classFiles) {
+        for (ClassFileInfo info : classFiles) {
+            classes.putIfAbsent(info.getClassName(), info);
+        }
+        for (ClassFileInfo info : classes.values()) {
+            String className = info.getClassName();
+            for (String annotation : info.getAnnotations()) {
+                annotatedClasses.computeIfAbsent(annotation, key -> new ArrayList<>()).add(className);
+            }
+            for (ClassFileInfo.MemberInfo method : info.getMethods()) {
+                for (String annotation : method.getAnnotations()) {
+                    annotatedMethods.computeIfAbsent(annotation, key -> new ArrayList<>())
+                            .add(new IndexedMember(className, method.getName(), method.getDescriptor()));
+                }
+            }
+            for (ClassFileInfo.MemberInfo field : info.getFields()) {
+                for (String annotation : field.getAnnotations()) {
+                    annotatedFields.computeIfAbsent(annotation, key -> new ArrayList<>())
+                            .add(new IndexedMember(className, field.getName(), field.getDescriptor()));
+                }
+            }
+            if (info.getSuperclassName() != null) {
+                directSubtypes.computeIfAbsent(info.getSuperclassName(), key -> new ArrayList<>()).add(className);
+            }
+            for (String interfaceName : info.getInterfaceNames()) {
+                directSubtypes.computeIfAbsent(interfaceName, key -> new ArrayList<>()).add(className);
+            }
+        }
+    }
+
+    /**
+     * Builds the index of a package and its subpackages, using a {@link ClasspathScanner} for the context
+     * class loader.
+     *
+     * @param packageName The package to index, empty for the whole classpath.
+     * @return The index.
+     * @throws ReflectionException If scanning fails or a class file is malformed.
+     */
+    public static AnnotationIndex build(String packageName) throws ReflectionException {
+        return build(new ClasspathScanner(), packageName);
+    }
+
+    /**
+     * Builds the index of a package and its subpackages. Class files are parsed in parallel while they are read.
+     *
+     * @param scanner     The scanner to find class files with.
+     * @param packageName The package to index, empty for the whole classpath.
+     * @return The index.
+     * @throws ReflectionException If scanning fails or a class file is malformed.
+     */
+    public static AnnotationIndex build(ClasspathScanner scanner, String packageName) throws ReflectionException {
+        ConcurrentLinkedQueue<ClassFileInfo> classFiles = new ConcurrentLinkedQueue<>();
+        AtomicReference<ReflectionException> failure = new AtomicReference<>();
+        scanner.scan(packageName, collector(classFiles, failure));
+        return build(classFiles, failure);
+    }
+
+    /**
+     * Builds the index of a package and its subpackages within the given classpath roots only.
+     */
+    static AnnotationIndex build(ClasspathScanner scanner, String packageName, Collection<Path> roots) throws ReflectionException {
+        ConcurrentLinkedQueue<ClassFileInfo> classFiles = new ConcurrentLinkedQueue<>();
+        AtomicReference<ReflectionException> failure = new AtomicReference<>();
+        scanner.scan(packageName, collector(classFiles, failure), roots);
+        return build(classFiles, failure);
+    }
+
+    private static ClasspathScanner.ClassVisitor collector(Collection<ClassFileInfo> classFiles, AtomicReference<ReflectionException> failure) {
+        return (resource, bytes) -> {
+            try {
+                classFiles.add(ClassFileReader.read(bytes));
+            } catch (MetadataException e) {
+                failure.compareAndSet(null, new ReflectionException("Failed to read " + resource.getLocation(), e));
+            }
+        };
+    }
+
+    private static AnnotationIndex build(Collection<ClassFileInfo> classFiles, AtomicReference<ReflectionException> failure) throws ReflectionException {
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new AnnotationIndex(classFiles);
+    }
+
+    /**
+     * Returns the names of all indexed classes.
+     *
+     * @return The class names, sorted.
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classes.keySet());
+    }
+
+    /**
+     * Returns all indexed class files, sorted by class name.
+     *
+     * @return The class files.
+     */
+    public Collection<ClassFileInfo> getClassFiles() {
+        return Collections.unmodifiableCollection(classes.values());
+    }
+
+    /**
+     * Returns the indexed information of the class.
+     *
+     * @param className The binary name of the class.
+     * @return The class file information, or null if the class is not indexed.
+     */
+    public ClassFileInfo getClassFile(String className) {
+        return classes.get(className);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Returns the names of the indexed classes in the package and its subpackages.
+     *
+     * @param packageName The package.
+     * @return The class names, sorted.
+     */
+    public List<String> getClassesInPackage(String packageName) {
+        if (packageName.isEmpty()) {
+            return new ArrayList<>(classes.keySet());
+        }
+        String prefix = packageName + '.';
+        List<String> result = new ArrayList<>();
+        for (String className : classes.tailMap(prefix).keySet()) {
+            if (!className.startsWith(prefix)) {
+                break;
+            }
+            result.add(className);
+        }
+        return result;
+    }
+
+    public List<String> getClassesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return getClassesAnnotatedWith(annotation.getName());
+    }
+
+    /**
+     * Returns the classes directly annotated with the annotation.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @return The class names, sorted.
+     */
+    public List<String> getClassesAnnotatedWith(String annotationName) {
+        return unmodifiable(annotatedClasses.get(annotationName));
+    }
+
+    public List<IndexedMember> getMethodsAnnotatedWith(Class<? extends Annotation> annotation) {
+        return getMethodsAnnotatedWith(annotation.getName());
+    }
+
+    /**
+     * Returns the methods and constructors annotated with the annotation.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @return The annotated methods, grouped by class in class name order.
+     */
+    public List<IndexedMember> getMethodsAnnotatedWith(String annotationName) {
+        return unmodifiable(annotatedMethods.get(annotationName));
+    }
+
+    public List<IndexedMember> getFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+        return getFieldsAnnotatedWith(annotation.getName());
+    }
+
+    /**
+     * Returns the fields annotated with the annotation.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @return The annotated fields, grouped by class in class name order.
+     */
+    public List<IndexedMember> getFieldsAnnotatedWith(String annotationName) {
+        return unmodifiable(annotatedFields.get(annotationName));
+    }
+
+    /**
+     * Returns the indexed classes that directly extend or implement the type.
+     *
+     * @param typeName The binary name of the class or interface.
+     * @return The class names, sorted.
+     */
+    public List<String> getDirectSubtypes(String typeName) {
+        return unmodifiable(directSubtypes.get(typeName));
+    }
+
+    /**
+     * Returns the indexed classes that extend or implement the type, directly or through other indexed classes.
+     *
+     * @param typeName The binary name of the class or interface.
+     * @return The class names in breadth-first order.
+     */
+    public Set<String> getAllSubtypes(String typeName) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(typeName);
+        while (!pending.isEmpty()) {
+            for (String subtype : getDirectSubtypes(pending.poll())) {
+                if (result.add(subtype)) {
+                    pending.add(subtype);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+}
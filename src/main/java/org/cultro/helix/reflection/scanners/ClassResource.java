@@ -0,0 +1,153 @@
+package org.cultro.helix.reflection.scanners;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A class file found by a {@link ClasspathScanner}, identified by its class name and location but neither
+ * read nor loaded.
+ */
+public final class ClassResource {
+
+    private final String className;
+    private final Path path;
+    private final String[] entries;
+
+    /**
+     * @param className The binary name of the class.
+     * @param path      The class file, or the archive containing it.
+     * @param entries   The entries leading to the class file inside the archive: nested archives first and the
+     *                  class file last. Empty for class files in directories.
+     */
+    ClassResource(String className, Path path, String... entries) {
+        this.className = className;
+        this.path = path;
+        this.entries = entries;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the package of the class, empty for the default package.
+     *
+     * @return The package name.
+     */
+    public String getPackageName() {
+        int index = className.lastIndexOf('.');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    /**
+     * Returns the directory or archive on the classpath the class file was found in.
+     *
+     * @return The path of the class file or the outermost archive.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the location of the class file as a URL string, using {@code jar:} and {@code !/} separators for
+     * archive entries.
+     *
+     * @return The location of the class file.
+     */
+    public String getLocation() {
+        StringBuilder location = new StringBuilder();
+        for (int i = 0; i < entries.length; i++) {
+            location.append("jar:");
+        }
+        location.append(path.toUri());
+        for (String entry : entries) {
+            location.append("!/").append(entry);
+        }
+        return location.toString();
+    }
+
+    /**
+     * Reads the class file.
+     *
+     * @return The bytes of the class file.
+     * @throws IOException If the class file can no longer be read.
+     */
+    public byte[] readBytes() throws IOException {
+        if (entries.length == 0) {
+            return Files.readAllBytes(path);
+        }
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            ZipEntry entry = zip.getEntry(entries[0]);
+            if (entry == null) {
+                throw new IOException("Entry " + entries[0] + " no longer exists in " + path);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return entries.length == 1 ? readFully(in) : readNested(in, 1);
+            }
+        }
+    }
+
+    /**
+     * Loads the class without initializing it.
+     *
+     * @param classLoader The class loader to load the class with.
+     * @return The loaded class.
+     * @throws ReflectionException If the class cannot be loaded.
+     */
+    public Class<?> load(ClassLoader classLoader) throws ReflectionException {
+        return load(classLoader, false);
+    }
+
+    /**
+     * Loads the class.
+     *
+     * @param classLoader The class loader to load the class with.
+     * @param initialize  Whether to run the static initializers of the class.
+     * @return The loaded class.
+     * @throws ReflectionException If the class cannot be loaded.
+     */
+    public Class<?> load(ClassLoader classLoader, boolean initialize) throws ReflectionException {
+        try {
+            return Class.forName(className, initialize, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new ReflectionException("Failed to load class " + className, e);
+        }
+    }
+
+    private byte[] readNested(InputStream archive, int depth) throws IOException {
+        ZipInputStream in = new ZipInputStream(archive);
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null) {
+            if (entry.getName().equals(entries[depth])) {
+                return depth == entries.length - 1 ? readFully(in) : readNested(in, depth + 1);
+            }
+        }
+        throw new IOException("Entry " + entries[depth] + " no longer exists in " + getLocation());
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "ClassResource{" +
+                "className='" + className + '\'' +
+                ", location=" + getLocation() +
+                '}';
+    }
+}
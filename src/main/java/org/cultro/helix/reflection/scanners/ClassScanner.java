@@ -4,16 +4,52 @@ import java.util.ArrayList;
 
 import org.cultro.helix.lang.MetadataException;
 import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.classfile.ClassFileInfo;
 import org.cultro.helix.reflection.metadata.ClassMetadata;
-import org.cultro.helix.util.ReflectionUtils;
+import org.cultro.helix.reflection.metrics.ReflectionMetrics;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Scans classes within a specified package and retrieves their metadata using caching.
+ * <p>
+ * Scanning is done by a {@link ClasspathScanner} and only loads classes when asked to: {@link #scanClassNames}
+ * touches no class at all, while {@link #loadClasses} and {@link #scan} load the classes without running
+ * their static initializers unless requested.
+ * </p>
+ * <p>
+ * Classpath roots holding an up-to-date {@link ScanIndex} covering the package are answered from their index and
+ * not scanned; the other roots of the package are scanned as usual. Either way, a class found in several roots is
+ * taken from the first of them.
+ * </p>
  */
 public class ClassScanner {
 
+    private final ClasspathScanner classpathScanner;
+    private final boolean useIndex;
+
+    public ClassScanner() {
+        this(new ClasspathScanner());
+    }
+
+    public ClassScanner(ClasspathScanner classpathScanner) {
+        this(classpathScanner, true);
+    }
+
+    /**
+     * @param classpathScanner The scanner used for classpath roots without an index.
+     * @param useIndex         Whether to prefer precomputed {@link ScanIndex} files over live scanning.
+     */
+    public ClassScanner(ClasspathScanner classpathScanner, boolean useIndex) {
+        this.classpathScanner = classpathScanner;
+        this.useIndex = useIndex;
+    }
+
     /**
      * Scans all classes in the specified package and retrieves their metadata.
      *
@@ -22,7 +58,7 @@ public class ClassScanner {
      * @throws ReflectionException If scanning fails.
      */
     public List<ClassMetadata> scan(String packageName) throws ReflectionException, MetadataException {
-        List<Class<?>> classes = ReflectionUtils.getClassesInPackage(packageName);
+        List<Class<?>> classes = loadClasses(packageName, false);
         List<ClassMetadata> metadataList = new ArrayList<>();
 
         for (Class<?> clazz : classes) {
@@ -31,4 +67,146 @@ public class ClassScanner {
         }
         return metadataList;
     }
+
+    /**
+     * Finds the names of all classes in the specified package without loading any of them.
+     *
+     * @param packageName The package to scan.
+     * @return The binary class names, sorted.
+     * @throws ReflectionException If scanning fails.
+     */
+    public List<String> scanClassNames(String packageName) throws ReflectionException {
+        long start = ReflectionMetrics.start();
+        List<String> classNames;
+        if (useIndex) {
+            Set<String> names = new TreeSet<>(readRoots(packageName, new RootReader<String>() {
+                @Override
+                public List<String> read(ScanIndex scanIndex) {
+                    List<String> indexed = new ArrayList<>();
+                    for (ClassFileInfo info : scanIndex.getClassFiles(packageName)) {
+                        indexed.add(info.getClassName());
+                    }
+                    return indexed;
+                }
+
+                @Override
+                public List<String> scan(List<Path> roots) throws ReflectionException {
+                    List<String> scanned = new ArrayList<>();
+                    for (ClassResource resource : classpathScanner.scan(packageName, null, roots)) {
+                        scanned.add(resource.getClassName());
+                    }
+                    return scanned;
+                }
+            }));
+            classNames = new ArrayList<>(names);
+        } else {
+            classNames = classpathScanner.scanClassNames(packageName);
+        }
+        ReflectionMetrics.recordScan(start, classNames.size());
+        return classNames;
+    }
+
+    /**
+     * Finds and loads all classes in the specified package.
+     *
+     * @param packageName The package to scan.
+     * @param initialize  Whether to run the static initializers of the classes.
+     * @return The loaded classes, sorted by name.
+     * @throws ReflectionException If scanning fails or a class cannot be loaded.
+     */
+    public List<Class<?>> loadClasses(String packageName, boolean initialize) throws ReflectionException {
+        return loadClasses(scanClassNames(packageName), initialize);
+    }
+
+    /**
+     * Returns an index of the annotations and type hierarchy of the package, read from a {@link ScanIndex} or
+     * built from the class files, without loading any class.
+     *
+     * @param packageName The package to index.
+     * @return The annotation index.
+     * @throws ReflectionException If scanning fails or a class file is malformed.
+     */
+    public AnnotationIndex index(String packageName) throws ReflectionException {
+        if (!useIndex) {
+            return AnnotationIndex.build(classpathScanner, packageName);
+        }
+        return new AnnotationIndex(readRoots(packageName, new RootReader<ClassFileInfo>() {
+            @Override
+            public List<ClassFileInfo> read(ScanIndex scanIndex) {
+                return scanIndex.getClassFiles(packageName);
+            }
+
+            @Override
+            public List<ClassFileInfo> scan(List<Path> roots) throws ReflectionException {
+                return new ArrayList<>(AnnotationIndex.build(classpathScanner, packageName, roots).getClassFiles());
+            }
+        }));
+    }
+
+    /**
+     * Collects the classes of the package from its classpath roots, in the order the roots take precedence. Roots
+     * with an up-to-date index are read from it; each run of consecutive roots without one is scanned in a single
+     * pass where it falls. When a class is found in several roots, the copy of the first root therefore comes
+     * first, as with scanning.
+     *
+     * @param packageName The package.
+     * @param reader      Reads the classes of an index or a run of unindexed roots.
+     * @return The classes of all roots, duplicates included.
+     */
+    private <T> List<T> readRoots(String packageName, RootReader<T> reader) throws ReflectionException {
+        Set<Path> roots;
+        try {
+            roots = classpathScanner.findRoots(packageName);
+        } catch (IOException e) {
+            throw new ReflectionException("Failed to scan package " + packageName, e);
+        }
+        List<T> classes = new ArrayList<>();
+        List<Path> unindexed = new ArrayList<>();
+        for (Path root : roots) {
+            ScanIndex scanIndex = ScanIndex.forRoot(root, packageName);
+            if (scanIndex == null) {
+                unindexed.add(root);
+                continue;
+            }
+            if (!unindexed.isEmpty()) {
+                classes.addAll(reader.scan(unindexed));
+                unindexed.clear();
+            }
+            classes.addAll(reader.read(scanIndex));
+        }
+        if (!unindexed.isEmpty()) {
+            classes.addAll(reader.scan(unindexed));
+        }
+        return classes;
+    }
+
+    /**
+     * Loads the named classes, for example the results of an {@link AnnotationIndex} query.
+     *
+     * @param classNames The binary names of the classes.
+     * @param initialize Whether to run the static initializers of the classes.
+     * @return The loaded classes, in the given order.
+     * @throws ReflectionException If a class cannot be loaded.
+     */
+    public List<Class<?>> loadClasses(Collection<String> classNames, boolean initialize) throws ReflectionException {
+        List<Class<?>> classes = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                classes.add(Class.forName(className, initialize, classpathScanner.getClassLoader()));
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new ReflectionException("Failed to load class " + className, e);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Reads the classes of a package from a classpath root's index or by scanning roots without one.
+     */
+    private interface RootReader<T> {
+
+        List<T> read(ScanIndex scanIndex);
+
+        List<T> scan(List<Path> roots) throws ReflectionException;
+    }
 }
@@ -0,0 +1,505 @@
+package org.cultro.helix.reflection.scanners;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Finds class files on the classpath without loading them.
+ * <p>
+ * Directories, jars and jars nested in jars (such as {@code BOOT-INF/lib}) are supported. Every classpath root
+ * is traversed as its own task on a {@link ForkJoinPool}; directories fork a subtask per subdirectory and jars
+ * a subtask per nested jar. The roots are taken from the {@link URLClassLoader}s in the class loader hierarchy,
+ * from {@code java.class.path} when the system class loader is part of that hierarchy, and from the locations
+ * of the package itself. When the same class is found in several roots, the first root in that order wins.
+ * </p>
+ * <p>
+ * Since the tasks block on file I/O, scanners run on a pool shared by all scanners rather than on the common
+ * pool, so that a scan does not stall parallel streams and other users of the common pool.
+ * </p>
+ */
+public final class ClasspathScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String[] ARCHIVE_CLASS_ROOTS = {"BOOT-INF/classes/", "WEB-INF/classes/"};
+
+    private final ClassLoader classLoader;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a scanner for the context class loader of the current thread, running on the shared scanning pool.
+     */
+    public ClasspathScanner() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    public ClasspathScanner(ClassLoader classLoader) {
+        this(classLoader, SharedPool.INSTANCE);
+    }
+
+    public ClasspathScanner(ClassLoader classLoader, ForkJoinPool pool) {
+        Validate.notNull(classLoader, "ClassLoader cannot be null");
+        Validate.notNull(pool, "ForkJoinPool cannot be null");
+        this.classLoader = classLoader;
+        this.pool = pool;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Finds all classes in the package and its subpackages.
+     *
+     * @param packageName The package to scan, empty for all packages.
+     * @return The class files found, sorted by class name.
+     * @throws ReflectionException If a classpath root cannot be read.
+     */
+    public List<ClassResource> scan(String packageName) throws ReflectionException {
+        return scan(packageName, null);
+    }
+
+    /**
+     * Finds the names of all classes in the package and its subpackages.
+     *
+     * @param packageName The package to scan, empty for all packages.
+     * @return The binary class names, sorted.
+     * @throws ReflectionException If a classpath root cannot be read.
+     */
+    public List<String> scanClassNames(String packageName) throws ReflectionException {
+        List<ClassResource> resources = scan(packageName);
+        List<String> names = new ArrayList<>(resources.size());
+        for (ClassResource resource : resources) {
+            names.add(resource.getClassName());
+        }
+        return names;
+    }
+
+    /**
+     * Finds all classes in the package and its subpackages and passes each class file to the visitor. The files
+     * are read while their root is open, which is much cheaper than reading the returned resources one by one
+     * afterwards, and are visited concurrently from the threads of the pool once all roots have been read.
+     * Should the same class exist in several roots, only the copy that is returned, from the first root, is
+     * visited.
+     *
+     * @param packageName The package to scan, empty for all packages.
+     * @param visitor     The visitor to receive every class file.
+     * @return The class files found, sorted by class name.
+     * @throws ReflectionException If a classpath root cannot be read.
+     */
+    public List<ClassResource> scan(String packageName, ClassVisitor visitor) throws ReflectionException {
+        Validate.notNull(packageName, "Package name cannot be null");
+        try {
+            return scan(packageName, visitor, findRoots(packageName));
+        } catch (IOException e) {
+            throw new ReflectionException("Failed to scan package " + packageName, e);
+        }
+    }
+
+    /**
+     * Finds all classes in the package and its subpackages within the given classpath roots only.
+     *
+     * @param packageName The package to scan, empty for all packages.
+     * @param visitor     The visitor to receive every class file, or null.
+     * @param roots       The roots to scan, as returned by {@link #findRoots(String)}.
+     * @return The class files found, sorted by class name.
+     * @throws ReflectionException If a classpath root cannot be read.
+     */
+    List<ClassResource> scan(String packageName, ClassVisitor visitor, Collection<Path> roots) throws ReflectionException {
+        String prefix = packageName.isEmpty() ? "" : packageName + '.';
+        boolean read = visitor != null;
+        List<RecursiveTask<List<ClassFile>>> tasks = new ArrayList<>();
+        try {
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    Path directory = packageName.isEmpty() ? root : root.resolve(packageName.replace('.', File.separatorChar));
+                    tasks.add(new DirectoryTask(directory, prefix, read));
+                } else if (isArchive(root)) {
+                    tasks.add(new ArchiveTask(root, prefix, read));
+                }
+            }
+            List<List<ClassFile>> results = pool.invoke(new RecursiveTask<List<List<ClassFile>>>() {
+                @Override
+                protected List<List<ClassFile>> compute() {
+                    invokeAll(tasks);
+                    List<List<ClassFile>> joined = new ArrayList<>(tasks.size());
+                    for (RecursiveTask<List<ClassFile>> task : tasks) {
+                        joined.add(task.join());
+                    }
+                    return joined;
+                }
+            });
+            Map<String, ClassFile> files = new LinkedHashMap<>();
+            for (List<ClassFile> result : results) {
+                for (ClassFile file : result) {
+                    files.putIfAbsent(file.resource.getClassName(), file);
+                }
+            }
+            if (visitor != null) {
+                pool.invoke(new VisitTask(visitor, new ArrayList<>(files.values()), 0, files.size()));
+            }
+            List<ClassResource> sorted = new ArrayList<>(files.size());
+            for (ClassFile file : files.values()) {
+                sorted.add(file.resource);
+            }
+            sorted.sort(Comparator.comparing(ClassResource::getClassName));
+            return sorted;
+        } catch (UncheckedIOException e) {
+            throw new ReflectionException("Failed to scan package " + packageName, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the classpath roots that may contain classes of the package, directories and archives, in the
+     * order their classes take precedence.
+     *
+     * @param packageName The package to look for.
+     * @return The existing classpath roots.
+     * @throws IOException If the class loader cannot list the locations of the package.
+     */
+    public Set<Path> findRoots(String packageName) throws IOException {
+        Set<Path> roots = new LinkedHashSet<>();
+        String packagePath = packageName.replace('.', '/');
+        int depth = packageName.isEmpty() ? 0 : packagePath.split("/").length;
+        Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if ("file".equals(url.getProtocol())) {
+                Path directory = toPath(url);
+                for (int i = 0; i < depth && directory != null; i++) {
+                    directory = directory.getParent();
+                }
+                addRoot(roots, directory);
+            } else if ("jar".equals(url.getProtocol())) {
+                String spec = url.getPath();
+                int separator = spec.indexOf("!/");
+                if (separator > 0) {
+                    addRoot(roots, toPath(new URL(spec.substring(0, separator))));
+                }
+            }
+        }
+        boolean systemVisible = false;
+        ClassLoader systemLoader = ClassLoader.getSystemClassLoader();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        addRoot(roots, toPath(url));
+                    }
+                }
+            }
+            systemVisible |= loader == systemLoader;
+        }
+        if (systemVisible) {
+            for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (!entry.isEmpty()) {
+                    try {
+                        addRoot(roots, Paths.get(entry));
+                    } catch (InvalidPathException ignored) {
+                        // Not a usable classpath entry
+                    }
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static void addRoot(Set<Path> roots, Path path) {
+        if (path != null && Files.exists(path)) {
+            roots.add(path.toAbsolutePath().normalize());
+        }
+    }
+
+    static boolean isArchive(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".zip");
+    }
+
+    private static Path toPath(URL url) {
+        try {
+            return Paths.get(new URI(url.toString().replace(" ", "%20")));
+        } catch (URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts the name of an archive entry to a class name, or returns null if the entry is not a class file
+     * in the given package.
+     */
+    static String toClassName(String entryName, String prefix) {
+        if (!entryName.endsWith(CLASS_SUFFIX) || entryName.startsWith("META-INF/")) {
+            return null;
+        }
+        String name = entryName;
+        for (String root : ARCHIVE_CLASS_ROOTS) {
+            if (name.startsWith(root)) {
+                name = name.substring(root.length());
+                break;
+            }
+        }
+        name = name.substring(0, name.length() - CLASS_SUFFIX.length());
+        if (name.indexOf('-') >= 0) {
+            return null;
+        }
+        name = name.replace('/', '.');
+        return name.startsWith(prefix) ? name : null;
+    }
+
+    /**
+     * Receives the class files found by {@link #scan(String, ClassVisitor)}.
+     */
+    @FunctionalInterface
+    public interface ClassVisitor {
+
+        /**
+         * Called once per class, concurrently from the threads of the scanning pool.
+         *
+         * @param resource The class file.
+         * @param bytes    The contents of the class file.
+         */
+        void visit(ClassResource resource, byte[] bytes);
+    }
+
+    /**
+     * The pool of daemon threads shared by scanners without a pool of their own, created on first use.
+     */
+    private static final class SharedPool {
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("helix-classpath-scanner-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * A class file found in a root, with its contents if they were read.
+     */
+    private static final class ClassFile {
+        private final ClassResource resource;
+        private final byte[] bytes;
+
+        private ClassFile(ClassResource resource, byte[] bytes) {
+            this.resource = resource;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class VisitTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 64;
+
+        private final ClassVisitor visitor;
+        private final List<ClassFile> files;
+        private final int from;
+        private final int to;
+
+        private VisitTask(ClassVisitor visitor, List<ClassFile> files, int from, int to) {
+            this.visitor = visitor;
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    ClassFile file = files.get(i);
+                    visitor.visit(file.resource, file.bytes);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VisitTask(visitor, files, from, middle), new VisitTask(visitor, files, middle, to));
+        }
+    }
+
+    private static final class DirectoryTask extends RecursiveTask<List<ClassFile>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final String prefix;
+        private final boolean read;
+
+        private DirectoryTask(Path directory, String prefix, boolean read) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.read = read;
+        }
+
+        @Override
+        protected List<ClassFile> compute() {
+            if (!Files.isDirectory(directory)) {
+                return Collections.emptyList();
+            }
+            List<ClassFile> found = new ArrayList<>();
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    String name = child.getFileName().toString();
+                    if (Files.isDirectory(child)) {
+                        if (name.indexOf('.') < 0 && name.indexOf('-') < 0) {
+                            subtasks.add(new DirectoryTask(child, prefix + name + '.', read));
+                        }
+                    } else if (name.endsWith(CLASS_SUFFIX) && name.indexOf('-') < 0) {
+                        String className = prefix + name.substring(0, name.length() - CLASS_SUFFIX.length());
+                        ClassResource resource = new ClassResource(className, child);
+                        found.add(new ClassFile(resource, read ? Files.readAllBytes(child) : null));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            invokeAll(subtasks);
+            for (DirectoryTask subtask : subtasks) {
+                found.addAll(subtask.join());
+            }
+            return found;
+        }
+    }
+
+    private static final class ArchiveTask extends RecursiveTask<List<ClassFile>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path archive;
+        private final String prefix;
+        private final boolean read;
+
+        private ArchiveTask(Path archive, String prefix, boolean read) {
+            this.archive = archive;
+            this.prefix = prefix;
+            this.read = read;
+        }
+
+        @Override
+        protected List<ClassFile> compute() {
+            List<ClassFile> found = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(archive.toFile())) {
+                List<NestedArchiveTask> subtasks = new ArrayList<>();
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    String name = entry.getName();
+                    if (name.endsWith(".jar")) {
+                        subtasks.add(new NestedArchiveTask(zip, entry, this));
+                        continue;
+                    }
+                    String className = toClassName(name, prefix);
+                    if (className != null) {
+                        ClassResource resource = new ClassResource(className, archive, name);
+                        byte[] bytes = null;
+                        if (read) {
+                            try (InputStream in = zip.getInputStream(entry)) {
+                                bytes = ClassResource.readFully(in);
+                            }
+                        }
+                        found.add(new ClassFile(resource, bytes));
+                    }
+                }
+                invokeAll(subtasks);
+                for (NestedArchiveTask subtask : subtasks) {
+                    found.addAll(subtask.join());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return found;
+        }
+    }
+
+    private static final class NestedArchiveTask extends RecursiveTask<List<ClassFile>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ZipFile zip;
+        private final ZipEntry entry;
+        private final ArchiveTask parent;
+
+        private NestedArchiveTask(ZipFile zip, ZipEntry entry, ArchiveTask parent) {
+            this.zip = zip;
+            this.entry = entry;
+            this.parent = parent;
+        }
+
+        @Override
+        protected List<ClassFile> compute() {
+            List<ClassFile> found = new ArrayList<>();
+            try (ZipInputStream in = new ZipInputStream(zip.getInputStream(entry))) {
+                scan(in, new String[]{entry.getName()}, found);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return found;
+        }
+
+        private void scan(ZipInputStream in, String[] path, List<ClassFile> found) throws IOException {
+            ZipEntry nested;
+            while ((nested = in.getNextEntry()) != null) {
+                if (nested.isDirectory()) {
+                    continue;
+                }
+                String name = nested.getName();
+                String[] nestedPath = Arrays.copyOf(path, path.length + 1);
+                nestedPath[path.length] = name;
+                if (name.endsWith(".jar")) {
+                    try (ZipInputStream nestedIn = new ZipInputStream(new NonClosingInputStream(in))) {
+                        scan(nestedIn, nestedPath, found);
+                    }
+                    continue;
+                }
+                String className = toClassName(name, parent.prefix);
+                if (className != null) {
+                    ClassResource resource = new ClassResource(className, parent.archive, nestedPath);
+                    found.add(new ClassFile(resource, parent.read ? ClassResource.readFully(in) : null));
+                }
+            }
+        }
+    }
+
+    private static final class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // The enclosing archive stream stays open
+        }
+    }
+}
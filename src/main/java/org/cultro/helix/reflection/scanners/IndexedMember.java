@@ -0,0 +1,67 @@
+package org.cultro.helix.reflection.scanners;
+
+import java.util.Objects;
+
+/**
+ * A field or method found by an {@link AnnotationIndex}, identified by its declaring class, name and JVM descriptor.
+ */
+public final class IndexedMember {
+
+    private final String className;
+    private final String name;
+    private final String descriptor;
+
+    public IndexedMember(String className, String name, String descriptor) {
+        this.className = className;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the JVM descriptor of the member, which tells overloaded methods apart.
+     *
+     * @return The descriptor.
+     */
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Checks whether the member is a method, including constructors ({@code <init>}).
+     *
+     * @return True for methods, false for fields.
+     */
+    public boolean isMethod() {
+        return descriptor.charAt(0) == '(';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexedMember)) {
+            return false;
+        }
+        IndexedMember that = (IndexedMember) o;
+        return className.equals(that.className) && name.equals(that.name) && descriptor.equals(that.descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className, name, descriptor);
+    }
+
+    @Override
+    public String toString() {
+        return className + '#' + name + descriptor;
+    }
+}
@@ -0,0 +1,424 @@
+package org.cultro.helix.reflection.scanners;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.classfile.ClassFileInfo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A precomputed {@link AnnotationIndex} stored at {@value #LOCATION} in a classpath root.
+ * <p>
+ * The file is written at build time by {@link ScanIndexGenerator} for the packages an artifact owns, and lets
+ * {@link ClassScanner} answer queries for those packages without scanning on every start. It holds the type
+ * hierarchy and annotations of every class plus the members that carry annotations, with all names stored
+ * once in a string table and numbers as variable-length integers.
+ * </p>
+ * <p>
+ * Indexes are resolved per classpath root: an index only stands in for the classes of the root it is stored in,
+ * and roots without an index are still scanned. An index in a directory, typically an output folder an IDE
+ * recompiles into, is only used while the number and latest modification time of the class files in its
+ * packages still match those recorded when it was written. An index in a jar is only used while the number of
+ * class files in its packages matches; modification times are not compared, since archiving changes them, so a
+ * jar whose classes were replaced one for one without regenerating its index is not detected.
+ * </p>
+ */
+public final class ScanIndex {
+
+    public static final String LOCATION = "META-INF/helix/scan-index.bin";
+
+    private static final int MAGIC = 0x48585349;
+    private static final int VERSION = 1;
+
+    private final List<String> packages;
+    private final Fingerprint fingerprint;
+    private final AnnotationIndex index;
+
+    public ScanIndex(List<String> packages, Fingerprint fingerprint, AnnotationIndex index) {
+        this.packages = Collections.unmodifiableList(new ArrayList<>(packages));
+        this.fingerprint = fingerprint;
+        this.index = index;
+    }
+
+    /**
+     * Returns the packages the index was built for, each including its subpackages.
+     *
+     * @return The indexed packages.
+     */
+    public List<String> getPackages() {
+        return packages;
+    }
+
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public AnnotationIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Checks whether the index contains all classes of the package.
+     *
+     * @param packageName The package.
+     * @return True if the package is one of the indexed packages or a subpackage of one.
+     */
+    public boolean covers(String packageName) {
+        for (String indexed : packages) {
+            if (indexed.isEmpty() || packageName.equals(indexed) || packageName.startsWith(indexed + '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the index of a classpath root if it covers the package and is up to date.
+     *
+     * @param root        The classpath root, a directory or an archive.
+     * @param packageName The package to query.
+     * @return The index, or null if the root has no up-to-date index covering the package.
+     * @throws ReflectionException If an index file exists but cannot be read.
+     */
+    static ScanIndex forRoot(Path root, String packageName) throws ReflectionException {
+        try {
+            if (Files.isDirectory(root)) {
+                Path file = root.resolve(LOCATION);
+                if (!Files.isRegularFile(file)) {
+                    return null;
+                }
+                ScanIndex scanIndex;
+                try (InputStream in = Files.newInputStream(file)) {
+                    scanIndex = read(in);
+                }
+                return scanIndex.covers(packageName)
+                        && Fingerprint.of(root, scanIndex.packages).equals(scanIndex.fingerprint) ? scanIndex : null;
+            } else if (ClasspathScanner.isArchive(root)) {
+                try (ZipFile zip = new ZipFile(root.toFile())) {
+                    ZipEntry entry = zip.getEntry(LOCATION);
+                    if (entry == null) {
+                        return null;
+                    }
+                    ScanIndex scanIndex;
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        scanIndex = read(in);
+                    }
+                    return scanIndex.covers(packageName)
+                            && countClassFiles(zip, scanIndex.packages) == scanIndex.fingerprint.classCount ? scanIndex : null;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new ReflectionException("Failed to read the scan index of " + root, e);
+        }
+    }
+
+    /**
+     * Returns the indexed classes of the package and its subpackages.
+     *
+     * @param packageName The package.
+     * @return The class files.
+     */
+    List<ClassFileInfo> getClassFiles(String packageName) {
+        String prefix = packageName.isEmpty() ? "" : packageName + '.';
+        List<ClassFileInfo> classFiles = new ArrayList<>();
+        for (ClassFileInfo info : index.getClassFiles()) {
+            if (info.getClassName().startsWith(prefix)) {
+                classFiles.add(info);
+            }
+        }
+        return classFiles;
+    }
+
+    private static int countClassFiles(ZipFile zip, List<String> packages) {
+        int count = 0;
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.endsWith(".class")) {
+                continue;
+            }
+            for (String packageName : packages) {
+                if (packageName.isEmpty() || name.startsWith(packageName.replace('.', '/') + '/')) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the index in its binary format.
+     *
+     * @param out The stream to write to, left open.
+     * @throws IOException If writing fails.
+     */
+    public void write(OutputStream out) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        for (ClassFileInfo info : index.getClassFiles()) {
+            intern(strings, table, info.getClassName());
+            intern(strings, table, info.getSuperclassName());
+            intern(strings, table, info.getInterfaceNames());
+            intern(strings, table, info.getAnnotations());
+            for (ClassFileInfo.MemberInfo member : annotatedMembers(info)) {
+                intern(strings, table, member.getName());
+                intern(strings, table, member.getDescriptor());
+                intern(strings, table, member.getAnnotations());
+            }
+        }
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, packages.size());
+        for (String packageName : packages) {
+            data.writeUTF(packageName);
+        }
+        writeVarInt(data, fingerprint.classCount);
+        data.writeLong(fingerprint.lastModified);
+        writeVarInt(data, table.size());
+        for (String string : table) {
+            data.writeUTF(string);
+        }
+        writeVarInt(data, index.size());
+        for (ClassFileInfo info : index.getClassFiles()) {
+            writeVarInt(data, strings.get(info.getClassName()));
+            writeVarInt(data, info.getSuperclassName() == null ? 0 : strings.get(info.getSuperclassName()) + 1);
+            writeVarInt(data, info.getAccessFlags());
+            writeNames(data, strings, info.getInterfaceNames());
+            writeNames(data, strings, info.getAnnotations());
+            writeMembers(data, strings, annotated(info.getFields()));
+            writeMembers(data, strings, annotated(info.getMethods()));
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads an index written by {@link #write(OutputStream)}.
+     *
+     * @param in The stream to read from, left open.
+     * @return The index.
+     * @throws IOException If reading fails or the stream does not hold an index of a supported version.
+     */
+    public static ScanIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a scan index");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported scan index version " + version);
+        }
+        int packageCount = readVarInt(data);
+        List<String> packages = new ArrayList<>(packageCount);
+        for (int i = 0; i < packageCount; i++) {
+            packages.add(data.readUTF());
+        }
+        Fingerprint fingerprint = new Fingerprint(readVarInt(data), data.readLong());
+        String[] table = new String[readVarInt(data)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = data.readUTF();
+        }
+        int classCount = readVarInt(data);
+        List<ClassFileInfo> classFiles = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            String className = table[readVarInt(data)];
+            int superIndex = readVarInt(data);
+            String superclassName = superIndex == 0 ? null : table[superIndex - 1];
+            int accessFlags = readVarInt(data);
+            List<String> interfaces = readNames(data, table);
+            List<String> annotations = readNames(data, table);
+            List<ClassFileInfo.MemberInfo> fields = readMembers(data, table);
+            List<ClassFileInfo.MemberInfo> methods = readMembers(data, table);
+            classFiles.add(new ClassFileInfo(className, superclassName, interfaces, accessFlags, annotations, fields, methods));
+        }
+        return new ScanIndex(packages, fingerprint, new AnnotationIndex(classFiles));
+    }
+
+    private static List<ClassFileInfo.MemberInfo> annotatedMembers(ClassFileInfo info) {
+        List<ClassFileInfo.MemberInfo> members = annotated(info.getFields());
+        members.addAll(annotated(info.getMethods()));
+        return members;
+    }
+
+    private static List<ClassFileInfo.MemberInfo> annotated(List<ClassFileInfo.MemberInfo> members) {
+        List<ClassFileInfo.MemberInfo> annotated = new ArrayList<>();
+        for (ClassFileInfo.MemberInfo member : members) {
+            if (!member.getAnnotations().isEmpty()) {
+                annotated.add(member);
+            }
+        }
+        return annotated;
+    }
+
+    private static void intern(Map<String, Integer> strings, List<String> table, Collection<String> values) {
+        for (String value : values) {
+            intern(strings, table, value);
+        }
+    }
+
+    private static void intern(Map<String, Integer> strings, List<String> table, String value) {
+        if (value != null && !strings.containsKey(value)) {
+            strings.put(value, table.size());
+            table.add(value);
+        }
+    }
+
+    private static void writeNames(DataOutputStream data, Map<String, Integer> strings, List<String> names) throws IOException {
+        writeVarInt(data, names.size());
+        for (String name : names) {
+            writeVarInt(data, strings.get(name));
+        }
+    }
+
+    private static List<String> readNames(DataInputStream data, String[] table) throws IOException {
+        int count = readVarInt(data);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(table[readVarInt(data)]);
+        }
+        return names;
+    }
+
+    private static void writeMembers(DataOutputStream data, Map<String, Integer> strings,
+                                     List<ClassFileInfo.MemberInfo> members) throws IOException {
+        writeVarInt(data, members.size());
+        for (ClassFileInfo.MemberInfo member : members) {
+            writeVarInt(data, strings.get(member.getName()));
+            writeVarInt(data, strings.get(member.getDescriptor()));
+            writeVarInt(data, member.getAccessFlags());
+            writeNames(data, strings, member.getAnnotations());
+        }
+    }
+
+    private static List<ClassFileInfo.MemberInfo> readMembers(DataInputStream data, String[] table) throws IOException {
+        int count = readVarInt(data);
+        List<ClassFileInfo.MemberInfo> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = table[readVarInt(data)];
+            String descriptor = table[readVarInt(data)];
+            int accessFlags = readVarInt(data);
+            members.add(new ClassFileInfo.MemberInfo(name, descriptor, accessFlags, readNames(data, table)));
+        }
+        return members;
+    }
+
+    private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * The number and latest modification time of the class files in the indexed packages of a directory root.
+     */
+    public static final class Fingerprint {
+
+        private final int classCount;
+        private final long lastModified;
+
+        public Fingerprint(int classCount, long lastModified) {
+            this.classCount = classCount;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Computes the fingerprint of the packages in a directory root by listing their class files.
+         *
+         * @param root     The classpath root directory.
+         * @param packages The indexed packages.
+         * @return The fingerprint.
+         * @throws IOException If the directory cannot be listed.
+         */
+        public static Fingerprint of(Path root, List<String> packages) throws IOException {
+            int[] count = {0};
+            long[] lastModified = {0};
+            for (String packageName : packages) {
+                Path directory = packageName.isEmpty() ? root : root.resolve(packageName.replace('.', File.separatorChar));
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (file.getFileName().toString().endsWith(".class")) {
+                            count[0]++;
+                            lastModified[0] = Math.max(lastModified[0], attributes.lastModifiedTime().toMillis());
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            return new Fingerprint(count[0], lastModified[0]);
+        }
+
+        public int getClassCount() {
+            return classCount;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return classCount == that.classCount && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classCount + Long.hashCode(lastModified);
+        }
+
+        @Override
+        public String toString() {
+            return "Fingerprint{" +
+                    "classCount=" + classCount +
+                    ", lastModified=" + lastModified +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.cultro.helix.reflection.scanners;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.classfile.ClassFileInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Build step writing the {@link ScanIndex} of a compiled classes directory, meant to run after compilation,
+ * for example from the {@code exec-maven-plugin} in the {@code process-classes} phase:
+ * <pre>
+ * java org.cultro.helix.reflection.scanners.ScanIndexGenerator target/classes com.example.app com.example.api
+ * </pre>
+ * Without packages, every class in the directory is indexed.
+ */
+public final class ScanIndexGenerator {
+
+    private ScanIndexGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(args);
+    }
+
+    /**
+     * Runs the build step with command line arguments, reporting failures as exceptions rather than on the console.
+     *
+     * @param args The classes directory, followed by the packages to index.
+     * @return The written index file.
+     * @throws IllegalArgumentException If no classes directory is given.
+     * @throws ReflectionException      If scanning fails or a class file is malformed.
+     * @throws IOException              If the directory cannot be listed or the index cannot be written.
+     */
+    public static Path run(String... args) throws ReflectionException, IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: ScanIndexGenerator <classes directory> [package...]");
+        }
+        Path root = Paths.get(args[0]);
+        List<String> packages = args.length > 1
+                ? Arrays.asList(Arrays.copyOfRange(args, 1, args.length))
+                : Collections.singletonList("");
+        return write(root, generate(root, packages));
+    }
+
+    /**
+     * Scans the packages in a classes directory. Only the directory itself is scanned, not its dependencies.
+     *
+     * @param root     The classes directory.
+     * @param packages The packages to index, each including its subpackages.
+     * @return The scan index.
+     * @throws ReflectionException If scanning fails or a class file is malformed.
+     * @throws IOException         If the directory cannot be listed.
+     */
+    public static ScanIndex generate(Path root, List<String> packages) throws ReflectionException, IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException(root + " is not a directory");
+        }
+        List<ClassFileInfo> classFiles = new ArrayList<>();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toUri().toURL()}, null)) {
+            ClasspathScanner scanner = new ClasspathScanner(loader);
+            for (String packageName : packages) {
+                classFiles.addAll(AnnotationIndex.build(scanner, packageName).getClassFiles());
+            }
+        }
+        return new ScanIndex(packages, ScanIndex.Fingerprint.of(root, packages), new AnnotationIndex(classFiles));
+    }
+
+    /**
+     * Writes the index to {@value ScanIndex#LOCATION} below the classes directory.
+     *
+     * @param root      The classes directory.
+     * @param scanIndex The index to write.
+     * @return The written file.
+     * @throws IOException If writing fails.
+     */
+    public static Path write(Path root, ScanIndex scanIndex) throws IOException {
+        Path file = root.resolve(ScanIndex.LOCATION);
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            scanIndex.write(out);
+        }
+        return file;
+    }
+}
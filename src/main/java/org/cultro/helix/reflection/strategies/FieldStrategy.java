@@ -0,0 +1,465 @@
+package org.cultro.helix.reflection.strategies;
+
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Compares, hashes and prints one field of two objects through its compiled accessor. Primitive fields have their
+ * own strategies that use the typed accessors and the static {@code compare} and {@code hashCode} methods of the
+ * wrapper classes, so their values are never boxed. Floating-point fields are equal when their wrappers would be:
+ * {@code NaN} equals itself and {@code 0.0} does not equal {@code -0.0}.
+ */
+abstract class FieldStrategy {
+
+    final CompiledField field;
+
+    FieldStrategy(CompiledField field) {
+        this.field = field;
+    }
+
+    static FieldStrategy of(CompiledField field) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntStrategy(field);
+        } else if (type == long.class) {
+            return new LongStrategy(field);
+        } else if (type == double.class) {
+            return new DoubleStrategy(field);
+        } else if (type == float.class) {
+            return new FloatStrategy(field);
+        } else if (type == boolean.class) {
+            return new BooleanStrategy(field);
+        } else if (type == byte.class) {
+            return new ByteStrategy(field);
+        } else if (type == short.class) {
+            return new ShortStrategy(field);
+        } else if (type == char.class) {
+            return new CharStrategy(field);
+        } else if (type.isArray()) {
+            return new ArrayStrategy(field);
+        }
+        return new ReferenceStrategy(field);
+    }
+
+    abstract boolean equals(Object a, Object b) throws ReflectionException;
+
+    abstract int hashCode(Object target) throws ReflectionException;
+
+    abstract int compare(Object a, Object b) throws ReflectionException;
+
+    abstract void append(StringBuilder builder, Object target) throws ReflectionException;
+
+    private static final class IntStrategy extends FieldStrategy {
+
+        IntStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getInt(a) == field.getInt(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Integer.hashCode(field.getInt(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Integer.compare(field.getInt(a), field.getInt(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getInt(target));
+        }
+    }
+
+    private static final class LongStrategy extends FieldStrategy {
+
+        LongStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getLong(a) == field.getLong(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Long.hashCode(field.getLong(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Long.compare(field.getLong(a), field.getLong(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getLong(target));
+        }
+    }
+
+    private static final class DoubleStrategy extends FieldStrategy {
+
+        DoubleStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return Double.doubleToLongBits(field.getDouble(a)) == Double.doubleToLongBits(field.getDouble(b));
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Double.hashCode(field.getDouble(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Double.compare(field.getDouble(a), field.getDouble(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getDouble(target));
+        }
+    }
+
+    private static final class FloatStrategy extends FieldStrategy {
+
+        FloatStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return Float.floatToIntBits(field.getFloat(a)) == Float.floatToIntBits(field.getFloat(b));
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Float.hashCode(field.getFloat(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Float.compare(field.getFloat(a), field.getFloat(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getFloat(target));
+        }
+    }
+
+    private static final class BooleanStrategy extends FieldStrategy {
+
+        BooleanStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getBoolean(a) == field.getBoolean(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Boolean.hashCode(field.getBoolean(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Boolean.compare(field.getBoolean(a), field.getBoolean(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getBoolean(target));
+        }
+    }
+
+    private static final class ByteStrategy extends FieldStrategy {
+
+        ByteStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getByte(a) == field.getByte(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Byte.hashCode(field.getByte(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Byte.compare(field.getByte(a), field.getByte(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getByte(target));
+        }
+    }
+
+    private static final class ShortStrategy extends FieldStrategy {
+
+        ShortStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getShort(a) == field.getShort(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Short.hashCode(field.getShort(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Short.compare(field.getShort(a), field.getShort(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getShort(target));
+        }
+    }
+
+    private static final class CharStrategy extends FieldStrategy {
+
+        CharStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return field.getChar(a) == field.getChar(b);
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return Character.hashCode(field.getChar(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return Character.compare(field.getChar(a), field.getChar(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(field.getChar(target));
+        }
+    }
+
+    /**
+     * Compares arrays by content, like {@link Arrays#deepEquals(Object[], Object[])}, and orders them
+     * lexicographically, shorter arrays first when one is a prefix of the other.
+     */
+    private static final class ArrayStrategy extends FieldStrategy {
+
+        ArrayStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return Objects.deepEquals(field.get(a), field.get(b));
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return hashArray(field.get(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return compareArrays(field.get(a), field.get(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(arrayToString(field.get(target)));
+        }
+    }
+
+    /**
+     * Compares references with {@link Object#equals(Object)} and orders them by their natural ordering, nulls
+     * first. Arrays held by fields of a non-array type are treated like by {@link ArrayStrategy}.
+     */
+    private static final class ReferenceStrategy extends FieldStrategy {
+
+        ReferenceStrategy(CompiledField field) {
+            super(field);
+        }
+
+        @Override
+        boolean equals(Object a, Object b) throws ReflectionException {
+            return Objects.deepEquals(field.get(a), field.get(b));
+        }
+
+        @Override
+        int hashCode(Object target) throws ReflectionException {
+            return hashValue(field.get(target));
+        }
+
+        @Override
+        int compare(Object a, Object b) throws ReflectionException {
+            return compareValues(field.get(a), field.get(b));
+        }
+
+        @Override
+        void append(StringBuilder builder, Object target) throws ReflectionException {
+            builder.append(valueToString(field.get(target)));
+        }
+    }
+
+    static int hashValue(Object value) {
+        return value != null && value.getClass().isArray() ? hashArray(value) : Objects.hashCode(value);
+    }
+
+    static String valueToString(Object value) {
+        return value != null && value.getClass().isArray() ? arrayToString(value) : String.valueOf(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        } else if (a == null) {
+            return -1;
+        } else if (b == null) {
+            return 1;
+        } else if (a.getClass().isArray() && b.getClass().isArray()) {
+            return compareArrays(a, b);
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static int compareArrays(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        } else if (a == null) {
+            return -1;
+        } else if (b == null) {
+            return 1;
+        } else if (a instanceof int[] && b instanceof int[]) {
+            int[] x = (int[]) a;
+            int[] y = (int[]) b;
+            for (int i = 0, length = Math.min(x.length, y.length); i < length; i++) {
+                if (x[i] != y[i]) {
+                    return Integer.compare(x[i], y[i]);
+                }
+            }
+            return Integer.compare(x.length, y.length);
+        } else if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            for (int i = 0, length = Math.min(x.length, y.length); i < length; i++) {
+                if (x[i] != y[i]) {
+                    return Long.compare(x[i], y[i]);
+                }
+            }
+            return Integer.compare(x.length, y.length);
+        } else if (a instanceof byte[] && b instanceof byte[]) {
+            byte[] x = (byte[]) a;
+            byte[] y = (byte[]) b;
+            for (int i = 0, length = Math.min(x.length, y.length); i < length; i++) {
+                if (x[i] != y[i]) {
+                    return Byte.compare(x[i], y[i]);
+                }
+            }
+            return Integer.compare(x.length, y.length);
+        } else if (a instanceof char[] && b instanceof char[]) {
+            char[] x = (char[]) a;
+            char[] y = (char[]) b;
+            for (int i = 0, length = Math.min(x.length, y.length); i < length; i++) {
+                if (x[i] != y[i]) {
+                    return Character.compare(x[i], y[i]);
+                }
+            }
+            return Integer.compare(x.length, y.length);
+        } else if (a instanceof Object[] && b instanceof Object[]) {
+            Object[] x = (Object[]) a;
+            Object[] y = (Object[]) b;
+            for (int i = 0, length = Math.min(x.length, y.length); i < length; i++) {
+                int result = compareValues(x[i], y[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(x.length, y.length);
+        }
+        int length = Math.min(Array.getLength(a), Array.getLength(b));
+        for (int i = 0; i < length; i++) {
+            int result = compareValues(Array.get(a, i), Array.get(b, i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(Array.getLength(a), Array.getLength(b));
+    }
+
+    private static int hashArray(Object array) {
+        if (array instanceof Object[]) {
+            return Arrays.deepHashCode((Object[]) array);
+        } else if (array instanceof int[]) {
+            return Arrays.hashCode((int[]) array);
+        } else if (array instanceof long[]) {
+            return Arrays.hashCode((long[]) array);
+        } else if (array instanceof byte[]) {
+            return Arrays.hashCode((byte[]) array);
+        } else if (array instanceof char[]) {
+            return Arrays.hashCode((char[]) array);
+        } else if (array instanceof double[]) {
+            return Arrays.hashCode((double[]) array);
+        } else if (array instanceof float[]) {
+            return Arrays.hashCode((float[]) array);
+        } else if (array instanceof boolean[]) {
+            return Arrays.hashCode((boolean[]) array);
+        } else if (array instanceof short[]) {
+            return Arrays.hashCode((short[]) array);
+        }
+        return 0;
+    }
+
+    private static String arrayToString(Object array) {
+        if (array instanceof Object[]) {
+            return Arrays.deepToString((Object[]) array);
+        } else if (array instanceof int[]) {
+            return Arrays.toString((int[]) array);
+        } else if (array instanceof long[]) {
+            return Arrays.toString((long[]) array);
+        } else if (array instanceof byte[]) {
+            return Arrays.toString((byte[]) array);
+        } else if (array instanceof char[]) {
+            return Arrays.toString((char[]) array);
+        } else if (array instanceof double[]) {
+            return Arrays.toString((double[]) array);
+        } else if (array instanceof float[]) {
+            return Arrays.toString((float[]) array);
+        } else if (array instanceof boolean[]) {
+            return Arrays.toString((boolean[]) array);
+        } else if (array instanceof short[]) {
+            return Arrays.toString((short[]) array);
+        }
+        return "null";
+    }
+}
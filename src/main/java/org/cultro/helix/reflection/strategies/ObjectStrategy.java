@@ -0,0 +1,294 @@
+package org.cultro.helix.reflection.strategies;
+
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.lang.Validate;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.metadata.FieldMetadata;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled {@code equals}, {@code hashCode}, {@code compare} and {@code toString} functions over fields of a class,
+ * for classes that do not implement them or whose own implementations do not fit, such as composite cache keys.
+ * <p>
+ * A strategy is built once per class and field selection from the cached metadata of the class and reads the
+ * fields through compiled accessors. Primitive fields are compared and hashed without boxing; arrays are compared
+ * by content. Hash codes combine the field hashes like {@link java.util.Objects#hash(Object...)} would, and
+ * comparison is lexicographic over the fields in their order, with nulls first and other references ordered by
+ * their natural ordering.
+ * </p>
+ * <p>
+ * Fields declared by JDK classes are never read. Objects of JDK classes and arrays are compared with their own
+ * {@code equals}, {@code hashCode}, {@code compareTo} and {@code toString}, arrays by content, and for classes
+ * extending a JDK class other than {@code Object} only the fields declared below it are covered.
+ * </p>
+ * <pre>{@code
+ * ObjectStrategy<Key> strategy = ObjectStrategy.of(Key.class, "tenant", "id");
+ * boolean same = strategy.equals(a, b);
+ * int hash = strategy.hashCode(a);
+ * keys.sort(strategy);
+ * }</pre>
+ *
+ * @param <T> The type of the compared objects.
+ */
+public final class ObjectStrategy<T> implements Comparator<T> {
+
+    private static final List<String> ALL_FIELDS = Collections.emptyList();
+
+    private static final ClassValue<ConcurrentMap<List<String>, ObjectStrategy<?>>> STRATEGIES = new ClassValue<ConcurrentMap<List<String>, ObjectStrategy<?>>>() {
+        @Override
+        protected ConcurrentMap<List<String>, ObjectStrategy<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Class<T> type;
+    private final FieldStrategy[] fields;
+    private final boolean delegating;
+
+    private ObjectStrategy(Class<T> type, FieldStrategy[] fields) {
+        this.type = type;
+        this.fields = fields;
+        this.delegating = isDelegating(type);
+    }
+
+    /**
+     * Returns the strategy over all non-transient instance fields of a class and its superclasses.
+     *
+     * @param type The class.
+     * @param <T>  The type of the class.
+     * @return The cached strategy.
+     * @throws ReflectionException If the metadata of the class cannot be read.
+     */
+    public static <T> ObjectStrategy<T> of(Class<T> type) throws ReflectionException {
+        return of(type, ALL_FIELDS);
+    }
+
+    /**
+     * Returns the strategy over the given instance fields of a class or its superclasses, in the given order.
+     *
+     * @param type   The class.
+     * @param fields The names of the fields, or none for all non-transient instance fields.
+     * @param <T>    The type of the class.
+     * @return The cached strategy.
+     * @throws ReflectionException If the metadata of the class cannot be read, it has no field of a given name, or
+     *                             fields are given for a JDK class or an array.
+     */
+    public static <T> ObjectStrategy<T> of(Class<T> type, String... fields) throws ReflectionException {
+        Validate.notNull(fields, "Field names cannot be null");
+        return of(type, fields.length == 0 ? ALL_FIELDS : Collections.unmodifiableList(new ArrayList<>(Arrays.asList(fields))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectStrategy<T> of(Class<T> type, List<String> names) throws ReflectionException {
+        Validate.notNull(type, "Type cannot be null");
+        ConcurrentMap<List<String>, ObjectStrategy<?>> strategies = STRATEGIES.get(type);
+        ObjectStrategy<?> strategy = strategies.get(names);
+        if (strategy == null) {
+            ObjectStrategy<?> created = new ObjectStrategy<>(type, compile(type, names));
+            strategy = strategies.putIfAbsent(names, created);
+            if (strategy == null) {
+                strategy = created;
+            }
+        }
+        return (ObjectStrategy<T>) strategy;
+    }
+
+    private static FieldStrategy[] compile(Class<?> type, List<String> names) throws ReflectionException {
+        if (isDelegating(type)) {
+            if (names != ALL_FIELDS) {
+                throw new ReflectionException("Fields of class " + type.getName() + " cannot be selected");
+            }
+            return new FieldStrategy[0];
+        }
+        List<FieldMetadata> layout;
+        try {
+            layout = ClassMetadata.getCachedMetadata(type).getFieldLayout();
+        } catch (MetadataException e) {
+            throw new ReflectionException("Failed to read the fields of class " + type.getName(), e);
+        }
+        List<Field> selected = new ArrayList<>();
+        if (names == ALL_FIELDS) {
+            for (FieldMetadata metadata : layout) {
+                Field field = metadata.getField();
+                if (!Modifier.isTransient(field.getModifiers()) && !field.isSynthetic() && !isJdkClass(field.getDeclaringClass())) {
+                    selected.add(field);
+                }
+            }
+        } else {
+            for (String name : names) {
+                Field match = null;
+                for (FieldMetadata metadata : layout) {
+                    Field field = metadata.getField();
+                    if (field.getName().equals(name) && !isJdkClass(field.getDeclaringClass())) {
+                        match = field; // the last match is declared by the most specific class
+                    }
+                }
+                if (match == null) {
+                    throw new ReflectionException("No instance field " + name + " in class " + type.getName());
+                }
+                selected.add(match);
+            }
+        }
+        FieldStrategy[] strategies = new FieldStrategy[selected.size()];
+        for (int i = 0; i < strategies.length; i++) {
+            Field field = selected.get(i);
+            strategies[i] = FieldStrategy.of(FieldLayout.of(field.getDeclaringClass()).getDeclaredField(field.getName()));
+        }
+        return strategies;
+    }
+
+    private static boolean isDelegating(Class<?> type) {
+        return type.isArray() || type.isPrimitive() || isJdkClass(type);
+    }
+
+    private static boolean isJdkClass(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    /**
+     * Returns the class this strategy was built for.
+     *
+     * @return The class.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the names of the fields this strategy covers, in the order they are compared in.
+     *
+     * @return The field names.
+     */
+    public List<String> getFieldNames() {
+        List<String> names = new ArrayList<>(fields.length);
+        for (FieldStrategy field : fields) {
+            names.add(field.field.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Returns whether two objects are equal in all fields of this strategy. Objects of different classes are not
+     * equal.
+     *
+     * @param a The first object, or null.
+     * @param b The second object, or null.
+     * @return Whether the objects are equal.
+     */
+    public boolean equals(T a, T b) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null || a.getClass() != b.getClass()) {
+            return false;
+        } else if (delegating) {
+            return Objects.deepEquals(a, b);
+        }
+        try {
+            for (FieldStrategy field : fields) {
+                if (!field.equals(a, b)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ReflectionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a hash code of the fields of this strategy that is consistent with {@link #equals(Object, Object)}.
+     *
+     * @param object The object, or null.
+     * @return The hash code, or 0 for null.
+     */
+    public int hashCode(T object) {
+        if (object == null) {
+            return 0;
+        } else if (delegating) {
+            return FieldStrategy.hashValue(object);
+        }
+        try {
+            int hash = 1;
+            for (FieldStrategy field : fields) {
+                hash = 31 * hash + field.hashCode(object);
+            }
+            return hash;
+        } catch (ReflectionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compares two objects field by field, in the order of the fields of this strategy.
+     *
+     * @param a The first object, or null.
+     * @param b The second object, or null.
+     * @return A negative number, zero or a positive number if the first object is less than, equal to or greater
+     * than the second.
+     * @throws ClassCastException If a field holds objects that are not comparable to each other.
+     */
+    @Override
+    public int compare(T a, T b) {
+        if (a == b) {
+            return 0;
+        } else if (a == null) {
+            return -1;
+        } else if (b == null) {
+            return 1;
+        } else if (delegating) {
+            return FieldStrategy.compareValues(a, b);
+        }
+        try {
+            for (FieldStrategy field : fields) {
+                int result = field.compare(a, b);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        } catch (ReflectionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a description of the fields of this strategy, such as {@code Key{tenant=acme, id=42}}.
+     *
+     * @param object The object, or null.
+     * @return The description.
+     */
+    public String toString(T object) {
+        if (object == null) {
+            return "null";
+        } else if (delegating) {
+            return FieldStrategy.valueToString(object);
+        }
+        StringBuilder builder = new StringBuilder(type.getSimpleName()).append('{');
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(fields[i].field.getName()).append('=');
+                fields[i].append(builder, object);
+            }
+        } catch (ReflectionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return builder.append('}').toString();
+    }
+}
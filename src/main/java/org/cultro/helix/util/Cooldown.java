@@ -2,37 +2,109 @@ package org.cultro.helix.util;
 
 import org.cultro.helix.lang.Validate;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Tracks objects that are on cooldown for a fixed time. Safe for concurrent use.
+ * <p>
+ * Expired cooldowns are dropped by a timing wheel that is advanced whenever the cooldown is used, so
+ * the number of tracked objects stays bounded by those put on cooldown within the last cooldown time.
+ * </p>
+ *
+ * @param <T> The type of objects put on cooldown.
+ */
 @SuppressWarnings("unused")
 public final class Cooldown<T> {
 
-    private final HashMap<T, Long> cooldownMap = new HashMap<>();
-    private final long cooldownTimeInMills;
+    private final ConcurrentHashMap<T, Long> cooldownMap = new ConcurrentHashMap<>();
+    private final TimingWheel<T> wheel;
+    private final TimingWheel.ExpiryHandler<T> expiryHandler = this::expire;
+    private final long cooldownTimeInNanos;
 
     public Cooldown(long cooldownTimeInMills) {
-        this.cooldownTimeInMills = cooldownTimeInMills;
+        this.cooldownTimeInNanos = TimeUnit.MILLISECONDS.toNanos(cooldownTimeInMills);
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), cooldownTimeInNanos / 64);
+        this.wheel = new TimingWheel<>(tickNanos, 512, System.nanoTime());
     }
 
     public void addToCooldown(T object) {
         Validate.notNull(object, "A null object cannot be put on cooldown");
-        cooldownMap.put(object, System.currentTimeMillis());
+        long now = System.nanoTime();
+        wheel.advance(now, expiryHandler);
+        long expiresAt = now + cooldownTimeInNanos;
+        if (cooldownMap.put(object, expiresAt) == null) {
+            wheel.schedule(object, expiresAt);
+        }
+    }
+
+    /**
+     * Puts the object on cooldown unless it already is, as a single atomic step.
+     *
+     * @param object The object to put on cooldown.
+     * @return True if the cooldown was started, false if the object was still on cooldown.
+     */
+    public boolean tryStartCooldown(T object) {
+        Validate.notNull(object, "A null object cannot be put on cooldown");
+        long now = System.nanoTime();
+        wheel.advance(now, expiryHandler);
+        long expiresAt = now + cooldownTimeInNanos;
+        while (true) {
+            Long current = cooldownMap.putIfAbsent(object, expiresAt);
+            if (current == null) {
+                wheel.schedule(object, expiresAt);
+                return true;
+            }
+            if (current - now > 0) {
+                return false;
+            }
+            if (cooldownMap.replace(object, current, expiresAt)) {
+                return true;
+            }
+        }
     }
 
     public long getMillsRemaining(T object) {
         Validate.notNull(object, "A null object cannot be on cooldown");
-        long remaining = 0;
-        if (cooldownMap.containsKey(object)) {
-            remaining = cooldownTimeInMills - (System.currentTimeMillis() - cooldownMap.get(object));
-            if (remaining <= 0) {
-                cooldownMap.remove(object);
-                remaining = 0;
-            }
+        long now = System.nanoTime();
+        wheel.advance(now, expiryHandler);
+        Long expiresAt = cooldownMap.get(object);
+        if (expiresAt == null) {
+            return 0;
         }
-        return remaining;
+        long remaining = expiresAt - now;
+        if (remaining <= 0) {
+            cooldownMap.remove(object, expiresAt);
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(remaining) + 1;
     }
 
     public boolean isCooldownOver(T object) {
         return getMillsRemaining(object) <= 0;
     }
+
+    /**
+     * Returns the number of objects currently tracked, including expired ones not purged yet.
+     *
+     * @return The number of tracked objects.
+     */
+    public int size() {
+        return cooldownMap.size();
+    }
+
+    private long expire(T object, long now) {
+        while (true) {
+            Long expiresAt = cooldownMap.get(object);
+            if (expiresAt == null) {
+                return TimingWheel.DROP;
+            }
+            if (expiresAt - now > 0) {
+                return expiresAt;
+            }
+            if (cooldownMap.remove(object, expiresAt)) {
+                return TimingWheel.DROP;
+            }
+        }
+    }
 }
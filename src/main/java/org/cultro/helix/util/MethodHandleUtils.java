@@ -0,0 +1,131 @@
+package org.cultro.helix.util;
+
+import org.cultro.helix.lang.ReflectionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Utility class for obtaining method handles for reflective members, regardless of their access modifiers.
+ */
+public final class MethodHandleUtils {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Method PRIVATE_LOOKUP_IN;
+    private static final Constructor<MethodHandles.Lookup> LOOKUP_CONSTRUCTOR;
+
+    static {
+        Method privateLookupIn = null;
+        Constructor<MethodHandles.Lookup> lookupConstructor = null;
+        try {
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            try {
+                lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+                lookupConstructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException ignored) {
+                lookupConstructor = null;
+            }
+        }
+        PRIVATE_LOOKUP_IN = privateLookupIn;
+        LOOKUP_CONSTRUCTOR = lookupConstructor;
+    }
+
+    private MethodHandleUtils() {
+    }
+
+    /**
+     * Returns a lookup with private access to the given class, as if the lookup had been created inside it.
+     * Uses {@code MethodHandles.privateLookupIn} where available and the private lookup constructor on Java 8.
+     *
+     * @param clazz The class to look up members in.
+     * @return A full-privilege lookup on the class.
+     * @throws ReflectionException If the runtime refuses private access to the class.
+     */
+    public static MethodHandles.Lookup privateLookupIn(Class<?> clazz) throws ReflectionException {
+        try {
+            if (PRIVATE_LOOKUP_IN != null) {
+                return (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null, clazz, LOOKUP);
+            }
+            if (LOOKUP_CONSTRUCTOR != null) {
+                return LOOKUP_CONSTRUCTOR.newInstance(clazz, -1);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ReflectionException("Private access to class " + clazz.getName() + " is not permitted", e);
+        }
+        throw new ReflectionException("Private lookups are not supported by this runtime");
+    }
+
+    /**
+     * Returns a method handle for the method, making it accessible first.
+     *
+     * @param method The method.
+     * @return A direct method handle.
+     * @throws ReflectionException If the method cannot be made accessible.
+     */
+    public static MethodHandle unreflect(Method method) throws ReflectionException {
+        try {
+            return LOOKUP.unreflect(accessible(method));
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException("Unable to access method " + method.getName(), e);
+        }
+    }
+
+    /**
+     * Returns a method handle for the constructor, making it accessible first.
+     *
+     * @param constructor The constructor.
+     * @return A direct method handle creating new instances.
+     * @throws ReflectionException If the constructor cannot be made accessible.
+     */
+    public static MethodHandle unreflectConstructor(Constructor<?> constructor) throws ReflectionException {
+        try {
+            return LOOKUP.unreflectConstructor(accessible(constructor));
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException("Unable to access constructor of " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * Returns a method handle reading the field, making it accessible first.
+     *
+     * @param field The field.
+     * @return A getter method handle.
+     * @throws ReflectionException If the field cannot be made accessible.
+     */
+    public static MethodHandle unreflectGetter(Field field) throws ReflectionException {
+        try {
+            return LOOKUP.unreflectGetter(accessible(field));
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException("Unable to access field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * Returns a method handle writing the field, making it accessible first.
+     *
+     * @param field The field.
+     * @return A setter method handle.
+     * @throws ReflectionException If the field cannot be made accessible or is a static final field.
+     */
+    public static MethodHandle unreflectSetter(Field field) throws ReflectionException {
+        try {
+            return LOOKUP.unreflectSetter(accessible(field));
+        } catch (IllegalAccessException e) {
+            throw new ReflectionException("Unable to set field " + field.getName(), e);
+        }
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member) throws ReflectionException {
+        try {
+            member.setAccessible(true);
+            return member;
+        } catch (RuntimeException e) {
+            throw new ReflectionException("Unable to make " + member + " accessible", e);
+        }
+    }
+}
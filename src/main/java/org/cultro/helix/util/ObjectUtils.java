@@ -1,9 +1,12 @@
 package org.cultro.helix.util;
 
 
+import org.cultro.helix.lang.ReflectionException;
 import org.cultro.helix.lang.Validate;
+import org.cultro.helix.reflection.cloning.DeepCloner;
+import org.cultro.helix.reflection.strategies.ObjectStrategy;
 
-import java.io.*;
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
@@ -12,23 +15,83 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public final class ObjectUtils {
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Creates a deep copy of an object graph with {@link DeepCloner}, which copies fields directly instead of
+     * serializing the graph, so the objects need not actually be serializable.
+     *
+     * @param object The object to copy.
+     * @param <T>    The type of the object.
+     * @return The copy.
+     * @throws RuntimeException If an object in the graph cannot be copied.
+     */
     public static <T extends Serializable> T deepCopy(T object) {
-        T copy;
         try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            ObjectOutputStream objectStream = new ObjectOutputStream(byteStream);
-            objectStream.writeObject(object);
-            objectStream.flush();
-            ByteArrayInputStream inputByteStream = new ByteArrayInputStream(byteStream.toByteArray());
-            ObjectInputStream objectInputStream = new ObjectInputStream(inputByteStream);
-            copy = (T) objectInputStream.readObject();
-            objectStream.close();
-            inputByteStream.close();
-        } catch (Exception e) {
+            return DeepCloner.copy(object);
+        } catch (ReflectionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the cached {@link ObjectStrategy} over fields of a class, whose {@code equals}, {@code hashCode},
+     * {@code compare} and {@code toString} functions read the fields through compiled accessors instead of
+     * reflecting on every call.
+     *
+     * @param type   The class.
+     * @param fields The names of the fields, or none for all non-transient instance fields.
+     * @param <T>    The type of the class.
+     * @return The strategy.
+     * @throws RuntimeException If the class has no instance field of a given name.
+     */
+    public static <T> ObjectStrategy<T> strategy(Class<T> type, String... fields) {
+        try {
+            return ObjectStrategy.of(type, fields);
+        } catch (ReflectionException e) {
             throw new RuntimeException(e);
         }
-        return copy;
+    }
+
+    /**
+     * Returns whether two objects are of the same class and equal in all their non-transient instance fields.
+     * Objects of JDK classes are compared with their own {@code equals}, and arrays by content.
+     *
+     * @param a The first object, or null.
+     * @param b The second object, or null.
+     * @return Whether the objects are equal.
+     */
+    public static boolean reflectionEquals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null || a.getClass() != b.getClass()) {
+            return false;
+        }
+        return strategyOf(a).equals(a, b);
+    }
+
+    /**
+     * Returns a hash code of all non-transient instance fields of an object, consistent with
+     * {@link #reflectionEquals(Object, Object)}.
+     *
+     * @param object The object, or null.
+     * @return The hash code, or 0 for null.
+     */
+    public static int reflectionHashCode(Object object) {
+        return object == null ? 0 : strategyOf(object).hashCode(object);
+    }
+
+    /**
+     * Returns a description of all non-transient instance fields of an object, such as {@code Key{id=42}}.
+     *
+     * @param object The object, or null.
+     * @return The description.
+     */
+    public static String reflectionToString(Object object) {
+        return object == null ? "null" : strategyOf(object).toString(object);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectStrategy<Object> strategyOf(Object object) {
+        return (ObjectStrategy<Object>) strategy(object.getClass());
     }
 
     @SafeVarargs
@@ -0,0 +1,215 @@
+package org.cultro.helix.util;
+
+import org.cultro.helix.lang.Validate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent per-key token bucket rate limiter.
+ * <p>
+ * Every key owns a bucket of {@code permits} tokens that refills completely within {@code period}. Buckets are
+ * implemented with the generic cell rate algorithm: the whole state of a key is a single {@code long}, the
+ * time at which its bucket will be full again, so {@link #tryAcquire(Object, int)} is one map lookup and one
+ * compare-and-set without locks. A bucket whose refill time has passed is indistinguishable from a new one,
+ * so idle keys are dropped by a timing wheel that callers advance as a side effect of acquiring. Memory
+ * therefore follows the number of keys active within the last period, not the number of keys ever seen.
+ * </p>
+ *
+ * @param <T> The type of keys.
+ */
+@SuppressWarnings("unused")
+public final class RateLimiter<T> {
+
+    private static final long DEAD = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<T, Bucket<T>> buckets = new ConcurrentHashMap<>();
+    private final TimingWheel<Bucket<T>> wheel;
+    private final TimingWheel.ExpiryHandler<Bucket<T>> expiryHandler = this::expire;
+    private final int permits;
+    private final long intervalNanos;
+    private final long periodNanos;
+
+    /**
+     * Creates a rate limiter that allows {@code permits} acquisitions per {@code period} and key, all of which
+     * may be used in a single burst.
+     *
+     * @param permits The capacity of every bucket.
+     * @param period  The time in which an empty bucket refills completely.
+     * @param unit    The unit of the period.
+     */
+    public RateLimiter(int permits, long period, TimeUnit unit) {
+        Validate.notNull(unit, "TimeUnit cannot be null");
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be greater than zero.");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be greater than zero.");
+        }
+        this.permits = permits;
+        this.intervalNanos = Math.max(1, unit.toNanos(period) / permits);
+        this.periodNanos = intervalNanos * permits;
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), periodNanos / 64);
+        this.wheel = new TimingWheel<>(tickNanos, 512, System.nanoTime());
+    }
+
+    /**
+     * Tries to take one permit for the given key.
+     *
+     * @param key The key to take the permit for.
+     * @return True if the permit was granted.
+     */
+    public boolean tryAcquire(T key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * Tries to take the given number of permits for the key, all or nothing.
+     *
+     * @param key     The key to take the permits for.
+     * @param permits The number of permits to take.
+     * @return True if the permits were granted.
+     */
+    public boolean tryAcquire(T key, int permits) {
+        Validate.notNull(key, "A null key cannot be rate limited");
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be greater than zero.");
+        }
+        if (permits > this.permits) {
+            return false;
+        }
+        long now = System.nanoTime();
+        wheel.advance(now, expiryHandler);
+        long cost = permits * intervalNanos;
+        while (true) {
+            Bucket<T> bucket = buckets.get(key);
+            if (bucket == null) {
+                Bucket<T> created = new Bucket<>(key, now + cost);
+                bucket = buckets.putIfAbsent(key, created);
+                if (bucket == null) {
+                    wheel.schedule(created, now + cost);
+                    return true;
+                }
+            }
+            long fullAt = bucket.get();
+            if (fullAt == DEAD) {
+                buckets.remove(key, bucket);
+                continue;
+            }
+            long next = Math.max(fullAt, now) + cost;
+            if (next - now > periodNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns how many permits the key could take right now.
+     *
+     * @param key The key to check.
+     * @return The number of available permits.
+     */
+    public int availablePermits(T key) {
+        Validate.notNull(key, "A null key cannot be rate limited");
+        Bucket<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            return permits;
+        }
+        long fullAt = bucket.get();
+        long now = System.nanoTime();
+        if (fullAt == DEAD || fullAt <= now) {
+            return permits;
+        }
+        return (int) Math.max(0, (periodNanos - (fullAt - now)) / intervalNanos);
+    }
+
+    /**
+     * Returns the time until the key may take the given number of permits.
+     *
+     * @param key     The key to check.
+     * @param permits The number of permits.
+     * @return The wait time in milliseconds, 0 if the permits are available now.
+     */
+    public long getMillisUntilAvailable(T key, int permits) {
+        Validate.notNull(key, "A null key cannot be rate limited");
+        if (permits <= 0 || permits > this.permits) {
+            throw new IllegalArgumentException("Permits must be between 1 and " + this.permits + ".");
+        }
+        Bucket<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+        long fullAt = bucket.get();
+        long now = System.nanoTime();
+        if (fullAt == DEAD) {
+            return 0;
+        }
+        long wait = Math.max(fullAt, now) + permits * intervalNanos - now - periodNanos;
+        return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+    }
+
+    /**
+     * Refills the bucket of the key.
+     *
+     * @param key The key to reset.
+     */
+    public void reset(T key) {
+        Validate.notNull(key, "A null key cannot be rate limited");
+        Bucket<T> bucket = buckets.remove(key);
+        if (bucket != null) {
+            bucket.set(DEAD);
+        }
+    }
+
+    /**
+     * Drops the buckets of all keys that have been idle long enough to be full again.
+     * This happens automatically while permits are acquired; call it to reclaim memory after a burst of keys
+     * when no further acquisitions are expected.
+     */
+    public void purge() {
+        wheel.advance(System.nanoTime(), expiryHandler);
+    }
+
+    /**
+     * Returns the number of keys currently tracked.
+     *
+     * @return The number of buckets.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private long expire(Bucket<T> bucket, long now) {
+        while (true) {
+            long fullAt = bucket.get();
+            if (fullAt == DEAD) {
+                return TimingWheel.DROP;
+            }
+            if (fullAt - now > 0) {
+                return fullAt;
+            }
+            if (bucket.compareAndSet(fullAt, DEAD)) {
+                buckets.remove(bucket.key, bucket);
+                return TimingWheel.DROP;
+            }
+        }
+    }
+
+    /**
+     * A bucket is its own timestamp, saving an object and an indirection per key. It is never serialized.
+     */
+    private static final class Bucket<T> extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        private final transient T key;
+
+        private Bucket(T key, long fullAt) {
+            super(fullAt);
+            this.key = key;
+        }
+    }
+}
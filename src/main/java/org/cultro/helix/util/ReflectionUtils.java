@@ -2,16 +2,17 @@ package org.cultro.helix.util;
 
 import org.cultro.helix.lang.MetadataException;
 import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.OverloadResolver;
 import org.cultro.helix.reflection.metadata.ConstructorMetadata;
 import org.cultro.helix.reflection.metadata.FieldMetadata;
 import org.cultro.helix.reflection.metadata.MethodMetadata;
+import org.cultro.helix.reflection.scanners.ClassResource;
+import org.cultro.helix.reflection.scanners.ClasspathScanner;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
 
 /**
@@ -28,20 +29,25 @@ public class ReflectionUtils {
      * @return The matching Method object, or null if not found.
      */
     public static Method findMethod(Class<?> clazz, String methodName, Object... args) {
-        Method[] methods = clazz.getDeclaredMethods();
-        outer:
-        for (Method method : methods) {
-            if (!method.getName().equals(methodName)) continue;
-            Class<?>[] paramTypes = method.getParameterTypes();
-            if (paramTypes.length != args.length) continue;
-            for (int i = 0; i < paramTypes.length; i++) {
-                if (args[i] != null && !paramTypes[i].isAssignableFrom(args[i].getClass())) {
-                    continue outer;
-                }
-            }
-            return method;
+        return findMethodForArgumentTypes(clazz, methodName, getArgumentTypes(args));
+    }
+
+    /**
+     * Finds the method in the given class that a call with arguments of the given runtime classes binds to.
+     * A null entry stands for a null argument and matches any reference parameter type. Methods are chosen
+     * like the compiler would, see {@link OverloadResolver}.
+     *
+     * @param clazz         The class to search for the method.
+     * @param methodName    The name of the method.
+     * @param argumentTypes The classes of the arguments.
+     * @return The most specific matching Method object, or null if none or several equally specific ones are found.
+     */
+    public static Method findMethodForArgumentTypes(Class<?> clazz, String methodName, Class<?>[] argumentTypes) {
+        try {
+            return OverloadResolver.resolveMethod(clazz, methodName, argumentTypes);
+        } catch (ReflectionException e) {
+            return null;
         }
-        return null;
     }
 
     /**
@@ -53,21 +59,39 @@ public class ReflectionUtils {
      * @return The matching Constructor object, or null if not found.
      */
     public static <T> Constructor<T> findConstructor(Class<T> clazz, Object... args) {
-        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-        outer:
-        for (Constructor<?> constructor : constructors) {
-            Class<?>[] paramTypes = constructor.getParameterTypes();
-            if (paramTypes.length != args.length) continue;
-            for (int i = 0; i < paramTypes.length; i++) {
-                if (args[i] != null && !paramTypes[i].isAssignableFrom(args[i].getClass())) {
-                    continue outer;
-                }
-            }
-            @SuppressWarnings("unchecked")
-            Constructor<T> matchedConstructor = (Constructor<T>) constructor;
-            return matchedConstructor;
+        return findConstructorForArgumentTypes(clazz, getArgumentTypes(args));
+    }
+
+    /**
+     * Finds the constructor in the given class that a call with arguments of the given runtime classes binds to.
+     * A null entry stands for a null argument and matches any reference parameter type. Constructors are chosen
+     * like the compiler would, see {@link OverloadResolver}.
+     *
+     * @param clazz         The class to search for the constructor.
+     * @param argumentTypes The classes of the arguments.
+     * @param <T>           The type of the class.
+     * @return The most specific matching Constructor object, or null if none or several equally specific ones are found.
+     */
+    public static <T> Constructor<T> findConstructorForArgumentTypes(Class<T> clazz, Class<?>[] argumentTypes) {
+        try {
+            return OverloadResolver.resolveConstructor(clazz, argumentTypes);
+        } catch (ReflectionException e) {
+            return null;
         }
-        return null;
+    }
+
+    /**
+     * Returns the runtime classes of the given arguments, with null entries for null arguments.
+     *
+     * @param args The arguments.
+     * @return The classes of the arguments.
+     */
+    public static Class<?>[] getArgumentTypes(Object... args) {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] == null ? null : args[i].getClass();
+        }
+        return types;
     }
 
     /**
@@ -146,7 +170,8 @@ public class ReflectionUtils {
     }
 
     /**
-     * Retrieves all classes within the specified package.
+     * Retrieves all classes within the specified package and its subpackages, from directories and jars.
+     * The classes are loaded but not initialized.
      *
      * @param packageName The package name to scan.
      * @return A list of Class objects.
@@ -154,41 +179,15 @@ public class ReflectionUtils {
      */
     public static List<Class<?>> getClassesInPackage(String packageName) throws MetadataException {
         try {
-            String path = packageName.replace('.', '/');
-            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-            Enumeration<URL> resources = classLoader.getResources(path);
-            List<java.io.File> dirs = new ArrayList<>();
-            while (resources.hasMoreElements()) {
-                java.net.URL resource = resources.nextElement();
-                dirs.add(new java.io.File(resource.getFile()));
-            }
-            ArrayList<Class<?>> classes = new ArrayList<>();
-            for (java.io.File directory : dirs) {
-                classes.addAll(findClasses(directory, packageName));
+            ClasspathScanner scanner = new ClasspathScanner();
+            List<ClassResource> resources = scanner.scan(packageName);
+            List<Class<?>> classes = new ArrayList<>(resources.size());
+            for (ClassResource resource : resources) {
+                classes.add(resource.load(scanner.getClassLoader()));
             }
             return classes;
         } catch (Exception e) {
             throw new MetadataException("Failed to get classes in package " + packageName, e);
         }
     }
-
-    private static List<Class<?>> findClasses(java.io.File directory, String packageName) throws ClassNotFoundException {
-        List<Class<?>> classes = new ArrayList<>();
-        if (!directory.exists()) {
-            return classes;
-        }
-        java.io.File[] files = directory.listFiles();
-        if (files == null) {
-            return classes;
-        }
-        for (java.io.File file : files) {
-            if (file.isDirectory()) {
-                assert !file.getName().contains(".");
-                classes.addAll(findClasses(file, packageName + "." + file.getName()));
-            } else if (file.getName().endsWith(".class")) {
-                classes.add(Class.forName(packageName + '.' + file.getName().substring(0, file.getName().length() - 6)));
-            }
-        }
-        return classes;
-    }
 }
@@ -0,0 +1,132 @@
+package org.cultro.helix.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timing wheel that tracks deadlines of many elements at constant cost per element.
+ * <p>
+ * Elements are appended to the slot of their deadline tick. Advancing the wheel visits only the slots of
+ * the ticks that passed and asks the {@link ExpiryHandler} what to do with each due element: the handler either
+ * drops it or returns a later deadline to reschedule it. Deadlines further away than one revolution stay in
+ * their slot until the right revolution comes around. Scheduling is lock-free; advancing is done by whichever
+ * caller wins a flag, so callers can drive the wheel from their own hot path without a dedicated thread.
+ * </p>
+ *
+ * @param <T> The type of tracked elements.
+ */
+final class TimingWheel<T> {
+
+    /**
+     * Returned by an {@link ExpiryHandler} to stop tracking an element.
+     */
+    static final long DROP = Long.MIN_VALUE;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Entry<T>>[] slots;
+    private final long originNanos;
+    private final AtomicLong processedTick = new AtomicLong();
+    private final AtomicBoolean advancing = new AtomicBoolean();
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickNanos, int slotCount, long nowNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than zero.");
+        }
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a positive power of two.");
+        }
+        this.tickNanos = tickNanos;
+        this.mask = slotCount - 1;
+        this.slots = (Queue<Entry<T>>[]) new Queue<?>[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.originNanos = nowNanos;
+    }
+
+    /**
+     * Schedules an element to be handed to the expiry handler once its deadline has passed.
+     *
+     * @param element       The element to track.
+     * @param deadlineNanos The deadline, in {@link System#nanoTime()} units.
+     */
+    void schedule(T element, long deadlineNanos) {
+        long tick = Math.max(tickOf(deadlineNanos), processedTick.get() + 1);
+        slots[(int) (tick & mask)].add(new Entry<>(element, tick));
+    }
+
+    /**
+     * Processes all ticks up to the given time, unless another thread is already doing so.
+     *
+     * @param nowNanos The current time, in {@link System#nanoTime()} units.
+     * @param handler  Decides what happens to every due element.
+     */
+    void advance(long nowNanos, ExpiryHandler<T> handler) {
+        long target = tickOf(nowNanos);
+        if (target <= processedTick.get() || !advancing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long tick = processedTick.get();
+            long first = Math.max(tick + 1, target - mask);
+            List<Entry<T>> retained = new ArrayList<>();
+            for (tick = first; tick <= target; tick++) {
+                Queue<Entry<T>> slot = slots[(int) (tick & mask)];
+                Entry<T> entry;
+                while ((entry = slot.poll()) != null) {
+                    if (entry.tick > target) {
+                        retained.add(entry);
+                        continue;
+                    }
+                    long next = handler.expire(entry.element, nowNanos);
+                    if (next != DROP) {
+                        retained.add(new Entry<>(entry.element, Math.max(tickOf(next), target + 1)));
+                    }
+                }
+                processedTick.set(tick);
+            }
+            for (Entry<T> entry : retained) {
+                slots[(int) (entry.tick & mask)].add(entry);
+            }
+        } finally {
+            advancing.set(false);
+        }
+    }
+
+    private long tickOf(long nanos) {
+        return (nanos - originNanos) / tickNanos;
+    }
+
+    /**
+     * Decides the fate of an element whose deadline has passed.
+     *
+     * @param <T> The type of tracked elements.
+     */
+    interface ExpiryHandler<T> {
+
+        /**
+         * Handles a due element.
+         *
+         * @param element  The element.
+         * @param nowNanos The current time.
+         * @return A new deadline to keep tracking the element, or {@link TimingWheel#DROP} to drop it.
+         */
+        long expire(T element, long nowNanos);
+    }
+
+    private static final class Entry<T> {
+        private final T element;
+        private final long tick;
+
+        private Entry(T element, long tick) {
+            this.element = element;
+            this.tick = tick;
+        }
+    }
+}
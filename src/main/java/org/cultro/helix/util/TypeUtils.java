@@ -9,6 +9,7 @@ import java.util.Map;
 public class TypeUtils {
 
     private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPER_MAP = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> WRAPPER_PRIMITIVE_MAP = new HashMap<>();
 
     static {
         PRIMITIVE_WRAPPER_MAP.put(boolean.class, Boolean.class);
@@ -20,6 +21,9 @@ public class TypeUtils {
         PRIMITIVE_WRAPPER_MAP.put(long.class, Long.class);
         PRIMITIVE_WRAPPER_MAP.put(short.class, Short.class);
         PRIMITIVE_WRAPPER_MAP.put(void.class, Void.class);
+        for (Map.Entry<Class<?>, Class<?>> entry : PRIMITIVE_WRAPPER_MAP.entrySet()) {
+            WRAPPER_PRIMITIVE_MAP.put(entry.getValue(), entry.getKey());
+        }
     }
 
     /**
@@ -42,6 +46,42 @@ public class TypeUtils {
         return PRIMITIVE_WRAPPER_MAP.get(clazz);
     }
 
+    /**
+     * Converts a wrapper class to its corresponding primitive type.
+     *
+     * @param clazz The wrapper class.
+     * @return The primitive type, or null if not a wrapper.
+     */
+    public static Class<?> toPrimitive(Class<?> clazz) {
+        return WRAPPER_PRIMITIVE_MAP.get(clazz);
+    }
+
+    /**
+     * Checks if a primitive type converts to another by identity or primitive widening (JLS 5.1.2), such as
+     * {@code int} to {@code long} or {@code char} to {@code double}.
+     *
+     * @param from The primitive type to convert.
+     * @param to   The primitive type to convert to.
+     * @return True if the conversion needs no cast, else false.
+     */
+    public static boolean isPrimitiveWidening(Class<?> from, Class<?> to) {
+        if (from == to) {
+            return from.isPrimitive();
+        }
+        if (from == byte.class) {
+            return to == short.class || to == int.class || to == long.class || to == float.class || to == double.class;
+        } else if (from == short.class || from == char.class) {
+            return to == int.class || to == long.class || to == float.class || to == double.class;
+        } else if (from == int.class) {
+            return to == long.class || to == float.class || to == double.class;
+        } else if (from == long.class) {
+            return to == float.class || to == double.class;
+        } else if (from == float.class) {
+            return to == double.class;
+        }
+        return false;
+    }
+
     /**
      * Checks if two classes are compatible, considering primitive-wrapper relationships.
      *
@@ -0,0 +1,96 @@
+package org.cultro.helix.util;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Holds the {@link Unsafe} instance of the runtime, if it can be obtained.
+ * <p>
+ * Callers must check {@link #isAvailable()} and keep a slower path for runtimes where it is not.
+ * </p>
+ */
+public final class UnsafeAccess {
+
+    private static final Unsafe UNSAFE;
+    private static volatile int fence;
+
+    static {
+        Unsafe unsafe = null;
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ignored) {
+            // Not available on this runtime
+        }
+        UNSAFE = unsafe;
+    }
+
+    private UnsafeAccess() {
+    }
+
+    /**
+     * Checks whether Unsafe can be used on this runtime.
+     *
+     * @return True if {@link #get()} returns an instance.
+     */
+    public static boolean isAvailable() {
+        return UNSAFE != null;
+    }
+
+    /**
+     * Returns the Unsafe instance.
+     *
+     * @return The Unsafe instance, or null if it is not available.
+     */
+    public static Unsafe get() {
+        return UNSAFE;
+    }
+
+    /**
+     * Ensures that stores before the fence are not reordered with stores after it, for memory that is shared
+     * outside the Java memory model, such as memory-mapped files. Without Unsafe, a volatile write and read are
+     * used instead, which are at least as strong on common runtimes.
+     */
+    public static void storeFence() {
+        if (UNSAFE != null) {
+            UNSAFE.storeFence();
+        } else {
+            fence = fence + 1;
+        }
+    }
+
+    /**
+     * Ensures that loads before the fence are not reordered with loads after it, for memory that is shared outside
+     * the Java memory model. Without Unsafe, a volatile write and read are used instead.
+     */
+    public static void loadFence() {
+        if (UNSAFE != null) {
+            UNSAFE.loadFence();
+        } else {
+            fence = fence + 1;
+        }
+    }
+
+    /**
+     * Returns the offset of an instance field for plain Unsafe reads and writes, if the runtime supports that
+     * for the field. Static and volatile fields are not supported, and neither are fields of records and hidden
+     * classes on newer runtimes.
+     *
+     * @param field The field.
+     * @return The offset of the field, or -1 if it cannot be accessed through Unsafe.
+     */
+    public static long objectFieldOffset(Field field) {
+        int modifiers = field.getModifiers();
+        if (UNSAFE == null || Modifier.isStatic(modifiers) || Modifier.isVolatile(modifiers)) {
+            return -1;
+        }
+        try {
+            return UNSAFE.objectFieldOffset(field);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.cultro.helix.lang.MetadataException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.reflection.invokers.FieldLayout;
+import org.cultro.helix.reflection.metadata.ClassMetadata;
+import org.cultro.helix.reflection.metadata.FieldMetadata;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How YAML mappings bind to objects of one class, derived once from its {@link ClassMetadata} and cached in a
+ * {@link ClassValue}.
+ * <p>
+ * Every non-static, non-transient, non-final field of the class and its superclasses is bound under its name and,
+ * for camel-case names, under the equivalent kebab-case key, so {@code maxConnections} also accepts
+ * {@code max-connections}. Binding a mapping is a lookup per key followed by the precomputed binder of the field.
+ * </p>
+ */
+final class BindingPlan {
+
+    private static final ClassValue<BindingPlan> PLANS = new ClassValue<BindingPlan>() {
+        @Override
+        protected BindingPlan computeValue(Class<?> type) {
+            return new BindingPlan(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, PropertyBinding> properties = new HashMap<>();
+    private final CompiledConstructor<?> constructor;
+    private final String failure;
+
+    private BindingPlan(Class<?> type) {
+        this.type = type;
+        CompiledConstructor<?> compiled = null;
+        try {
+            compiled = ConstructorInvoker.compile(type);
+        } catch (ReflectionException e) {
+            // Objects of the class can still be bound in place.
+        }
+        this.constructor = compiled;
+        String error = null;
+        try {
+            for (FieldMetadata metadata : ClassMetadata.getCachedMetadata(type).getFieldLayout()) {
+                Field field = metadata.getField();
+                int modifiers = field.getModifiers();
+                if (Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                CompiledField compiledField = FieldLayout.of(field.getDeclaringClass()).getDeclaredField(field.getName());
+                PropertyBinding binding = PropertyBinding.of(compiledField, ValueBinders.forType(field.getGenericType()));
+                properties.put(field.getName(), binding);
+                String kebab = toKebabCase(field.getName());
+                if (!kebab.equals(field.getName())) {
+                    properties.put(kebab, binding);
+                }
+            }
+        } catch (ReflectionException | MetadataException | IllegalStateException e) {
+            error = "Cannot bind to " + type.getName() + ": " + e.getMessage();
+        }
+        this.failure = error;
+    }
+
+    static BindingPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * Binds the next mapping to an object of the class.
+     *
+     * @param events   The event stream positioned before the mapping.
+     * @param instance The object to bind into, or null to create one with the no-argument constructor.
+     * @return The bound object.
+     * @throws BindingException If the mapping does not fit the class.
+     */
+    Object bind(EventStream events, Object instance) throws BindingException {
+        Event start = events.expect(Event.ID.MappingStart, "a mapping for " + type.getName());
+        if (failure != null) {
+            throw events.error(start, failure);
+        }
+        Object target = instance;
+        if (target == null) {
+            if (constructor == null) {
+                throw events.error(start, "Cannot instantiate " + type.getName() + " without a no-argument constructor");
+            }
+            try {
+                target = constructor.newInstance();
+            } catch (ReflectionException e) {
+                throw events.error(start, e.getMessage());
+            }
+        }
+        while (!events.check(Event.ID.MappingEnd)) {
+            ScalarEvent key = events.scalar("a property name");
+            PropertyBinding property = properties.get(key.getValue());
+            if (property != null) {
+                property.bind(events, target);
+            } else if (events.failOnUnknownProperties()) {
+                throw events.error(key, "Unknown property '" + key.getValue() + "' for " + type.getName());
+            } else {
+                events.skipNode();
+            }
+        }
+        events.next();
+        return target;
+    }
+
+    private static String toKebabCase(String name) {
+        StringBuilder kebab = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    kebab.append('-');
+                }
+                kebab.append(Character.toLowerCase(c));
+            } else {
+                kebab.append(c);
+            }
+        }
+        return kebab.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The pull interface binders read the SnakeYAML event stream through. It also remembers the values bound for
+ * anchored nodes so that aliases can refer to them.
+ */
+final class EventStream {
+
+    private final Parser parser;
+    private final boolean failOnUnknownProperties;
+    private Map<String, Object> anchors;
+
+    EventStream(Parser parser, boolean failOnUnknownProperties) {
+        this.parser = parser;
+        this.failOnUnknownProperties = failOnUnknownProperties;
+    }
+
+    boolean failOnUnknownProperties() {
+        return failOnUnknownProperties;
+    }
+
+    Event peek() throws BindingException {
+        try {
+            return parser.peekEvent();
+        } catch (YAMLException e) {
+            throw new BindingException(e.getMessage(), e);
+        }
+    }
+
+    Event next() throws BindingException {
+        try {
+            return parser.getEvent();
+        } catch (YAMLException e) {
+            throw new BindingException(e.getMessage(), e);
+        }
+    }
+
+    boolean check(Event.ID id) throws BindingException {
+        return peek().is(id);
+    }
+
+    /**
+     * Consumes the next event, which must be of the given kind.
+     */
+    Event expect(Event.ID id, String what) throws BindingException {
+        Event event = next();
+        if (!event.is(id)) {
+            throw error(event, "Expected " + what + " but found " + describe(event));
+        }
+        return event;
+    }
+
+    /**
+     * Consumes the next event, which must be a scalar.
+     */
+    ScalarEvent scalar(String what) throws BindingException {
+        return (ScalarEvent) expect(Event.ID.Scalar, what);
+    }
+
+    /**
+     * Consumes the next node if it is a null scalar.
+     *
+     * @return Whether a null was consumed.
+     */
+    boolean nextIsNull() throws BindingException {
+        Event event = peek();
+        if (event instanceof ScalarEvent && Scalars.isNull((ScalarEvent) event)) {
+            next();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips the next node including all nodes nested in it.
+     */
+    void skipNode() throws BindingException {
+        int depth = 0;
+        do {
+            Event event = next();
+            if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                depth++;
+            } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    void anchor(String anchor, Object value) {
+        if (anchors == null) {
+            anchors = new HashMap<>();
+        }
+        anchors.put(anchor, value);
+    }
+
+    Object alias(AliasEvent event) throws BindingException {
+        String anchor = event.getAnchor();
+        if (anchors == null || !anchors.containsKey(anchor)) {
+            throw error(event, "Unknown alias *" + anchor);
+        }
+        return anchors.get(anchor);
+    }
+
+    BindingException error(Event event, String message) {
+        Mark mark = event.getStartMark();
+        if (mark == null) {
+            return new BindingException(message);
+        }
+        return new BindingException(message + " at line " + (mark.getLine() + 1) + ", column " + (mark.getColumn() + 1));
+    }
+
+    static String describe(Event event) {
+        if (event instanceof ScalarEvent) {
+            return "scalar '" + ((ScalarEvent) event).getValue() + "'";
+        }
+        String id = event.getEventId().name();
+        if (id.endsWith("Start")) {
+            return "a " + id.substring(0, id.length() - 5).toLowerCase();
+        }
+        return "the end of a " + id.replace("End", "").toLowerCase();
+    }
+}
@@ -0,0 +1,201 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledField;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+/**
+ * Binds the value of one mapping key to a field of the object being bound.
+ * <p>
+ * Plain scalars for {@code int}, {@code long}, {@code double} and {@code boolean} fields are parsed and stored
+ * through the typed field accessors without boxing. Nested objects are bound into the instance the field already
+ * holds, if any, so that reloading a configuration into an existing object reuses its sections.
+ * </p>
+ */
+class PropertyBinding {
+
+    final CompiledField field;
+    final ValueBinder binder;
+
+    PropertyBinding(CompiledField field, ValueBinder binder) {
+        this.field = field;
+        this.binder = binder;
+    }
+
+    static PropertyBinding of(CompiledField field, ValueBinder binder) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntProperty(field, binder);
+        } else if (type == long.class) {
+            return new LongProperty(field, binder);
+        } else if (type == double.class) {
+            return new DoubleProperty(field, binder);
+        } else if (type == boolean.class) {
+            return new BooleanProperty(field, binder);
+        } else if (binder instanceof ValueBinders.ObjectBinder) {
+            return new NestedProperty(field, binder);
+        }
+        return new PropertyBinding(field, binder);
+    }
+
+    void bind(EventStream events, Object target) throws BindingException {
+        Event event = events.peek();
+        Object value = binder.read(events);
+        if (value == null && field.getType().isPrimitive()) {
+            return;
+        }
+        try {
+            field.set(target, value);
+        } catch (ReflectionException e) {
+            throw events.error(event, e.getMessage());
+        }
+    }
+
+    /**
+     * Consumes the next event if it is a plain, unanchored scalar that is not null, which is the case the
+     * primitive bindings handle without boxing.
+     *
+     * @return The scalar, or null if the generic path must bind the node.
+     */
+    static ScalarEvent plainScalar(EventStream events) throws BindingException {
+        Event event = events.peek();
+        if (event instanceof ScalarEvent) {
+            ScalarEvent scalar = (ScalarEvent) event;
+            if (scalar.getAnchor() == null && !Scalars.isNull(scalar)) {
+                events.next();
+                return scalar;
+            }
+        }
+        return null;
+    }
+
+    BindingException conversionError(EventStream events, ScalarEvent scalar) {
+        return events.error(scalar, "Cannot convert '" + scalar.getValue() + "' to " + field.getType().getName()
+                + " for field " + field.getName());
+    }
+
+    private static final class IntProperty extends PropertyBinding {
+
+        IntProperty(CompiledField field, ValueBinder binder) {
+            super(field, binder);
+        }
+
+        @Override
+        void bind(EventStream events, Object target) throws BindingException {
+            ScalarEvent scalar = plainScalar(events);
+            if (scalar == null) {
+                super.bind(events, target);
+                return;
+            }
+            try {
+                field.setInt(target, Math.toIntExact(Scalars.parseLong(scalar.getValue())));
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw conversionError(events, scalar);
+            } catch (ReflectionException e) {
+                throw events.error(scalar, e.getMessage());
+            }
+        }
+    }
+
+    private static final class LongProperty extends PropertyBinding {
+
+        LongProperty(CompiledField field, ValueBinder binder) {
+            super(field, binder);
+        }
+
+        @Override
+        void bind(EventStream events, Object target) throws BindingException {
+            ScalarEvent scalar = plainScalar(events);
+            if (scalar == null) {
+                super.bind(events, target);
+                return;
+            }
+            try {
+                field.setLong(target, Scalars.parseLong(scalar.getValue()));
+            } catch (NumberFormatException e) {
+                throw conversionError(events, scalar);
+            } catch (ReflectionException e) {
+                throw events.error(scalar, e.getMessage());
+            }
+        }
+    }
+
+    private static final class DoubleProperty extends PropertyBinding {
+
+        DoubleProperty(CompiledField field, ValueBinder binder) {
+            super(field, binder);
+        }
+
+        @Override
+        void bind(EventStream events, Object target) throws BindingException {
+            ScalarEvent scalar = plainScalar(events);
+            if (scalar == null) {
+                super.bind(events, target);
+                return;
+            }
+            try {
+                field.setDouble(target, Scalars.parseDouble(scalar.getValue()));
+            } catch (NumberFormatException e) {
+                throw conversionError(events, scalar);
+            } catch (ReflectionException e) {
+                throw events.error(scalar, e.getMessage());
+            }
+        }
+    }
+
+    private static final class BooleanProperty extends PropertyBinding {
+
+        BooleanProperty(CompiledField field, ValueBinder binder) {
+            super(field, binder);
+        }
+
+        @Override
+        void bind(EventStream events, Object target) throws BindingException {
+            ScalarEvent scalar = plainScalar(events);
+            if (scalar == null) {
+                super.bind(events, target);
+                return;
+            }
+            Boolean value = Scalars.parseBoolean(scalar.getValue());
+            if (value == null) {
+                throw conversionError(events, scalar);
+            }
+            try {
+                field.setBoolean(target, value);
+            } catch (ReflectionException e) {
+                throw events.error(scalar, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A field holding a nested object, bound in place when the field is already set.
+     */
+    private static final class NestedProperty extends PropertyBinding {
+
+        NestedProperty(CompiledField field, ValueBinder binder) {
+            super(field, binder);
+        }
+
+        @Override
+        void bind(EventStream events, Object target) throws BindingException {
+            Event event = events.peek();
+            if (event instanceof MappingStartEvent && ((MappingStartEvent) event).getAnchor() == null) {
+                Object current;
+                try {
+                    current = field.get(target);
+                } catch (ReflectionException e) {
+                    throw events.error(event, e.getMessage());
+                }
+                if (current != null && current.getClass() == field.getType()) {
+                    BindingPlan.of(current.getClass()).bind(events, current);
+                    return;
+                }
+            }
+            super.bind(events, target);
+        }
+    }
+}
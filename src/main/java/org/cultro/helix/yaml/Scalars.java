@@ -0,0 +1,104 @@
+package org.cultro.helix.yaml;
+
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+/**
+ * Parsing of plain YAML 1.1 scalars as SnakeYAML resolves them: nulls, booleans such as {@code yes} and
+ * {@code off}, integers with underscores, signs and radix prefixes, and floats including {@code .inf} and
+ * {@code .nan}.
+ */
+final class Scalars {
+
+    private Scalars() {
+    }
+
+    /**
+     * Whether the scalar is a null: an empty, {@code ~} or {@code null} plain scalar, or one tagged {@code !!null}.
+     */
+    static boolean isNull(ScalarEvent event) {
+        if ("tag:yaml.org,2002:null".equals(event.getTag())) {
+            return true;
+        }
+        if (!event.isPlain() || event.getTag() != null) {
+            return false;
+        }
+        String value = event.getValue();
+        return value.isEmpty() || "~".equals(value) || "null".equals(value) || "Null".equals(value) || "NULL".equals(value);
+    }
+
+    /**
+     * Parses a boolean.
+     *
+     * @return The boolean, or null if the value is not a YAML boolean.
+     */
+    static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value) || "on".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value) || "no".equalsIgnoreCase(value) || "off".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Parses an integer in decimal, {@code 0x} hexadecimal, {@code 0b} binary or leading-zero octal notation.
+     *
+     * @throws NumberFormatException If the value is not an integer or does not fit a long.
+     */
+    static long parseLong(String value) {
+        String digits = value.indexOf('_') < 0 ? value : value.replace("_", "");
+        int start = 0;
+        boolean negative = false;
+        if (!digits.isEmpty() && (digits.charAt(0) == '-' || digits.charAt(0) == '+')) {
+            negative = digits.charAt(0) == '-';
+            start = 1;
+        }
+        int radix = 10;
+        if (digits.startsWith("0x", start)) {
+            radix = 16;
+            start += 2;
+        } else if (digits.startsWith("0b", start)) {
+            radix = 2;
+            start += 2;
+        } else if (digits.startsWith("0o", start)) {
+            radix = 8;
+            start += 2;
+        } else if (digits.length() - start > 1 && digits.charAt(start) == '0') {
+            radix = 8;
+            start += 1;
+        }
+        String magnitude = digits.substring(start);
+        if (magnitude.isEmpty() || magnitude.charAt(0) == '-' || magnitude.charAt(0) == '+') {
+            throw new NumberFormatException("Not an integer: " + value);
+        }
+        return Long.parseLong(negative ? "-" + magnitude : magnitude, radix);
+    }
+
+    /**
+     * Parses a float, accepting the special values {@code .inf}, {@code -.inf} and {@code .nan}.
+     *
+     * @throws NumberFormatException If the value is not a number.
+     */
+    static double parseDouble(String value) {
+        String digits = value.indexOf('_') < 0 ? value : value.replace("_", "");
+        String lower = digits.toLowerCase();
+        switch (lower) {
+            case ".inf":
+            case "+.inf":
+                return Double.POSITIVE_INFINITY;
+            case "-.inf":
+                return Double.NEGATIVE_INFINITY;
+            case ".nan":
+                return Double.NaN;
+            default:
+                if (lower.endsWith("d") || lower.endsWith("f")) {
+                    throw new NumberFormatException("Not a float: " + value);
+                }
+                if (lower.contains("0x") || lower.contains("0b")) {
+                    return parseLong(digits);
+                }
+                return Double.parseDouble(digits);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+
+/**
+ * Binds one YAML node to a value of a fixed Java type.
+ */
+abstract class ValueBinder {
+
+    /**
+     * The type of the values produced, a wrapper class for primitives.
+     */
+    final Class<?> type;
+
+    ValueBinder(Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Binds the next node, resolving aliases and remembering the value of anchored nodes.
+     *
+     * @param events The event stream positioned before the node.
+     * @return The bound value, or null for a null node.
+     * @throws BindingException If the node does not fit the type.
+     */
+    final Object read(EventStream events) throws BindingException {
+        Event event = events.peek();
+        if (event instanceof AliasEvent) {
+            events.next();
+            Object value = events.alias((AliasEvent) event);
+            if (value != null && !type.isInstance(value)) {
+                throw events.error(event, "Alias *" + ((AliasEvent) event).getAnchor() + " refers to a "
+                        + value.getClass().getName() + ", expected " + type.getName());
+            }
+            return value;
+        }
+        if (events.nextIsNull()) {
+            return null;
+        }
+        if (!(event instanceof NodeEvent)) {
+            throw events.error(event, "Expected a value but found " + EventStream.describe(event));
+        }
+        String anchor = ((NodeEvent) event).getAnchor();
+        Object value = bind(events);
+        if (anchor != null) {
+            events.anchor(anchor, value);
+        }
+        return value;
+    }
+
+    /**
+     * Binds the next node, which is neither an alias nor a null scalar.
+     */
+    abstract Object bind(EventStream events) throws BindingException;
+}
@@ -0,0 +1,415 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.cultro.helix.lang.ReflectionException;
+import org.cultro.helix.reflection.invokers.CompiledConstructor;
+import org.cultro.helix.reflection.invokers.ConstructorInvoker;
+import org.cultro.helix.util.TypeUtils;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Creates the {@link ValueBinder} of a Java type: scalars, enums, arrays, collections, maps, untyped values and
+ * nested objects bound through their {@link BindingPlan}.
+ */
+final class ValueBinders {
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final ValueBinder UNTYPED = new UntypedBinder();
+
+    private ValueBinders() {
+    }
+
+    /**
+     * Parses the text of a scalar.
+     */
+    interface ScalarParser {
+
+        Object parse(String value);
+    }
+
+    static ValueBinder forType(Type type) {
+        Class<?> raw = rawType(type);
+        if (raw.isPrimitive()) {
+            raw = TypeUtils.toWrapper(raw);
+        }
+        ValueBinder scalar = scalar(raw);
+        if (scalar != null) {
+            return scalar;
+        }
+        if (raw == Object.class) {
+            return UNTYPED;
+        }
+        if (raw.isArray()) {
+            Type component = type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            return new ArrayBinder(raw, forType(component));
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            Supplier<Collection<Object>> factory = collectionFactory(raw);
+            return factory == null ? unsupported(raw) : new CollectionBinder(raw, factory, forType(typeArgument(type, 0)));
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            Supplier<Map<Object, Object>> factory = mapFactory(raw);
+            return factory == null ? unsupported(raw)
+                    : new MapBinder(raw, factory, forType(typeArgument(type, 0)), forType(typeArgument(type, 1)));
+        }
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            return unsupported(raw);
+        }
+        return new ObjectBinder(raw);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValueBinder scalar(Class<?> type) {
+        if (type == String.class) {
+            return new ScalarBinder(type, value -> value);
+        } else if (type == Integer.class) {
+            return new ScalarBinder(type, value -> Math.toIntExact(Scalars.parseLong(value)));
+        } else if (type == Long.class) {
+            return new ScalarBinder(type, Scalars::parseLong);
+        } else if (type == Double.class) {
+            return new ScalarBinder(type, Scalars::parseDouble);
+        } else if (type == Boolean.class) {
+            return new ScalarBinder(type, ValueBinders::parseBoolean);
+        } else if (type == Float.class) {
+            return new ScalarBinder(type, value -> (float) Scalars.parseDouble(value));
+        } else if (type == Short.class) {
+            return new ScalarBinder(type, value -> narrow(Scalars.parseLong(value), Short.MIN_VALUE, Short.MAX_VALUE).shortValue());
+        } else if (type == Byte.class) {
+            return new ScalarBinder(type, value -> narrow(Scalars.parseLong(value), Byte.MIN_VALUE, Byte.MAX_VALUE).byteValue());
+        } else if (type == Character.class) {
+            return new ScalarBinder(type, ValueBinders::parseChar);
+        } else if (type == BigInteger.class) {
+            return new ScalarBinder(type, value -> new BigInteger(value.replace("_", "")));
+        } else if (type == BigDecimal.class) {
+            return new ScalarBinder(type, value -> new BigDecimal(value.replace("_", "")));
+        } else if (type.isEnum()) {
+            return new ScalarBinder(type, enumParser((Class<? extends Enum>) type));
+        }
+        return null;
+    }
+
+    static Boolean parseBoolean(String value) {
+        Boolean result = Scalars.parseBoolean(value);
+        if (result == null) {
+            throw new IllegalArgumentException("Not a boolean: " + value);
+        }
+        return result;
+    }
+
+    private static Character parseChar(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Not a single character: " + value);
+        }
+        return value.charAt(0);
+    }
+
+    private static Long narrow(long value, long min, long max) {
+        if (value < min || value > max) {
+            throw new ArithmeticException("Out of range: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Looks enum constants up by name, falling back to a case-insensitive match with dashes read as underscores,
+     * so that {@code read-only} binds to {@code READ_ONLY}.
+     */
+    private static <E extends Enum<E>> ScalarParser enumParser(Class<E> type) {
+        Map<String, E> exact = new HashMap<>();
+        Map<String, E> relaxed = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            exact.put(constant.name(), constant);
+            relaxed.putIfAbsent(constant.name().toUpperCase(Locale.ROOT), constant);
+        }
+        return value -> {
+            E constant = exact.get(value);
+            if (constant == null) {
+                constant = relaxed.get(value.replace('-', '_').toUpperCase(Locale.ROOT));
+            }
+            if (constant == null) {
+                throw new IllegalArgumentException("No constant " + value + " in " + type.getName());
+            }
+            return constant;
+        };
+    }
+
+    private static Supplier<Collection<Object>> collectionFactory(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAssignableFrom(ArrayList.class)) {
+                return ArrayList::new;
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                return LinkedHashSet::new;
+            } else if (type.isAssignableFrom(TreeSet.class) && SortedSet.class.isAssignableFrom(type)) {
+                return TreeSet::new;
+            } else if (type.isAssignableFrom(ArrayDeque.class) && Queue.class.isAssignableFrom(type)) {
+                return ArrayDeque::new;
+            }
+            return null;
+        }
+        return instantiator(type);
+    }
+
+    private static Supplier<Map<Object, Object>> mapFactory(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAssignableFrom(LinkedHashMap.class)) {
+                return LinkedHashMap::new;
+            } else if (type.isAssignableFrom(TreeMap.class)
+                    && (SortedMap.class.isAssignableFrom(type) || NavigableMap.class.isAssignableFrom(type))) {
+                return TreeMap::new;
+            }
+            return null;
+        }
+        return instantiator(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> instantiator(Class<?> type) {
+        CompiledConstructor<?> constructor;
+        try {
+            constructor = ConstructorInvoker.compile(type);
+        } catch (ReflectionException e) {
+            return null;
+        }
+        return () -> {
+            try {
+                return (T) constructor.newInstance();
+            } catch (ReflectionException e) {
+                throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+            }
+        };
+    }
+
+    static Class<?> rawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        } else if (type instanceof TypeVariable) {
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        } else if (type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    private static ValueBinder unsupported(Class<?> type) {
+        return new ValueBinder(type) {
+            @Override
+            Object bind(EventStream events) throws BindingException {
+                throw events.error(events.peek(), "Cannot bind to " + type.getName()
+                        + ", which is abstract or cannot be instantiated");
+            }
+        };
+    }
+
+    static final class ScalarBinder extends ValueBinder {
+
+        private final ScalarParser parser;
+
+        ScalarBinder(Class<?> type, ScalarParser parser) {
+            super(type);
+            this.parser = parser;
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            ScalarEvent event = events.scalar("a " + type.getSimpleName() + " value");
+            return parse(events, event);
+        }
+
+        Object parse(EventStream events, ScalarEvent event) throws BindingException {
+            try {
+                return parser.parse(event.getValue());
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw events.error(event, "Cannot convert '" + event.getValue() + "' to " + type.getSimpleName());
+            }
+        }
+    }
+
+    private static final class ArrayBinder extends ValueBinder {
+
+        private final ValueBinder element;
+
+        ArrayBinder(Class<?> type, ValueBinder element) {
+            super(type);
+            this.element = element;
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            events.expect(Event.ID.SequenceStart, "a sequence");
+            List<Object> values = new ArrayList<>();
+            while (!events.check(Event.ID.SequenceEnd)) {
+                values.add(element.read(events));
+            }
+            events.next();
+            Class<?> componentType = type.getComponentType();
+            Object array = Array.newInstance(componentType, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value != null || !componentType.isPrimitive()) {
+                    Array.set(array, i, value);
+                }
+            }
+            return array;
+        }
+    }
+
+    private static final class CollectionBinder extends ValueBinder {
+
+        private final Supplier<Collection<Object>> factory;
+        private final ValueBinder element;
+
+        CollectionBinder(Class<?> type, Supplier<Collection<Object>> factory, ValueBinder element) {
+            super(type);
+            this.factory = factory;
+            this.element = element;
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            events.expect(Event.ID.SequenceStart, "a sequence");
+            Collection<Object> collection = factory.get();
+            while (!events.check(Event.ID.SequenceEnd)) {
+                collection.add(element.read(events));
+            }
+            events.next();
+            return collection;
+        }
+    }
+
+    private static final class MapBinder extends ValueBinder {
+
+        private final Supplier<Map<Object, Object>> factory;
+        private final ValueBinder key;
+        private final ValueBinder value;
+
+        MapBinder(Class<?> type, Supplier<Map<Object, Object>> factory, ValueBinder key, ValueBinder value) {
+            super(type);
+            this.factory = factory;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            events.expect(Event.ID.MappingStart, "a mapping");
+            Map<Object, Object> map = factory.get();
+            while (!events.check(Event.ID.MappingEnd)) {
+                map.put(key.read(events), value.read(events));
+            }
+            events.next();
+            return map;
+        }
+    }
+
+    /**
+     * Binds a nested object through the plan of its class, which is looked up on use so that classes may
+     * refer to each other.
+     */
+    static final class ObjectBinder extends ValueBinder {
+
+        ObjectBinder(Class<?> type) {
+            super(type);
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            return BindingPlan.of(type).bind(events, null);
+        }
+    }
+
+    /**
+     * Binds values of declared type {@code Object} like SnakeYAML does: mappings to {@link LinkedHashMap}s,
+     * sequences to {@link ArrayList}s and plain scalars to the type their implicit tag resolves to.
+     */
+    private static final class UntypedBinder extends ValueBinder {
+
+        UntypedBinder() {
+            super(Object.class);
+        }
+
+        @Override
+        Object bind(EventStream events) throws BindingException {
+            Event event = events.next();
+            if (event.is(Event.ID.MappingStart)) {
+                Map<Object, Object> map = new LinkedHashMap<>();
+                while (!events.check(Event.ID.MappingEnd)) {
+                    map.put(read(events), read(events));
+                }
+                events.next();
+                return map;
+            }
+            if (event.is(Event.ID.SequenceStart)) {
+                List<Object> list = new ArrayList<>();
+                while (!events.check(Event.ID.SequenceEnd)) {
+                    list.add(read(events));
+                }
+                events.next();
+                return list;
+            }
+            ScalarEvent scalar = (ScalarEvent) event;
+            String value = scalar.getValue();
+            if (!scalar.isPlain() || scalar.getTag() != null) {
+                return value;
+            }
+            Tag tag = RESOLVER.resolve(NodeId.scalar, value, true);
+            try {
+                if (Tag.INT.equals(tag)) {
+                    long number = Scalars.parseLong(value);
+                    return number == (int) number ? (Object) (int) number : (Object) number;
+                } else if (Tag.FLOAT.equals(tag)) {
+                    return Scalars.parseDouble(value);
+                } else if (Tag.BOOL.equals(tag)) {
+                    return Scalars.parseBoolean(value);
+                }
+            } catch (NumberFormatException e) {
+                return value;
+            }
+            return value;
+        }
+    }
+}
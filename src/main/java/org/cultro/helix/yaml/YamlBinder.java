@@ -0,0 +1,137 @@
+package org.cultro.helix.yaml;
+
+import org.cultro.helix.lang.BindingException;
+import org.cultro.helix.lang.Validate;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Binds YAML documents to objects straight from SnakeYAML's event stream, without building a node or map tree.
+ * <p>
+ * The binding plan of each class is derived once from its cached metadata and shared by all binders. Supported
+ * are nested objects with a no-argument constructor, primitives and their wrappers, strings, big numbers, enums
+ * (by name, case-insensitively as a fallback), arrays, collections and maps with generic element types, fields of
+ * type {@code Object} bound like SnakeYAML would, and anchors and aliases. Merge keys are not supported.
+ * </p>
+ * <pre>{@code
+ * ServerConfig config = new YamlBinder().bind(reader, ServerConfig.class);
+ * new YamlBinder().bind(otherReader, config); // reload into the same objects
+ * }</pre>
+ */
+public final class YamlBinder {
+
+    private final LoaderOptions options;
+    private final boolean failOnUnknownProperties;
+
+    /**
+     * Creates a binder with default loader options that ignores unknown properties.
+     */
+    public YamlBinder() {
+        this(new LoaderOptions(), false);
+    }
+
+    /**
+     * Creates a binder.
+     *
+     * @param options                 The SnakeYAML loader options, such as the maximum document size.
+     * @param failOnUnknownProperties Whether keys without a matching field are an error instead of skipped.
+     */
+    public YamlBinder(LoaderOptions options, boolean failOnUnknownProperties) {
+        Validate.notNull(options, "Loader options cannot be null");
+        this.options = options;
+        this.failOnUnknownProperties = failOnUnknownProperties;
+    }
+
+    /**
+     * Binds the first document of the YAML text.
+     *
+     * @param yaml The YAML text.
+     * @param type The class to bind to.
+     * @param <T>  The type to bind to.
+     * @return The bound object, or null for an empty document.
+     * @throws BindingException If the YAML is malformed or does not fit the class.
+     */
+    public <T> T bind(String yaml, Class<T> type) throws BindingException {
+        return bind(new StringReader(yaml), type);
+    }
+
+    /**
+     * Binds the first document of a YAML stream, detecting its Unicode encoding.
+     *
+     * @param in   The YAML stream.
+     * @param type The class to bind to.
+     * @param <T>  The type to bind to.
+     * @return The bound object, or null for an empty document.
+     * @throws BindingException If the YAML is malformed or does not fit the class.
+     */
+    public <T> T bind(InputStream in, Class<T> type) throws BindingException {
+        return bind(new UnicodeReader(in), type);
+    }
+
+    /**
+     * Binds the first document of a YAML stream.
+     *
+     * @param reader The YAML characters.
+     * @param type   The class to bind to.
+     * @param <T>    The type to bind to.
+     * @return The bound object, or null for an empty document.
+     * @throws BindingException If the YAML is malformed or does not fit the class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T bind(Reader reader, Class<T> type) throws BindingException {
+        Validate.notNull(type, "Type cannot be null");
+        EventStream events = open(reader);
+        if (!startDocument(events)) {
+            return null;
+        }
+        Object value = ValueBinders.forType(type).read(events);
+        events.expect(Event.ID.DocumentEnd, "the end of the document");
+        return (T) (type.isPrimitive() ? value : type.cast(value));
+    }
+
+    /**
+     * Binds the first document of a YAML stream into an existing object. Fields whose keys are absent keep their
+     * values, and nested objects already present are bound in place.
+     *
+     * @param reader The YAML characters.
+     * @param target The object to bind into.
+     * @param <T>    The type of the object.
+     * @return The target.
+     * @throws BindingException If the YAML is malformed or does not fit the class of the target.
+     */
+    public <T> T bind(Reader reader, T target) throws BindingException {
+        Validate.notNull(target, "Target cannot be null");
+        EventStream events = open(reader);
+        if (startDocument(events) && !events.nextIsNull()) {
+            BindingPlan.of(target.getClass()).bind(events, target);
+            events.expect(Event.ID.DocumentEnd, "the end of the document");
+        }
+        return target;
+    }
+
+    private EventStream open(Reader reader) {
+        Validate.notNull(reader, "Reader cannot be null");
+        return new EventStream(new ParserImpl(new StreamReader(reader), options), failOnUnknownProperties);
+    }
+
+    /**
+     * Consumes the stream start and the start of the first document.
+     *
+     * @return Whether the stream contains a document.
+     */
+    private static boolean startDocument(EventStream events) throws BindingException {
+        events.expect(Event.ID.StreamStart, "the start of the stream");
+        if (events.check(Event.ID.StreamEnd)) {
+            return false;
+        }
+        events.expect(Event.ID.DocumentStart, "a document");
+        return true;
+    }
+}